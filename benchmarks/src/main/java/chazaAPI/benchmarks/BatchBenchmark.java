@@ -0,0 +1,93 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.Method;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.exceptions.ChazaAPIException;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The calls a client screen makes, sent one HTTP request at a time against a single request to
+ * the batch route that {@code enableBatch} registers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+
+    @Param({"1", "10", "20"})
+    public int calls;
+
+    private Javalin server;
+    private HttpClient client;
+    private HttpRequest[] individual;
+    private HttpRequest batch;
+
+    @Chaza(group = "screen", baseUrl = "/screen", contentType = "application/json")
+    public static class ScreenController {
+
+        @EndPoint(method = Method.GET, url = "tiles/{id}")
+        public static void tile(Context ctx) {
+            ctx.json(Map.of("id", ctx.pathParam("id"), "title", "Tile", "unread", 3));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws ChazaAPIException {
+        server = Javalin.create();
+        APIDisplay.getInstance()
+                .setApiInfo(SerializationBenchmark.apiInfo())
+                .scanEndPoints(List.of(ScreenController.class))
+                .generateDocumentation()
+                .enableBatch(calls)
+                .bindRoutes(server, List.of(ScreenController.class))
+                .hostToServer(server);
+        server.start(0);
+
+        client = HttpClient.newHttpClient();
+        String base = "http://localhost:" + server.port();
+        individual = IntStream.range(0, calls)
+                .mapToObj(i -> HttpRequest.newBuilder(URI.create(base + "/screen/tiles/" + i)).build())
+                .toArray(HttpRequest[]::new);
+        String body = IntStream.range(0, calls)
+                .mapToObj(i -> "{\"method\":\"GET\",\"url\":\"/screen/tiles/" + i + "\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+        batch = HttpRequest.newBuilder(URI.create(base + "/batch")).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public int individual() throws IOException, InterruptedException {
+        int bytes = 0;
+        for (HttpRequest request : individual) {
+            bytes += client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int batched() throws IOException, InterruptedException {
+        return client.send(batch, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+}
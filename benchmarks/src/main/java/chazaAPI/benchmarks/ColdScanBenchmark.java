@@ -0,0 +1,106 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.bytecode.BytecodeScanner;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.reflection.ReflectionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of scanning with reflection versus reading class files, each on a class loader
+ * that has not seen the application yet.
+ *
+ * <p>Besides time, every operation reports the metaspace it allocated and the number of classes
+ * it loaded as secondary results ({@code metaspaceBytes}, {@code classesLoaded}).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ColdScanBenchmark {
+
+    @Param({"100", "1000"})
+    public int endpoints;
+
+    private SyntheticApi api;
+    private URLClassLoader loader;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        private static final MemoryPoolMXBean METASPACE = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getName().equals("Metaspace"))
+                .findFirst()
+                .orElse(null);
+        private static final ClassLoadingMXBean CLASSES = ManagementFactory.getClassLoadingMXBean();
+
+        public long metaspaceBytes;
+        public long classesLoaded;
+
+        private long metaspaceBefore;
+        private long classesBefore;
+
+        @Setup(Level.Iteration)
+        public void begin() {
+            metaspaceBefore = metaspace();
+            classesBefore = CLASSES.getTotalLoadedClassCount();
+        }
+
+        void end() {
+            metaspaceBytes = metaspace() - metaspaceBefore;
+            classesLoaded = CLASSES.getTotalLoadedClassCount() - classesBefore;
+        }
+
+        private static long metaspace() {
+            return METASPACE == null ? 0 : METASPACE.getUsage().getUsed();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        api = SyntheticApi.generate(endpoints);
+    }
+
+    @Setup(Level.Iteration)
+    public void openLoader() throws IOException {
+        loader = api.freshLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLoader() throws IOException {
+        Thread.currentThread().setContextClassLoader(ColdScanBenchmark.class.getClassLoader());
+        loader.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        api.close();
+    }
+
+    @Benchmark
+    public List<Endpoint> reflection(Footprint footprint) throws ChazaAPIException {
+        List<Class<?>> controllers = ReflectionUtils.findIndexedControllers(api.basePackage()).orElseThrow();
+        List<Endpoint> scanned = Endpoint.scan(controllers);
+        footprint.end();
+        return scanned;
+    }
+
+    @Benchmark
+    public List<Endpoint> bytecode(Footprint footprint) throws ChazaAPIException {
+        List<Endpoint> scanned = new BytecodeScanner(loader).scan(api.basePackage());
+        footprint.end();
+        return scanned;
+    }
+}
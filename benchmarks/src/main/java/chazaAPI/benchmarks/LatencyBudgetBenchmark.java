@@ -0,0 +1,62 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.annotations.Method;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.runtime.LatencyBudgets;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost added to a request by {@link LatencyBudgets}: timing it and counting it in the sliding
+ * window of its endpoint. Requests within budget only increment counters; each one over budget
+ * also decides again whether the endpoint violates its budget. The contended benchmark has four
+ * threads record into the same endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LatencyBudgetBenchmark {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(80);
+
+    private LatencyBudgets.Budget budget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Endpoint endpoint = new Endpoint();
+        endpoint.setMethod(Method.GET);
+        endpoint.setUrl("reports/{id}");
+        endpoint.setLatencyBudgetMs(50);
+        budget = new LatencyBudgets(1.0, status -> { }).track(endpoint);
+    }
+
+    @Benchmark
+    public long baseline() {
+        // the two clock reads every timed request needs anyway
+        return System.nanoTime() - System.nanoTime();
+    }
+
+    @Benchmark
+    public void withinBudget() {
+        long start = System.nanoTime();
+        budget.record(System.nanoTime() - start + FAST);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void withinBudgetContended() {
+        long start = System.nanoTime();
+        budget.record(System.nanoTime() - start + FAST);
+    }
+
+    @Benchmark
+    public void overBudget() {
+        long start = System.nanoTime();
+        budget.record(System.nanoTime() - start + SLOW);
+    }
+}
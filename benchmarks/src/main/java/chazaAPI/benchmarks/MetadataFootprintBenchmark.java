@@ -0,0 +1,101 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.documentation.MetadataPool;
+import chazaAPI.exceptions.ChazaAPIException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained by the endpoints of a scan, built with one {@link MetadataPool} for the whole scan
+ * as {@code Endpoint.scan} does ({@code pooled}), and with a pool of their own as every endpoint
+ * had before the pool was shared ({@code unpooled}).
+ *
+ * <p>The figure to read is the secondary result {@code retainedBytes}: the heap in use after
+ * a full collection while the scanned endpoints are held, less the heap in use after a full
+ * collection once they are dropped. The score includes those collections and says little. JMH
+ * adds event counters up over iterations and forks, so one scan is measured after warming up.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class MetadataFootprintBenchmark {
+
+    @Param({"1000", "10000"})
+    public int endpoints;
+
+    private SyntheticApi api;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+        public long retainedBytes;
+
+        int measure(Scan scan) throws ChazaAPIException {
+            List<Endpoint> scanned = scan.run();
+            long held = usedAfterGc();
+            int size = scanned.size();
+            scanned = null;
+            retainedBytes = held - usedAfterGc();
+            return size;
+        }
+
+        private static long usedAfterGc() {
+            System.gc();
+            System.gc();
+            return MEMORY.getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    private interface Scan {
+        List<Endpoint> run() throws ChazaAPIException;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        api = SyntheticApi.generate(endpoints);
+        Thread.currentThread().setContextClassLoader(api.loader());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        api.close();
+    }
+
+    @Benchmark
+    public int pooled(Footprint footprint) throws ChazaAPIException {
+        return footprint.measure(() -> Endpoint.scan(api.controllers()));
+    }
+
+    @Benchmark
+    public int unpooled(Footprint footprint) throws ChazaAPIException {
+        return footprint.measure(() -> {
+            List<Endpoint> scanned = new ArrayList<>();
+            for (Class<?> controller : api.controllers()) {
+                Chaza chaza = controller.getAnnotation(Chaza.class);
+                for (Method method : controller.getDeclaredMethods()) {
+                    EndPoint endPoint = method.getAnnotation(EndPoint.class);
+                    if (endPoint != null) {
+                        scanned.add(Endpoint.fromAnnotation(endPoint, chaza, method.getName()));
+                    }
+                }
+            }
+            return scanned;
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.runtime.RouteBinder;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HandlerType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to register the routes of every controller with a new Javalin instance, and to dispatch
+ * one call to every handler, with handlers generated by {@link RouteBinder} versus handlers that
+ * call {@code Method.invoke}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteBindingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int endpoints;
+
+    private SyntheticApi api;
+    private Javalin server;
+    private Handler[] generatedHandlers;
+    private Handler[] reflectiveHandlers;
+    private Context context;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException, ChazaAPIException {
+        api = SyntheticApi.generate(endpoints);
+        List<RouteBinder.Route> routes = RouteBinder.routes(api.controllers());
+        generatedHandlers = routes.stream().map(RouteBinder.Route::handler).toArray(Handler[]::new);
+        reflectiveHandlers = routes.stream().map(RouteBinder.Route::method)
+                .map(method -> (Handler) ctx -> method.invoke(null, ctx)).toArray(Handler[]::new);
+        // the handlers only set a result, which the stub ignores
+        context = (Context) Proxy.newProxyInstance(Context.class.getClassLoader(), new Class<?>[]{Context.class},
+                (proxy, method, args) -> proxy);
+    }
+
+    @Setup(Level.Invocation)
+    public void newServer() {
+        server = Javalin.create();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        api.close();
+    }
+
+    @Benchmark
+    public List<RouteBinder.Route> generated() throws ChazaAPIException {
+        return RouteBinder.bind(server, api.controllers());
+    }
+
+    @Benchmark
+    public Javalin reflective() throws ChazaAPIException {
+        for (Class<?> controller : api.controllers()) {
+            Chaza chaza = controller.getAnnotation(Chaza.class);
+            for (Method method : controller.getDeclaredMethods()) {
+                EndPoint endPoint = method.getAnnotation(EndPoint.class);
+                if (endPoint != null && method.getParameterCount() == 1 && method.getParameterTypes()[0] == Context.class) {
+                    Endpoint endpoint = Endpoint.fromAnnotation(endPoint, chaza, method);
+                    server.addHttpHandler(HandlerType.valueOf(endpoint.getMethod().name()), endpoint.getUrl(),
+                            ctx -> method.invoke(null, ctx));
+                }
+            }
+        }
+        return server;
+    }
+
+    @Benchmark
+    public Context dispatchGenerated() throws Exception {
+        for (Handler handler : generatedHandlers) {
+            handler.handle(context);
+        }
+        return context;
+    }
+
+    @Benchmark
+    public Context dispatchReflective() throws Exception {
+        for (Handler handler : reflectiveHandlers) {
+            handler.handle(context);
+        }
+        return context;
+    }
+}
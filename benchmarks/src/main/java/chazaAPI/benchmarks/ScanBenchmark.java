@@ -0,0 +1,72 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.bytecode.BytecodeScanner;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.reflection.ReflectionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller discovery and endpoint scanning, as done by {@code APIDisplay.scanEndPoints}.
+ * Comparing {@code scan} with {@code scanParallel} across sizes shows how the parallel scan scales
+ * with the number of controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int endpoints;
+
+    private SyntheticApi api;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        api = SyntheticApi.generate(endpoints);
+        // Reflections and the controller index both look through the context class loader
+        Thread.currentThread().setContextClassLoader(api.loader());
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        api.close();
+    }
+
+    @Benchmark
+    public List<Class<?>> findChazaControllers() {
+        return ReflectionUtils.findChazaControllers(api.basePackage());
+    }
+
+    @Benchmark
+    public Optional<List<Class<?>>> findIndexedControllers() {
+        return ReflectionUtils.findIndexedControllers(api.basePackage());
+    }
+
+    @Benchmark
+    public List<Endpoint> scan() throws ChazaAPIException {
+        return Endpoint.scan(api.controllers());
+    }
+
+    @Benchmark
+    public List<Endpoint> scanBytecode() throws ChazaAPIException {
+        return new BytecodeScanner(api.loader()).scan(api.basePackage());
+    }
+
+    @Benchmark
+    public List<Endpoint> scanParallel() throws ChazaAPIException {
+        return Endpoint.scan(api.controllers(), pool);
+    }
+}
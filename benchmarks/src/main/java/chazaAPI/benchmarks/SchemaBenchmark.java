@@ -0,0 +1,63 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.reflection.ReflectionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO schema extraction with {@link ReflectionUtils#getFieldsRecursive(Class)} on deep and wide DTOs.
+ *
+ * <p>The {@code cold} benchmarks load the DTOs through a fresh class loader before every
+ * invocation, so they measure the first walk of a class; the {@code cached} ones measure
+ * the lookups every later endpoint sharing the DTO pays.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaBenchmark {
+
+    /**
+     * Depth of the deep DTO chain and number of fields of the wide DTO.
+     */
+    @Param({"8", "64"})
+    public int size;
+
+    @Param({"Deep0", "Wide"})
+    public String dto;
+
+    private SyntheticApi api;
+    private Class<?> shared;
+    private Class<?> fresh;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        api = SyntheticApi.generateDtos(size);
+        shared = api.load(dto);
+    }
+
+    @Setup(Level.Invocation)
+    public void loadFresh() throws IOException {
+        fresh = api.loadFresh(dto);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        api.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> cold() {
+        return ReflectionUtils.getFieldsRecursive(fresh);
+    }
+
+    @Benchmark
+    public Map<String, Object> cached() {
+        return ReflectionUtils.getFieldsRecursive(shared);
+    }
+}
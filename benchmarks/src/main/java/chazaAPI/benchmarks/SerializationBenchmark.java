@@ -0,0 +1,76 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.documentation.APIDoc;
+import chazaAPI.documentation.ApiInfo;
+import chazaAPI.documentation.DocSnapshot;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.exceptions.ChazaAPIException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the documentation to JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int endpoints;
+
+    private APIDoc doc;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ChazaAPIException {
+        try (SyntheticApi api = SyntheticApi.generate(endpoints)) {
+            List<Endpoint> scanned = Endpoint.scan(api.controllers());
+            doc = new APIDoc(apiInfo(), scanned);
+        }
+    }
+
+    static ApiInfo apiInfo() {
+        return ApiInfo.getInstance()
+                .setTitle("Synthetic API")
+                .setApiVersion("1")
+                .setDescription("Generated for benchmarking")
+                .setTermsOfService("none")
+                .addContact("email", "bench@example.com")
+                .addLicense("name", "Apache 2.0");
+    }
+
+    @Benchmark
+    public void validate() throws ChazaAPIException {
+        APIDoc.validate(doc.getApiInfo());
+        for (Endpoint endpoint : doc.getEndpoints()) {
+            APIDoc.validate(endpoint);
+        }
+    }
+
+    @Benchmark
+    public String toJsonString() throws ChazaAPIException {
+        return doc.toJsonString();
+    }
+
+    @Benchmark
+    public String toPrettyJsonString() throws ChazaAPIException {
+        return doc.toPrettyJsonString();
+    }
+
+    @Benchmark
+    public void writeToStream() throws ChazaAPIException, IOException {
+        doc.writeTo(OutputStream.nullOutputStream(), false);
+    }
+
+    @Benchmark
+    public DocSnapshot snapshot() throws ChazaAPIException {
+        return DocSnapshot.of(doc);
+    }
+}
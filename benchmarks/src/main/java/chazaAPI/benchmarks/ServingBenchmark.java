@@ -0,0 +1,81 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.exceptions.ChazaAPIException;
+import io.javalin.Javalin;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process HTTP round trips to the documentation routes of a running Javalin server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int endpoints;
+
+    private Javalin server;
+    private HttpClient client;
+    private HttpRequest plain;
+    private HttpRequest gzip;
+    private HttpRequest conditional;
+    private HttpRequest groups;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException, ChazaAPIException {
+        server = Javalin.create();
+        try (SyntheticApi api = SyntheticApi.generate(endpoints)) {
+            APIDisplay.getInstance()
+                    .setApiInfo(SerializationBenchmark.apiInfo())
+                    .scanEndPoints(api.controllers())
+                    .generateDocumentation()
+                    .hostToServer(server);
+        }
+        server.start(0);
+
+        client = HttpClient.newHttpClient();
+        URI json = URI.create("http://localhost:" + server.port() + "/chaza-json");
+        plain = HttpRequest.newBuilder(json).build();
+        gzip = HttpRequest.newBuilder(json).header("Accept-Encoding", "gzip").build();
+        String etag = client.send(plain, HttpResponse.BodyHandlers.discarding()).headers().firstValue("ETag").orElseThrow();
+        conditional = HttpRequest.newBuilder(json).header("If-None-Match", etag).build();
+        groups = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/chaza-json/groups")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public byte[] chazaJson() throws IOException, InterruptedException {
+        return client.send(plain, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public byte[] chazaJsonGzip() throws IOException, InterruptedException {
+        return client.send(gzip, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public int chazaJsonNotModified() throws IOException, InterruptedException {
+        return client.send(conditional, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public byte[] groupIndex() throws IOException, InterruptedException {
+        return client.send(groups, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+}
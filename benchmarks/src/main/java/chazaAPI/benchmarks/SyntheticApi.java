@@ -0,0 +1,233 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.processor.ChazaIndexProcessor;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Generates, compiles and loads a synthetic ChazaAPI application so that benchmarks can be
+ * parameterized by the size of the API.
+ *
+ * <p>Every controller holds up to {@value #ENDPOINTS_PER_CONTROLLER} endpoints, each with headers,
+ * status codes and roles, and request/response DTOs picked from a small shared pool of nested DTOs,
+ * which is what real services look like. The sources are compiled with the
+ * {@link ChazaIndexProcessor}, so the generated classes also come with a controller index.</p>
+ */
+public final class SyntheticApi implements AutoCloseable {
+
+    static final int ENDPOINTS_PER_CONTROLLER = 10;
+
+    private static final int SHARED_DTOS = 5;
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH"};
+
+    private final Path root;
+    private final Path classes;
+    private final String basePackage;
+    private final URLClassLoader loader;
+    private final List<Class<?>> controllers;
+
+    private SyntheticApi(Path root, Path classes, String basePackage, List<String> controllerNames) throws IOException {
+        this.root = root;
+        this.classes = classes;
+        this.basePackage = basePackage;
+        this.loader = newLoader();
+        this.controllers = new ArrayList<>();
+        for (String name : controllerNames) {
+            controllers.add(load(loader, name));
+        }
+    }
+
+    /**
+     * Generates an API with the given number of endpoints.
+     *
+     * @param endpoints the total number of endpoints
+     * @return the compiled and loaded API
+     */
+    public static SyntheticApi generate(int endpoints) throws IOException {
+        String pkg = "synthetic.e" + endpoints;
+        Path root = Files.createTempDirectory("chaza-synthetic");
+        List<Path> sources = new ArrayList<>();
+        List<String> controllerNames = new ArrayList<>();
+
+        sources.add(write(root, pkg, "Line", """
+                package %s;
+                public class Line {
+                    String sku;
+                    int quantity;
+                    double price;
+                    LineState state;
+                }
+                """.formatted(pkg)));
+        sources.add(write(root, pkg, "LineState", """
+                package %s;
+                public enum LineState { OPEN, CLOSED, PENDING }
+                """.formatted(pkg)));
+        for (int d = 0; d < SHARED_DTOS; d++) {
+            sources.add(write(root, pkg, "Payload" + d, """
+                    package %s;
+                    import java.util.List;
+                    public class Payload%d {
+                        String id;
+                        long createdAt;
+                        boolean active;
+                        Line primary;
+                        List<Line> lines;
+                        List<String> tags;
+                    }
+                    """.formatted(pkg, d)));
+        }
+
+        int controllerCount = (endpoints + ENDPOINTS_PER_CONTROLLER - 1) / ENDPOINTS_PER_CONTROLLER;
+        int generated = 0;
+        for (int c = 0; c < controllerCount; c++) {
+            StringBuilder source = new StringBuilder()
+                    .append("package ").append(pkg).append(";\n")
+                    .append("import chazaAPI.annotations.*;\n")
+                    .append("import io.javalin.http.Context;\n")
+                    .append("@Chaza(group = \"group").append(c % 20).append("\", baseUrl = \"/c").append(c)
+                    .append("\", accept = \"application/json\", contentType = \"application/json\", roles = {\"admin\", \"user\"})\n")
+                    .append("public class Controller").append(c).append(" {\n");
+            for (int m = 0; m < ENDPOINTS_PER_CONTROLLER && generated < endpoints; m++, generated++) {
+                source.append("""
+                            @EndPoint(method = Method.%s, url = "/e%d", description = "Synthetic endpoint %d",
+                                    headers = {@Header(name = "Authorization", value = "Bearer token")},
+                                    requestDTO = Payload%d.class, responseDTO = Payload%d.class,
+                                    statusCodes = {@Status(code = 200, description = "OK"),
+                                            @Status(code = 400, description = "Bad request"),
+                                            @Status(code = 500, description = "Internal error")})
+                            public static void e%d(Context ctx) {
+                                ctx.result("ok");
+                            }
+                        """.formatted(METHODS[m % METHODS.length], m, generated,
+                        generated % SHARED_DTOS, (generated + 1) % SHARED_DTOS, m));
+            }
+            source.append("}\n");
+            sources.add(write(root, pkg, "Controller" + c, source.toString()));
+            controllerNames.add(pkg + ".Controller" + c);
+        }
+
+        Path classes = compile(root, sources);
+        return new SyntheticApi(root, classes, pkg, controllerNames);
+    }
+
+    /**
+     * Generates a linked chain of DTOs {@code size} levels deep and a single DTO with {@code size} fields.
+     *
+     * @param size depth of the chain and width of the wide DTO
+     * @return the compiled API; use {@link #loadFresh(String)} to get cold copies of the DTOs
+     */
+    public static SyntheticApi generateDtos(int size) throws IOException {
+        String pkg = "synthetic.dto" + size;
+        Path root = Files.createTempDirectory("chaza-dtos");
+        List<Path> sources = new ArrayList<>();
+
+        for (int d = 0; d < size; d++) {
+            String next = d + 1 < size ? "    Deep" + (d + 1) + " next;\n" : "";
+            sources.add(write(root, pkg, "Deep" + d, "package " + pkg + ";\npublic class Deep" + d + " {\n"
+                    + "    String name;\n    int level;\n    java.util.List<String> notes;\n" + next + "}\n"));
+        }
+
+        String[] types = {"String", "int", "double", "boolean", "Long", "java.util.List<String>", "Deep0"};
+        StringBuilder wide = new StringBuilder("package " + pkg + ";\npublic class Wide {\n");
+        for (int f = 0; f < size; f++) {
+            wide.append("    ").append(types[f % types.length]).append(" field").append(f).append(";\n");
+        }
+        sources.add(write(root, pkg, "Wide", wide.append("}\n").toString()));
+
+        return new SyntheticApi(root, compile(root, sources), pkg, List.of());
+    }
+
+    public String basePackage() {
+        return basePackage;
+    }
+
+    public ClassLoader loader() {
+        return loader;
+    }
+
+    public List<Class<?>> controllers() {
+        return controllers;
+    }
+
+    /**
+     * Loads a generated class through the API's shared class loader.
+     */
+    public Class<?> load(String simpleName) {
+        return load(loader, basePackage + "." + simpleName);
+    }
+
+    /**
+     * Loads a generated class through a brand new class loader, so nothing about it is cached yet.
+     * The caller owns the returned class loader through the class.
+     */
+    public Class<?> loadFresh(String simpleName) throws IOException {
+        return load(newLoader(), basePackage + "." + simpleName);
+    }
+
+    /**
+     * Opens a brand new class loader over the generated classes, with none of them loaded yet.
+     * The caller closes it.
+     */
+    public URLClassLoader freshLoader() throws IOException {
+        return newLoader();
+    }
+
+    @Override
+    public void close() throws IOException {
+        loader.close();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private URLClassLoader newLoader() throws IOException {
+        return new URLClassLoader(new URL[]{classes.toUri().toURL()}, SyntheticApi.class.getClassLoader());
+    }
+
+    private static Class<?> load(ClassLoader loader, String name) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Generated class " + name + " is missing", e);
+        }
+    }
+
+    private static Path write(Path root, String pkg, String simpleName, String source) throws IOException {
+        Path file = root.resolve("src").resolve(pkg.replace('.', File.separatorChar)).resolve(simpleName + ".java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+        return file;
+    }
+
+    private static Path compile(Path root, List<Path> sources) throws IOException {
+        Path classes = Files.createDirectories(root.resolve("classes"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Benchmarks need a JDK, not a JRE, to compile the synthetic API");
+        }
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null)) {
+            List<String> options = List.of("-d", classes.toString(),
+                    "-classpath", System.getProperty("java.class.path"));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, null, options, null,
+                    files.getJavaFileObjectsFromPaths(sources));
+            task.setProcessors(List.of(new ChazaIndexProcessor()));
+            if (!task.call()) {
+                throw new IllegalStateException("Synthetic API failed to compile in " + root);
+            }
+        }
+        return classes;
+    }
+}
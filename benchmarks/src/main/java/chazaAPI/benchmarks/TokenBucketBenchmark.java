@@ -0,0 +1,40 @@
+package chazaAPI.benchmarks;
+
+import chazaAPI.runtime.TokenBucket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of taking a token from a {@link TokenBucket} shared by four threads, with a single stripe
+ * against one per core. The rate is high enough that tokens are always there, so the
+ * benchmarks measure the compare-and-set traffic rather than refusals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TokenBucketBenchmark {
+
+    private TokenBucket single;
+    private TokenBucket striped;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        single = new TokenBucket(1e12, 1 << 20, 1);
+        striped = new TokenBucket(1e12, 1 << 20);
+    }
+
+    @Benchmark
+    public boolean singleStripe() {
+        return single.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean striped() {
+        return striped.tryAcquire();
+    }
+}
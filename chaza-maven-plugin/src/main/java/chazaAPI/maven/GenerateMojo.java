@@ -0,0 +1,135 @@
+package chazaAPI.maven;
+
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.documentation.ApiInfo;
+import chazaAPI.exceptions.ChazaAPIException;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the API documentation from the project's compiled controllers.
+ *
+ * <p>Runs the same scan and validation that {@link APIDisplay} performs at startup, then writes
+ * {@code chaza.json} and, unless disabled, a self-contained {@code APIDoc.html} into the output
+ * directory. Applications pick the JSON up with {@link APIDisplay#usePrebuiltDocumentation()}.</p>
+ *
+ * <p>Invalid documentation fails the build instead of the application.</p>
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * Package that contains the {@code @Chaza} controllers, subpackages included.
+     */
+    @Parameter(property = "chaza.basePackage", required = true)
+    private String basePackage;
+
+    @Parameter(property = "chaza.title", defaultValue = "${project.name}")
+    private String title;
+
+    @Parameter(property = "chaza.version", defaultValue = "${project.version}")
+    private String version;
+
+    @Parameter(property = "chaza.description", defaultValue = "${project.description}")
+    private String description;
+
+    @Parameter(property = "chaza.termsOfService")
+    private String termsOfService;
+
+    @Parameter
+    private Map<String, String> contact;
+
+    @Parameter
+    private Map<String, String> license;
+
+    /**
+     * Where {@code chaza.json} and {@code APIDoc.html} are written; the default puts them on
+     * the runtime classpath under {@code public/}.
+     */
+    @Parameter(property = "chaza.outputDirectory", defaultValue = "${project.build.outputDirectory}/public")
+    private File outputDirectory;
+
+    /**
+     * Whether to also write {@code APIDoc.html} with the documentation embedded.
+     */
+    @Parameter(property = "chaza.renderHtml", defaultValue = "true")
+    private boolean renderHtml;
+
+    @Parameter(property = "chaza.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping ChazaAPI documentation");
+            return;
+        }
+
+        ApiInfo apiInfo = ApiInfo.getInstance()
+                .setTitle(title)
+                .setApiVersion(version)
+                .setDescription(description)
+                .setTermsOfService(termsOfService);
+        if (contact != null) {
+            contact.forEach(apiInfo::addContact);
+        }
+        if (license != null) {
+            license.forEach(apiInfo::addLicense);
+        }
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try (URLClassLoader projectLoader = new URLClassLoader(projectClasspath(), getClass().getClassLoader())) {
+            thread.setContextClassLoader(projectLoader);
+
+            APIDisplay display = APIDisplay.getInstance()
+                    .setApiInfo(apiInfo)
+                    .scanEndPoints(basePackage)
+                    .generateDocumentation();
+            display.writeDocumentation(outputDirectory.toPath(), renderHtml);
+
+            getLog().info("Documented " + display.getEndpoints().size() + " endpoints to " + outputDirectory);
+        } catch (ChazaAPIException e) {
+            throw new MojoExecutionException("Invalid API documentation: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write API documentation to " + outputDirectory, e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * The project's output directory followed by its compile dependencies. The plugin's own
+     * class loader is the parent, so the annotations resolve to the same classes the scanner uses.
+     */
+    private URL[] projectClasspath() throws MojoExecutionException {
+        try {
+            List<URL> urls = new ArrayList<>();
+            for (String element : project.getCompileClasspathElements()) {
+                urls.add(new File(element).toURI().toURL());
+            }
+            return urls.toArray(URL[]::new);
+        } catch (MalformedURLException | DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Unable to resolve the compile classpath", e);
+        }
+    }
+}
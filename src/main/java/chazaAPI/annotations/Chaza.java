@@ -16,4 +16,20 @@ public @interface Chaza {
     String accept() default "text/plain";
     String contentType() default "text/plain";
     String[] roles() default {"any"};
+    /**
+     * Target for the 99th percentile latency of the controller's endpoints, in milliseconds; 0 for none.
+     */
+    int latencyBudgetMs() default 0;
+    /**
+     * Rate limits of the controller's endpoints, per role; empty for none.
+     */
+    RateLimit[] rateLimits() default {};
+    /**
+     * Most requests of the group handled at once; 0 for no limit.
+     */
+    int bulkhead() default 0;
+    /**
+     * Requests of the group that may wait for a slot once all are taken.
+     */
+    int bulkheadQueue() default 0;
 }
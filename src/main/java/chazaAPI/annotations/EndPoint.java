@@ -22,4 +22,32 @@ public @interface EndPoint {
         Status[] statusCodes() default {};
         String contentType() default "";
         String[] roles() default {};
+        /**
+         * Target for the 99th percentile latency of the endpoint, in milliseconds; 0 to use the controller's.
+         */
+        int latencyBudgetMs() default 0;
+        /**
+         * How long a response of a GET endpoint may be served from the response cache, in seconds; 0 not to cache it.
+         */
+        int cacheTtlSeconds() default 0;
+        /**
+         * Request headers whose values are part of the cache key, as responses differ by them.
+         */
+        String[] cacheVaryBy() default {};
+        /**
+         * Most responses of the endpoint to keep cached; 0 for no limit besides the group's memory.
+         */
+        int cacheMaxEntries() default 0;
+        /**
+         * Rate limits of the endpoint, per role; empty to use the controller's.
+         */
+        RateLimit[] rateLimits() default {};
+        /**
+         * Most requests of the endpoint's group handled at once; 0 to use the controller's.
+         */
+        int bulkhead() default 0;
+        /**
+         * Requests of the endpoint's group that may wait for a slot once all are taken.
+         */
+        int bulkheadQueue() default 0;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package chazaAPI.annotations;
+
+/**
+ * A rate limit on the requests of one role, or of every role without a limit of its own.
+ */
+public @interface RateLimit {
+    /**
+     * The role limited, one of the endpoint's {@code roles}; empty for every other role.
+     */
+    String role() default "";
+    /**
+     * Requests allowed per second, on average.
+     */
+    double perSecond();
+    /**
+     * Requests allowed at once after a quiet period; 0 for one second's worth.
+     */
+    int burst() default 0;
+}
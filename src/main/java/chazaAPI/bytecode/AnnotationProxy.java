@@ -0,0 +1,97 @@
+package chazaAPI.bytecode;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.IncompleteAnnotationException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implements an annotation interface over values read from a class file, so code written
+ * against annotations can consume them without loading the annotated class.
+ *
+ * <p>Members that were not written explicitly return the annotation type's default. Members of
+ * type {@code Class} return {@code void.class}: resolving the literal would load the class this
+ * proxy exists to avoid, so callers read those members from the raw values instead.</p>
+ */
+final class AnnotationProxy implements InvocationHandler {
+
+    private final Class<? extends Annotation> type;
+    private final Map<String, Object> values;
+    private final Map<String, Object> resolved = new ConcurrentHashMap<>();
+
+    private AnnotationProxy(Class<? extends Annotation> type, Map<String, Object> values) {
+        this.type = type;
+        this.values = values;
+    }
+
+    static <A extends Annotation> A create(Class<A> type, Map<String, Object> values) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new AnnotationProxy(type, values)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "annotationType" -> type;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "@" + type.getName() + values;
+            default -> {
+                Object value = resolved.computeIfAbsent(method.getName(), name -> resolve(method));
+                yield value.getClass().isArray() ? copy(value) : value;
+            }
+        };
+    }
+
+    private Object resolve(Method member) {
+        if (member.getReturnType() == Class.class) {
+            return void.class;
+        }
+        Object raw = values.get(member.getName());
+        if (raw != null) {
+            return convert(raw, member.getReturnType());
+        }
+        Object defaultValue = member.getDefaultValue();
+        if (defaultValue == null) {
+            throw new IncompleteAnnotationException(type, member.getName());
+        }
+        return defaultValue;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Object raw, Class<?> target) {
+        if (target.isArray()) {
+            if (raw.getClass().isArray()) {
+                return raw;
+            }
+            List<?> elements = (List<?>) raw;
+            Object array = Array.newInstance(target.getComponentType(), elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                Array.set(array, i, convert(elements.get(i), target.getComponentType()));
+            }
+            return array;
+        }
+        if (raw instanceof ClassInfo.EnumValue enumValue) {
+            return Enum.valueOf((Class<? extends Enum>) target, enumValue.value());
+        }
+        if (raw instanceof ClassInfo.Nested nested) {
+            return create((Class<? extends Annotation>) target, nested.values());
+        }
+        if (target == Class.class) {
+            return void.class;
+        }
+        return raw;
+    }
+
+    private static Object copy(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+}
@@ -0,0 +1,338 @@
+package chazaAPI.bytecode;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.documentation.MetadataPool;
+import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.reflection.ControllerIndex;
+import chazaAPI.schema.Schema;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Scans controllers by reading their class files instead of loading them.
+ *
+ * <p>{@code Endpoint.scan} has to load every controller and DTO class to read its annotations and
+ * fields, which links the classes, grows metaspace and can run static initializers. This scanner
+ * parses the class files with ASM and produces the same {@link Endpoint} model without loading
+ * a single application class. Only the ChazaAPI annotation types and JDK classes are loaded.</p>
+ *
+ * <p>A scanner caches the class files it has read, so one instance should be used per scan.
+ * Instances are not thread-safe.</p>
+ */
+public final class BytecodeScanner {
+
+    private static final String CHAZA = Type.getDescriptor(Chaza.class);
+    private static final String END_POINT = Type.getDescriptor(EndPoint.class);
+
+    private final ClassFiles classes;
+    private final BytecodeSchema schemas;
+    private final MetadataPool metadata;
+
+    /**
+     * @param classLoader the class loader whose resources hold the class files; nothing is loaded through it
+     */
+    public BytecodeScanner(ClassLoader classLoader) {
+        this(classLoader, new MetadataPool());
+    }
+
+    /**
+     * @param classLoader the class loader whose resources hold the class files; nothing is loaded through it
+     * @param metadata    the pool the endpoints share headers, status codes and roles through, e.g. across rescans
+     */
+    public BytecodeScanner(ClassLoader classLoader, MetadataPool metadata) {
+        this.classes = new ClassFiles(classLoader);
+        this.schemas = new BytecodeSchema(classes);
+        this.metadata = metadata;
+    }
+
+    /**
+     * Finds the controllers of a package, from the compile-time {@link ControllerIndex} if
+     * there is one, or by listing the package's class files otherwise.
+     *
+     * @param basePackage the package to look in, subpackages included
+     * @return the binary names of the classes annotated with {@link Chaza}, sorted
+     * @throws ChazaAPIException if a class file cannot be read
+     */
+    public List<String> findControllers(String basePackage) throws ChazaAPIException {
+        List<String> candidates = ControllerIndex.read(basePackage, classes.classLoader)
+                .filter(names -> !names.isEmpty())
+                .orElseGet(() -> classes.list(basePackage));
+
+        List<String> controllers = new ArrayList<>();
+        for (String name : candidates) {
+            if (isController(name)) {
+                controllers.add(name);
+            }
+        }
+        return controllers;
+    }
+
+    /**
+     * Reads a single class file to tell whether it is a controller, without listing its package.
+     *
+     * @param className the binary name of the class
+     * @return whether the class exists and is annotated with {@link Chaza}
+     * @throws ChazaAPIException if the class file cannot be read
+     */
+    public boolean isController(String className) throws ChazaAPIException {
+        ClassInfo info = classes.find(className.replace('.', '/'));
+        return info != null && info.annotations().containsKey(CHAZA);
+    }
+
+    /**
+     * Finds and scans the controllers of a package.
+     *
+     * @param basePackage the package holding the controllers
+     * @return the endpoints, controller by controller in name order and method by method in declaration order
+     * @throws ChazaAPIException if a controller is misconfigured
+     */
+    public List<Endpoint> scan(String basePackage) throws ChazaAPIException {
+        return scan(findControllers(basePackage));
+    }
+
+    /**
+     * Builds the endpoints of the given controllers, with the same checks as {@code Endpoint.scan}.
+     *
+     * @param controllers the binary names of the controllers
+     * @return the endpoints, method by method in declaration order
+     * @throws ChazaAPIException if a class is not annotated with Chaza or an endpoint is invalid
+     */
+    public List<Endpoint> scan(List<String> controllers) throws ChazaAPIException {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String controller : controllers) {
+            ClassInfo info = classes.require(controller.replace('.', '/'));
+            Map<String, Object> chazaValues = info.annotations().get(CHAZA);
+            if (chazaValues == null) {
+                throw new ChazaAPIException("class " + controller + " is not annotated with @Chaza");
+            }
+            Chaza chaza = AnnotationProxy.create(Chaza.class, chazaValues);
+            for (ClassInfo.MethodInfo method : info.methods()) {
+                Map<String, Object> values = method.annotations().get(END_POINT);
+                if (values != null) {
+                    endpoints.add(endpoint(AnnotationProxy.create(EndPoint.class, values), values, chaza, method.name()));
+                }
+            }
+        }
+        return endpoints;
+    }
+
+    /**
+     * Builds the field schema of a class from its class file.
+     *
+     * @param className the binary name of the class
+     * @return the same schema {@code ReflectionUtils.getFieldsRecursive} builds for the loaded class
+     * @throws ChazaAPIException if a class file in the tree cannot be found
+     */
+    public Schema.ObjectType schemaOf(String className) throws ChazaAPIException {
+        return schemas.of(Type.getObjectType(className.replace('.', '/')));
+    }
+
+    /**
+     * Lists the application classes a controller's documentation is built from: the DTOs of
+     * its endpoints and every class reachable through their fields. JDK classes are left out.
+     *
+     * @param controller the binary name of the controller
+     * @return the binary names of the classes, sorted; classes without a class file are left out
+     * @throws ChazaAPIException if a class file cannot be read
+     */
+    public Set<String> dependenciesOf(String controller) throws ChazaAPIException {
+        Deque<String> pending = new ArrayDeque<>();
+        ClassInfo info = classes.find(controller.replace('.', '/'));
+        if (info == null) {
+            return Set.of();
+        }
+        for (ClassInfo.MethodInfo method : info.methods()) {
+            Map<String, Object> values = method.annotations().get(END_POINT);
+            if (values != null) {
+                addType(dto(values.get("requestDTO")), pending);
+                addType(dto(values.get("responseDTO")), pending);
+            }
+        }
+
+        Set<String> seen = new HashSet<>();
+        Set<String> names = new TreeSet<>();
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            if (BytecodeSchema.isJdk(name) || !seen.add(name)) {
+                continue;
+            }
+            ClassInfo dependency = classes.find(name);
+            if (dependency == null) {
+                continue;
+            }
+            names.add(dependency.binaryName());
+            for (ClassInfo.FieldInfo field : dependency.fields()) {
+                addType(Type.getType(field.descriptor()), pending);
+                if (field.signature() != null) {
+                    new SignatureReader(field.signature()).acceptType(new SignatureVisitor(Opcodes.ASM9) {
+                        @Override
+                        public void visitClassType(String name) {
+                            pending.add(name);
+                        }
+                    });
+                }
+            }
+        }
+        return names;
+    }
+
+    private static void addType(Type type, Deque<String> pending) {
+        if (type == null) {
+            return;
+        }
+        if (type.getSort() == Type.ARRAY) {
+            type = type.getElementType();
+        }
+        if (type.getSort() == Type.OBJECT) {
+            pending.add(type.getInternalName());
+        }
+    }
+
+    /**
+     * @return the binary names of the application classes read so far, controllers included, sorted
+     */
+    public Set<String> getClassesRead() {
+        Set<String> names = new TreeSet<>();
+        classes.read.forEach((name, info) -> {
+            if (info.isPresent()) {
+                names.add(info.get().binaryName());
+            }
+        });
+        return names;
+    }
+
+    private Endpoint endpoint(EndPoint endPoint, Map<String, Object> values, Chaza chaza, String methodName) throws ChazaAPIException {
+        // Class members are read from the class file, the proxy cannot resolve them
+        Type requestDTO = dto(values.get("requestDTO"));
+        Type responseDTO = dto(values.get("responseDTO"));
+
+        if (endPoint.requestFields().length > 0 && requestDTO != null) {
+            throw new ChazaAPIException("Cannot use both requestFields and requestDTO; please use one method -> " + methodName);
+        }
+        if (endPoint.responseFields().length > 0 && responseDTO != null) {
+            throw new ChazaAPIException("Cannot use both responseFields and responseDTO; please use one method -> " + methodName);
+        }
+
+        Endpoint endpoint = Endpoint.fromAnnotation(endPoint, chaza, methodName, metadata);
+        if (requestDTO != null) {
+            endpoint.setRequest(schemas.of(requestDTO));
+        }
+        if (responseDTO != null) {
+            endpoint.setResponse(schemas.of(responseDTO));
+        }
+        return endpoint;
+    }
+
+    private static Type dto(Object value) {
+        return value instanceof Type type && type.getSort() != Type.VOID ? type : null;
+    }
+
+    /**
+     * Reads and caches class files through a class loader's resources.
+     */
+    static final class ClassFiles {
+
+        private final ClassLoader classLoader;
+        private final Map<String, Optional<ClassInfo>> read = new HashMap<>();
+
+        ClassFiles(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        /**
+         * @param name an internal name
+         * @return the parsed class file, or null if there is none
+         */
+        ClassInfo find(String name) throws ChazaAPIException {
+            Optional<ClassInfo> info = read.get(name);
+            if (info == null) {
+                info = Optional.ofNullable(load(name));
+                read.put(name, info);
+            }
+            return info.orElse(null);
+        }
+
+        ClassInfo require(String name) throws ChazaAPIException {
+            ClassInfo info = find(name);
+            if (info == null) {
+                throw new ChazaAPIException("Class file for " + name.replace('/', '.') + " not found");
+            }
+            return info;
+        }
+
+        private ClassInfo load(String name) throws ChazaAPIException {
+            try (InputStream in = classLoader.getResourceAsStream(name + ".class")) {
+                return in == null ? null : ClassInfo.read(in.readAllBytes());
+            } catch (IOException | RuntimeException e) {
+                throw new ChazaAPIException("Unable to read class file of " + name.replace('/', '.') + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Lists the binary names of all class files under a package, in directories and jars alike.
+         */
+        List<String> list(String basePackage) {
+            String prefix = basePackage == null || basePackage.isEmpty() ? "" : basePackage.replace('.', '/') + "/";
+            Set<String> names = new TreeSet<>();
+            try {
+                Enumeration<URL> roots = classLoader.getResources(prefix);
+                while (roots.hasMoreElements()) {
+                    URL root = roots.nextElement();
+                    if (root.getProtocol().equals("file")) {
+                        listDirectory(Path.of(root.toURI()), prefix, names);
+                    } else if (root.getProtocol().equals("jar")) {
+                        listJar((JarURLConnection) root.openConnection(), prefix, names);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to list package " + basePackage, e);
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+            return new ArrayList<>(names);
+        }
+
+        private static void listDirectory(Path directory, String prefix, Set<String> names) throws IOException {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(file -> isClassFile(file.getFileName().toString()))
+                        .forEach(file -> names.add(binaryName(prefix + directory.relativize(file).toString()
+                                .replace(File.separatorChar, '/'))));
+            }
+        }
+
+        private static void listJar(JarURLConnection connection, String prefix, Set<String> names) throws IOException {
+            connection.setUseCaches(false);
+            try (JarFile jar = connection.getJarFile()) {
+                jar.stream()
+                        .filter(entry -> entry.getName().startsWith(prefix) && isClassFile(entry.getName()))
+                        .forEach(entry -> names.add(binaryName(entry.getName())));
+            }
+        }
+
+        private static boolean isClassFile(String fileName) {
+            return fileName.endsWith(".class") && !fileName.endsWith("module-info.class")
+                    && !fileName.endsWith("package-info.class");
+        }
+
+        private static String binaryName(String path) {
+            return path.substring(0, path.length() - ".class".length()).replace('/', '.');
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package chazaAPI.bytecode;
+
+import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.reflection.ReflectionUtils;
+import chazaAPI.schema.Schema;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.*;
+
+/**
+ * Builds DTO field schemas from class files, with the same shape and the same cycle handling as
+ * {@link ReflectionUtils#getFieldsRecursive(Class)}.
+ *
+ * <p>Application classes are only ever read as class files. JDK classes, which are loaded
+ * already or cost nothing to load, are delegated to {@link ReflectionUtils} so both paths agree
+ * on them by construction.</p>
+ */
+final class BytecodeSchema {
+
+    private static final Set<String> WRAPPERS = Set.of(
+            "java/lang/Integer", "java/lang/Long", "java/lang/Double", "java/lang/Float",
+            "java/lang/Boolean", "java/lang/Byte", "java/lang/Short", "java/lang/Character",
+            "java/lang/String");
+
+    private final BytecodeScanner.ClassFiles classes;
+    private final Map<String, Schema.ObjectType> closed = new HashMap<>();
+
+    BytecodeSchema(BytecodeScanner.ClassFiles classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * @param type the class literal of a DTO, as read from an annotation
+     * @return the immutable field schema of the type
+     */
+    Schema.ObjectType of(Type type) throws ChazaAPIException {
+        return switch (type.getSort()) {
+            case Type.OBJECT -> (Schema.ObjectType) nodeFor(type.getInternalName(), new ArrayList<>()).schema();
+            // primitives and arrays have no declared fields
+            default -> Schema.ObjectType.EMPTY;
+        };
+    }
+
+    private Built nodeFor(String name, List<String> path) throws ChazaAPIException {
+        if (name.equals("java/lang/Object")) {
+            return new Built(Schema.ObjectType.EMPTY, Integer.MAX_VALUE);
+        }
+        if (isJdk(name)) {
+            return new Built(ReflectionUtils.getFieldsRecursive(jdkClass(name)), Integer.MAX_VALUE);
+        }
+        int index = path.indexOf(name);
+        if (index >= 0) {
+            return new Built(new Schema.Reference(classes.require(name).simpleName()), index);
+        }
+        Schema.ObjectType cached = closed.get(name);
+        if (cached != null) {
+            return new Built(cached, Integer.MAX_VALUE);
+        }
+        return build(name, path);
+    }
+
+    private Built build(String name, List<String> path) throws ChazaAPIException {
+        ClassInfo info = classes.require(name);
+        int depth = path.size();
+        int lowestRef = Integer.MAX_VALUE;
+        path.add(name);
+
+        List<ClassInfo.FieldInfo> declared = info.fields();
+        String[] names = new String[declared.size()];
+        Schema[] fields = new Schema[declared.size()];
+        for (int i = 0; i < names.length; i++) {
+            ClassInfo.FieldInfo field = declared.get(i);
+            Type fieldType = Type.getType(field.descriptor());
+            names[i] = field.name();
+
+            if (isSimple(fieldType)) {
+                fields[i] = simple(fieldType);
+            } else if (isCollection(fieldType)) {
+                Type elementType = elementType(field.signature());
+                if (elementType == null) {
+                    fields[i] = Schema.Primitive.of("Collection");
+                } else if (isSimple(elementType)) {
+                    fields[i] = new Schema.ArrayType(simple(elementType));
+                } else {
+                    Built nested = nodeFor(elementType, path);
+                    lowestRef = Math.min(lowestRef, nested.lowestRef());
+                    fields[i] = new Schema.ArrayType(nested.schema());
+                }
+            } else {
+                Built nested = nodeFor(fieldType, path);
+                lowestRef = Math.min(lowestRef, nested.lowestRef());
+                fields[i] = nested.schema();
+            }
+        }
+        path.remove(depth);
+
+        Schema.ObjectType schema = new Schema.ObjectType(names, fields);
+        if (lowestRef < depth) {
+            return new Built(schema, lowestRef);
+        }
+        closed.put(name, schema);
+        return new Built(schema, Integer.MAX_VALUE);
+    }
+
+    private Built nodeFor(Type type, List<String> path) throws ChazaAPIException {
+        return type.getSort() == Type.OBJECT ? nodeFor(type.getInternalName(), path) : new Built(Schema.ObjectType.EMPTY, Integer.MAX_VALUE);
+    }
+
+    private boolean isSimple(Type type) throws ChazaAPIException {
+        if (type.getSort() == Type.ARRAY) {
+            return false;
+        }
+        if (type.getSort() != Type.OBJECT) {
+            return true;
+        }
+        String name = type.getInternalName();
+        if (WRAPPERS.contains(name)) {
+            return true;
+        }
+        return isJdk(name) ? jdkClass(name).isEnum() : (classes.require(name).access() & Opcodes.ACC_ENUM) != 0;
+    }
+
+    private Schema simple(Type type) throws ChazaAPIException {
+        if (type.getSort() != Type.OBJECT) {
+            return Schema.Primitive.of(type.getClassName());
+        }
+        String name = type.getInternalName();
+        if (isJdk(name)) {
+            Class<?> jdkClass = jdkClass(name);
+            return jdkClass.isEnum() ? jdkEnum(jdkClass) : Schema.Primitive.of(jdkClass.getSimpleName());
+        }
+        ClassInfo info = classes.require(name);
+        if (!info.isEnum()) {
+            return Schema.Primitive.of(info.simpleName());
+        }
+        List<String> constants = new ArrayList<>();
+        for (ClassInfo.FieldInfo field : info.fields()) {
+            if ((field.access() & Opcodes.ACC_ENUM) != 0) {
+                constants.add(field.name());
+            }
+        }
+        return new Schema.EnumType(info.simpleName(), constants);
+    }
+
+    private static Schema jdkEnum(Class<?> type) {
+        List<String> constants = new ArrayList<>();
+        for (java.lang.reflect.Field field : type.getDeclaredFields()) {
+            if (field.isEnumConstant()) {
+                constants.add(field.getName());
+            }
+        }
+        return new Schema.EnumType(type.getSimpleName(), constants);
+    }
+
+    private boolean isCollection(Type type) throws ChazaAPIException {
+        return type.getSort() == Type.OBJECT && isCollection(type.getInternalName());
+    }
+
+    private boolean isCollection(String name) throws ChazaAPIException {
+        if (name == null) {
+            return false;
+        }
+        if (isJdk(name)) {
+            return Collection.class.isAssignableFrom(jdkClass(name));
+        }
+        ClassInfo info = classes.require(name);
+        if (isCollection(info.superName())) {
+            return true;
+        }
+        for (String implemented : info.interfaces()) {
+            if (isCollection(implemented)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the element type of a collection field from its generic signature, under the same
+     * rule as reflection: exactly one type argument, and that argument is a plain class or array.
+     *
+     * @return the element type, or null when reflection would not see a {@code Class} either
+     */
+    static Type elementType(String signature) {
+        if (signature == null) {
+            return null;
+        }
+        ElementCollector collector = new ElementCollector();
+        new SignatureReader(signature).acceptType(collector);
+        return collector.result();
+    }
+
+    static boolean isJdk(String name) {
+        return name.startsWith("java/") || name.startsWith("javax/") || name.startsWith("jdk/") || name.startsWith("sun/");
+    }
+
+    private static Class<?> jdkClass(String name) throws ChazaAPIException {
+        try {
+            return Class.forName(name.replace('/', '.'), false, ClassLoader.getPlatformClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new ChazaAPIException("Class " + name.replace('/', '.') + " is not available");
+        }
+    }
+
+    private record Built(Schema schema, int lowestRef) {
+    }
+
+    /**
+     * Follows the top-level type of a field signature and records its single type argument.
+     */
+    private static final class ElementCollector extends SignatureVisitor {
+
+        private int arguments;
+        private boolean plain = true;
+        private ArgumentCollector argument;
+
+        ElementCollector() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            arguments++;
+            plain = false;
+        }
+
+        @Override
+        public SignatureVisitor visitTypeArgument(char wildcard) {
+            arguments++;
+            if (wildcard != INSTANCEOF) {
+                plain = false;
+            }
+            argument = new ArgumentCollector();
+            return argument;
+        }
+
+        @Override
+        public void visitInnerClassType(String name) {
+            // arguments seen so far belong to the outer class
+            arguments = 0;
+            plain = true;
+            argument = null;
+        }
+
+        Type result() {
+            if (arguments != 1 || !plain || argument == null) {
+                return null;
+            }
+            return argument.type();
+        }
+    }
+
+    /**
+     * Describes one type argument, or reports that it is not a plain class.
+     */
+    private static final class ArgumentCollector extends SignatureVisitor {
+
+        private final StringBuilder arrays = new StringBuilder();
+        private String descriptor;
+        private boolean plain = true;
+
+        ArgumentCollector() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public SignatureVisitor visitArrayType() {
+            arrays.append('[');
+            return this;
+        }
+
+        @Override
+        public void visitBaseType(char descriptor) {
+            this.descriptor = String.valueOf(descriptor);
+        }
+
+        @Override
+        public void visitClassType(String name) {
+            descriptor = "L" + name + ";";
+        }
+
+        @Override
+        public void visitInnerClassType(String name) {
+            descriptor = descriptor.substring(0, descriptor.length() - 1) + "$" + name + ";";
+        }
+
+        @Override
+        public void visitTypeVariable(String name) {
+            plain = false;
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            plain = false;
+        }
+
+        @Override
+        public SignatureVisitor visitTypeArgument(char wildcard) {
+            plain = false;
+            return new SignatureVisitor(Opcodes.ASM9) {
+            };
+        }
+
+        Type type() {
+            return plain && descriptor != null ? Type.getType(arrays + descriptor) : null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package chazaAPI.bytecode;
+
+import org.objectweb.asm.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the scanner needs to know about a class, read straight from its class file.
+ *
+ * <p>Annotation values are kept the way ASM reports them: strings and boxed primitives as they
+ * are, {@link Type} for class literals, {@link EnumValue} for enum constants, {@link Nested} for
+ * nested annotations and {@link List} for arrays. Only explicitly written values are present;
+ * defaults live in the annotation type.</p>
+ *
+ * @param name       the internal name, e.g. {@code com/example/Outer$Inner}
+ * @param simpleName the simple name as {@link Class#getSimpleName()} reports it
+ * @param access     the class access flags
+ * @param superName  the internal name of the superclass, null for {@code java/lang/Object}
+ * @param interfaces the internal names of the implemented interfaces
+ * @param fields     the declared fields, in class file order
+ * @param methods    the declared methods that carry at least one runtime-visible annotation, in class file order
+ * @param annotations the runtime-visible class annotations, keyed by descriptor
+ */
+record ClassInfo(String name, String simpleName, int access, String superName, List<String> interfaces,
+                 List<FieldInfo> fields, List<MethodInfo> methods, Map<String, Map<String, Object>> annotations) {
+
+    record FieldInfo(String name, int access, String descriptor, String signature) {
+    }
+
+    record MethodInfo(String name, Map<String, Map<String, Object>> annotations) {
+    }
+
+    record EnumValue(String descriptor, String value) {
+    }
+
+    record Nested(String descriptor, Map<String, Object> values) {
+    }
+
+    boolean isEnum() {
+        return (access & Opcodes.ACC_ENUM) != 0;
+    }
+
+    /**
+     * @return the binary name, e.g. {@code com.example.Outer$Inner}
+     */
+    String binaryName() {
+        return name.replace('/', '.');
+    }
+
+    /**
+     * Parses a class file, skipping code, debug information and frames.
+     */
+    static ClassInfo read(byte[] classFile) {
+        Collector collector = new Collector();
+        new ClassReader(classFile).accept(collector, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return collector.build();
+    }
+
+    private static final class Collector extends ClassVisitor {
+
+        private String name;
+        private String simpleName;
+        private int access;
+        private String superName;
+        private List<String> interfaces;
+        private final List<FieldInfo> fields = new ArrayList<>();
+        private final List<MethodInfo> methods = new ArrayList<>();
+        private final Map<String, Map<String, Object>> annotations = new LinkedHashMap<>();
+
+        Collector() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.name = name;
+            this.access = access;
+            this.superName = superName;
+            this.interfaces = List.of(interfaces == null ? new String[0] : interfaces);
+            this.simpleName = name.substring(name.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (name.equals(this.name)) {
+                // anonymous classes have no simple name
+                simpleName = innerName == null ? "" : innerName;
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (!visible) {
+                return null;
+            }
+            Map<String, Object> values = new LinkedHashMap<>();
+            annotations.put(descriptor, values);
+            return new Values(values);
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            fields.add(new FieldInfo(name, access, descriptor, signature));
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            Map<String, Map<String, Object>> methodAnnotations = new LinkedHashMap<>();
+            methods.add(new MethodInfo(name, methodAnnotations));
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                    if (!visible) {
+                        return null;
+                    }
+                    Map<String, Object> values = new LinkedHashMap<>();
+                    methodAnnotations.put(descriptor, values);
+                    return new Values(values);
+                }
+            };
+        }
+
+        ClassInfo build() {
+            methods.removeIf(method -> method.annotations().isEmpty());
+            return new ClassInfo(name, simpleName, access, superName, interfaces, List.copyOf(fields),
+                    List.copyOf(methods), annotations);
+        }
+    }
+
+    /**
+     * Collects the values of one annotation, or the elements of one array value.
+     */
+    private static final class Values extends AnnotationVisitor {
+
+        private final Map<String, Object> values;
+        private final List<Object> elements;
+
+        Values(Map<String, Object> values) {
+            super(Opcodes.ASM9);
+            this.values = values;
+            this.elements = null;
+        }
+
+        Values(List<Object> elements) {
+            super(Opcodes.ASM9);
+            this.values = null;
+            this.elements = elements;
+        }
+
+        private void add(String name, Object value) {
+            if (values != null) {
+                values.put(name, value);
+            } else {
+                elements.add(value);
+            }
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            add(name, value);
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value) {
+            add(name, new EnumValue(descriptor, value));
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+            Map<String, Object> nested = new LinkedHashMap<>();
+            add(name, new Nested(descriptor, nested));
+            return new Values(nested);
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            List<Object> array = new ArrayList<>();
+            add(name, array);
+            return new Values(array);
+        }
+    }
+}
@@ -1,24 +1,152 @@
 package chazaAPI.documentation;
+import chazaAPI.annotations.Method;
+import chazaAPI.bytecode.BytecodeScanner;
 import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.reflection.ControllerIndex;
 import chazaAPI.reflection.ReflectionUtils;
+import chazaAPI.runtime.BatchDispatcher;
+import chazaAPI.runtime.Bulkheads;
+import chazaAPI.runtime.ContractMonitor;
+import chazaAPI.runtime.EndpointMetrics;
+import chazaAPI.runtime.LatencyBudgets;
+import chazaAPI.runtime.RateLimiter;
+import chazaAPI.runtime.ResponseCache;
+import chazaAPI.runtime.RouteBinder;
 import chazaAPI.testlogic.GoodController3;
 import io.javalin.Javalin;
 import io.javalin.config.JavalinConfig;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.NotFoundResponse;
 import io.javalin.http.staticfiles.Location;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import chazaAPI.testlogic.GoodController;
 import chazaAPI.testlogic.GoodController2;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 @Data
 public class APIDisplay {
 
+    /**
+     * Classpath location of documentation generated at build time by the chaza-maven-plugin.
+     */
+    public static final String PREBUILT_JSON = "public/chaza.json";
+
+    private static final String DOC_PAGE = "public/APIDoc.html";
+
     private ApiInfo apiInfo;
-    private APIDoc doc;
-    private List<Endpoint> endpoints;
+
+    /**
+     * The endpoints of the last scan; what is served is the copy taken by the last generation.
+     */
+    private volatile List<Endpoint> endpoints;
+
+    /**
+     * Pool used to scan controllers in parallel, or null to scan them sequentially.
+     */
+    private ForkJoinPool scanPool;
+
+    /**
+     * Cache of scanned endpoints kept between restarts, or null to always scan.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ScanCache scanCache;
+
+    /**
+     * Whether {@link #scanEndPoints(String)} reads class files instead of loading controllers.
+     */
+    @Setter(AccessLevel.NONE)
+    private boolean bytecodeScan;
+
+    /**
+     * Whether {@link #bindRoutes(Javalin, List)} checks request bodies against their documented schema.
+     */
+    @Setter(AccessLevel.NONE)
+    private boolean requestValidation;
+
+    /**
+     * Checks a sample of the responses of bound routes against their documented schema, or null not to.
+     */
+    @Setter(AccessLevel.NONE)
+    private ContractMonitor contractMonitor;
+
+    /**
+     * Latency and throughput of bound routes, or null not to record them.
+     */
+    @Setter(AccessLevel.NONE)
+    private EndpointMetrics metrics;
+
+    /**
+     * Checks bound routes against their documented latency budget, or null not to.
+     */
+    @Setter(AccessLevel.NONE)
+    private LatencyBudgets latencyBudgets;
+
+    /**
+     * Serves the responses of bound routes that document a cache policy, or null not to cache them.
+     */
+    @Setter(AccessLevel.NONE)
+    private ResponseCache responseCache;
+
+    /**
+     * Enforces the rate limits of bound routes, or null not to.
+     */
+    @Setter(AccessLevel.NONE)
+    private RateLimiter rateLimiter;
+
+    /**
+     * Caps the requests in flight per group of bound routes, or null not to.
+     */
+    @Setter(AccessLevel.NONE)
+    private Bulkheads bulkheads;
+
+    /**
+     * Path of the batch route {@link #hostToServer(Javalin)} registers, or null for none.
+     */
+    @Setter(AccessLevel.NONE)
+    private String batchPath;
+
+    @Setter(AccessLevel.NONE)
+    private BatchDispatcher batchDispatcher;
+
+    /**
+     * The published documentation. Request handlers read it once per request and never lock;
+     * generation builds a complete new state and swaps it in.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicReference<DocState> state = new AtomicReference<>(DocState.EMPTY);
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong generations = new AtomicLong();
+
+    /**
+     * Clients of {@code /chaza-json/events}, told about every version published.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final DocEvents events = new DocEvents();
 
     private APIDisplay(){
         /// default
@@ -32,21 +160,467 @@ public class APIDisplay {
         return this;
     }
 
+    /**
+     * Finds and scans the controllers of the given package.
+     *
+     * <p>Uses the index written by {@link chazaAPI.processor.ChazaIndexProcessor} when the package
+     * was compiled with it, and falls back to scanning the classpath otherwise. With a
+     * {@linkplain #useScanCache(Path) scan cache} and an index, a cache hit loads no controller
+     * classes at all.</p>
+     *
+     * @param basePackage the package holding the controllers
+     * @return this APIDisplay instance for chaining
+     * @throws ChazaAPIException if a controller is misconfigured
+     */
     public APIDisplay scanEndPoints(String basePackage) throws ChazaAPIException {
-        List<Class<?>> controllers =  ReflectionUtils.findChazaControllers(basePackage);
-        return scanEndPoints(controllers);
+        endpoints = scanPackage(basePackage);
+        return this;
     }
 
     public APIDisplay scanEndPoints(List<Class<?>> controllers) throws ChazaAPIException {
-        endpoints = Endpoint.scan(controllers);
+        endpoints = scanControllers(controllers);
         return this;
     }
 
+    private List<Endpoint> scanPackage(String basePackage) throws ChazaAPIException {
+        if (bytecodeScan) {
+            return scanClassFiles(basePackage);
+        }
+        if (scanCache != null) {
+            Optional<List<String>> indexed = ControllerIndex.read(basePackage, classLoader());
+            if (indexed.isPresent() && !indexed.get().isEmpty()) {
+                Optional<List<Endpoint>> cached = scanCache.load(indexed.get(), classLoader());
+                if (cached.isPresent()) {
+                    return cached.get();
+                }
+                List<Class<?>> controllers = ReflectionUtils.findIndexedControllers(basePackage).orElse(List.of());
+                List<Endpoint> scanned = scan(controllers);
+                scanCache.store(indexed.get(), controllers, scanned, classLoader());
+                return scanned;
+            }
+        }
+        List<Class<?>> controllers = ReflectionUtils.findIndexedControllers(basePackage)
+                .orElseGet(() -> ReflectionUtils.findChazaControllers(basePackage));
+        return scanControllers(controllers);
+    }
+
+    private List<Endpoint> scanControllers(List<Class<?>> controllers) throws ChazaAPIException {
+        if (scanCache == null) {
+            return scan(controllers);
+        }
+        List<String> names = controllers.stream().<String>map(Class::getName).toList();
+        Optional<List<Endpoint>> cached = scanCache.load(names, classLoader());
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        List<Endpoint> scanned = scan(controllers);
+        scanCache.store(names, controllers, scanned, classLoader());
+        return scanned;
+    }
+
+    private List<Endpoint> scanClassFiles(String basePackage) throws ChazaAPIException {
+        BytecodeScanner scanner = new BytecodeScanner(classLoader());
+        List<String> controllers = scanner.findControllers(basePackage);
+        if (scanCache != null) {
+            Optional<List<Endpoint>> cached = scanCache.load(controllers, classLoader());
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        List<Endpoint> scanned = scanner.scan(controllers);
+        if (scanCache != null) {
+            scanCache.store(controllers, scanner.getClassesRead(), scanned, classLoader());
+        }
+        return scanned;
+    }
+
+    private List<Endpoint> scan(List<Class<?>> controllers) throws ChazaAPIException {
+        return scanPool == null ? Endpoint.scan(controllers) : Endpoint.scan(controllers, scanPool);
+    }
+
+    /**
+     * Makes {@link #scanEndPoints(String)} read controllers and DTOs from their class files
+     * with {@link BytecodeScanner}, so none of them is loaded or initialized. Takes precedence
+     * over {@link #useParallelScan()}.
+     *
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay useBytecodeScan() {
+        this.bytecodeScan = true;
+        return this;
+    }
+
+    /**
+     * Checks request bodies against the schema their endpoint documents before the handler
+     * runs, answering invalid bodies with a 400. Must be called before
+     * {@link #bindRoutes(Javalin, List)} to take effect. See {@link chazaAPI.runtime.RequestValidator}.
+     *
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay validateRequests() {
+        this.requestValidation = true;
+        return this;
+    }
+
+    /**
+     * Compares a sample of the responses of bound routes with the schema their endpoint
+     * documents, spending at most the given share of one core on it. Results are served at
+     * {@code /chaza-json/runtime}. Must be called before {@link #bindRoutes(Javalin, List)} to
+     * take effect. See {@link ContractMonitor}.
+     *
+     * @param fraction  the largest share of responses to check, between 0 and 1
+     * @param cpuBudget the time checks may take, as a share of one core, e.g. 0.01
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay checkResponses(double fraction, double cpuBudget) {
+        this.contractMonitor = new ContractMonitor(fraction, cpuBudget);
+        return this;
+    }
+
+    /**
+     * Records the latency and throughput of every bound route, served with percentiles and
+     * requests per second at {@code /chaza-json/metrics} and shown with each endpoint on the
+     * documentation page. Must be called before {@link #bindRoutes(Javalin, List)} to take
+     * effect. See {@link EndpointMetrics}.
+     *
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay recordMetrics() {
+        this.metrics = new EndpointMetrics();
+        return this;
+    }
+
+    /**
+     * Times a sample of the requests to bound routes whose endpoint declares a
+     * {@code latencyBudgetMs}, and flags the endpoints that exceed it at {@code /chaza-json/runtime}.
+     * Must be called before {@link #bindRoutes(Javalin, List)} to take effect. See {@link LatencyBudgets}.
+     *
+     * @param sampleRate the share of requests to time, between 0 and 1
+     * @param listener   told when an endpoint starts or stops violating its budget, e.g. to raise an alert
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay enforceLatencyBudgets(double sampleRate, LatencyBudgets.Listener listener) {
+        this.latencyBudgets = new LatencyBudgets(sampleRate, listener);
+        return this;
+    }
+
+    /**
+     * Serves the responses of bound GET routes whose endpoint declares a {@code cacheTtlSeconds}
+     * from memory, with hits and misses reported at {@code /chaza-json/runtime}. Must be called
+     * before {@link #bindRoutes(Javalin, List)} to take effect. See {@link ResponseCache}.
+     *
+     * @param groupBytes the memory the cached responses of each group may take, in bytes
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay cacheResponses(long groupBytes) {
+        return cacheResponses(groupBytes, Map.of());
+    }
+
+    /**
+     * Serves the responses of bound GET routes whose endpoint declares a {@code cacheTtlSeconds}
+     * from memory, giving some groups a memory limit of their own.
+     *
+     * @param groupBytes  the memory the cached responses of each group may take, in bytes
+     * @param groupLimits the limits of the groups that do not take the default one, by group name
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay cacheResponses(long groupBytes, Map<String, Long> groupLimits) {
+        this.responseCache = new ResponseCache(groupBytes, groupLimits);
+        return this;
+    }
+
+    /**
+     * Refuses requests to bound routes over the {@code rateLimits} their endpoint documents with
+     * a 429, before any other handler runs, applying the limit of {@code any} to every request.
+     * Must be called before {@link #bindRoutes(Javalin, List)} to take effect. See {@link RateLimiter}.
+     *
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay enforceRateLimits() {
+        return enforceRateLimits(ctx -> null);
+    }
+
+    /**
+     * Refuses requests to bound routes over the {@code rateLimits} their endpoint documents for
+     * the role of the request, or for {@code any} if that role has no limit of its own.
+     *
+     * @param roles tells the role of a request, e.g. from a token the application checked
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay enforceRateLimits(RateLimiter.RoleResolver roles) {
+        this.rateLimiter = new RateLimiter(roles);
+        return this;
+    }
+
+    /**
+     * Caps the requests in flight per group of bound routes at the {@code bulkhead} their
+     * endpoints document, refusing those over it and its {@code bulkheadQueue} at once.
+     * Must be called before {@link #bindRoutes(Javalin, List)} to take effect. See {@link Bulkheads}.
+     *
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay enforceBulkheads() {
+        return enforceBulkheads(0);
+    }
+
+    /**
+     * Caps the requests in flight per group of bound routes at the {@code bulkhead} their
+     * endpoints document, letting up to {@code bulkheadQueue} of those over it wait for a slot.
+     *
+     * @param maxWaitMillis how long a queued request waits for a slot before it is refused
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay enforceBulkheads(long maxWaitMillis) {
+        this.bulkheads = new Bulkheads(maxWaitMillis);
+        return this;
+    }
+
+    /**
+     * Registers a {@code POST /batch} route with {@link #hostToServer(Javalin)}, which runs up to
+     * the given number of documented endpoints in one call, waiting up to 30 seconds for them.
+     * See {@link BatchDispatcher}.
+     *
+     * @param maxRequests the most requests a batch may hold
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay enableBatch(int maxRequests) {
+        return enableBatch("/batch", maxRequests, 30_000);
+    }
+
+    /**
+     * Registers a batch route with {@link #hostToServer(Javalin)}, which runs several documented
+     * endpoints in one call. Must be called before {@link #hostToServer(Javalin)} to take effect.
+     *
+     * @param path          the path of the batch route
+     * @param maxRequests   the most requests a batch may hold
+     * @param timeoutMillis how long a batch waits for its requests
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay enableBatch(String path, int maxRequests, long timeoutMillis) {
+        this.batchDispatcher = new BatchDispatcher(maxRequests, timeoutMillis, () -> {
+            APIDoc doc = state.get().doc();
+            return doc == null ? null : doc.getEndpoints();
+        });
+        this.batchPath = path;
+        return this;
+    }
+
+    /**
+     * Keeps scanned endpoints in the given file between restarts.
+     *
+     * <p>The file records a SHA-256 fingerprint of the controllers' class files and of the DTO
+     * classes their schemas came from. As long as none of them change, later scans read the
+     * endpoints from the file instead of reflecting over the controllers. Must be called before
+     * scanning to take effect.</p>
+     *
+     * @param file the cache file; created on the first scan
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay useScanCache(Path file) {
+        this.scanCache = file == null ? null : new ScanCache(file);
+        return this;
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : APIDisplay.class.getClassLoader();
+    }
+
+    /**
+     * Scans controllers in parallel on the common fork/join pool.
+     * Must be called before {@link #scanEndPoints(List)} to take effect.
+     *
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay useParallelScan() {
+        return useParallelScan(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Scans controllers in parallel on the given fork/join pool.
+     * Must be called before {@link #scanEndPoints(List)} to take effect.
+     *
+     * @param pool the pool that builds the endpoints
+     * @return this APIDisplay instance for chaining
+     */
+    public APIDisplay useParallelScan(ForkJoinPool pool) {
+        this.scanPool = pool;
+        return this;
+    }
+
+    /**
+     * Builds the documentation and serializes it once into an immutable {@link DocSnapshot},
+     * so that serving {@code /chaza-json} never has to validate or serialize again.
+     *
+     * <p>The new documentation is published atomically: requests in flight keep the version they
+     * started with, and later requests see the new one in full.</p>
+     *
+     * @return this APIDisplay instance for chaining
+     */
     public APIDisplay generateDocumentation() {
-        doc = new APIDoc(apiInfo , endpoints);
+        publish(DocState.build(generations.incrementAndGet(), apiInfo, endpoints));
+        return this;
+    }
+
+    /**
+     * Rescans the given package and publishes the new documentation on the given executor,
+     * keeping the current version online until the new one is complete.
+     *
+     * @param basePackage the package holding the controllers
+     * @param executor    where scanning and serialization run
+     * @return a future completed with this APIDisplay once the new version is published,
+     * or exceptionally with the scan failure
+     */
+    public CompletableFuture<APIDisplay> regenerate(String basePackage, Executor executor) {
+        return regenerate(() -> scanPackage(basePackage), executor);
+    }
+
+    /**
+     * Rescans the given controllers and publishes the new documentation on the given executor,
+     * keeping the current version online until the new one is complete.
+     *
+     * @param controllers the controller classes to scan
+     * @param executor    where scanning and serialization run
+     * @return a future completed with this APIDisplay once the new version is published,
+     * or exceptionally with the scan failure
+     */
+    public CompletableFuture<APIDisplay> regenerate(List<Class<?>> controllers, Executor executor) {
+        return regenerate(() -> scanControllers(controllers), executor);
+    }
+
+    private CompletableFuture<APIDisplay> regenerate(Scan scan, Executor executor) {
+        // numbered when requested, so a slower, older regeneration never replaces a newer one
+        long generation = generations.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<Endpoint> scanned = scan.run();
+                if (publish(DocState.build(generation, apiInfo, scanned))) {
+                    endpoints = scanned;
+                }
+                return this;
+            } catch (ChazaAPIException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @FunctionalInterface
+    private interface Scan {
+        List<Endpoint> run() throws ChazaAPIException;
+    }
+
+    /**
+     * Watches the class directories of the given package and keeps the documentation in step
+     * with them: when class files change, only the affected controllers are read again and only
+     * their groups are serialized again. Starts by scanning the package and publishing the
+     * documentation, like {@code scanEndPoints(basePackage).generateDocumentation()}.
+     *
+     * <p>Controllers are read with {@link BytecodeScanner}, so recompiled classes are picked up
+     * without reloading them. Meant for development; classes in jars are not watched.</p>
+     *
+     * @param basePackage the package holding the controllers
+     * @return the watcher; close it to stop watching
+     * @throws ChazaAPIException if the package has no class directory or a controller is misconfigured
+     */
+    public DocWatcher watch(String basePackage) throws ChazaAPIException {
+        return new DocWatcher(this, basePackage, classLoader());
+    }
+
+    /**
+     * @return whether the state was published, i.e. no newer one was published before it
+     */
+    boolean publish(DocState next) {
+        boolean published = state.accumulateAndGet(next, DocState::newer) == next;
+        events.publish(state.get());
+        return published;
+    }
+
+    DocState currentState() {
+        return state.get();
+    }
+
+    long nextGeneration() {
+        return generations.incrementAndGet();
+    }
+
+    /**
+     * @return the documentation model of the published version, or null if none was generated
+     */
+    public APIDoc getDoc() {
+        return state.get().doc();
+    }
+
+    /**
+     * @return the serialized document of the published version, or null if none was generated
+     */
+    public DocSnapshot getSnapshot() {
+        return state.get().snapshot();
+    }
+
+    /**
+     * @return the group, method and role slices of the published version, or null if none was generated
+     */
+    public DocSlices getSlices() {
+        return state.get().slices();
+    }
+
+    /**
+     * Loads documentation generated at build time from {@link #PREBUILT_JSON} instead of scanning.
+     *
+     * <p>The JSON is served byte for byte as it was written, so startup only pays for reading
+     * the resource and slicing it per group.</p>
+     *
+     * @return this APIDisplay instance for chaining
+     * @throws ChazaAPIException if the resource is missing or unreadable
+     */
+    public APIDisplay usePrebuiltDocumentation() throws ChazaAPIException {
+        try (InputStream in = classLoader().getResourceAsStream(PREBUILT_JSON)) {
+            if (in == null) {
+                throw new ChazaAPIException("No prebuilt documentation found at " + PREBUILT_JSON);
+            }
+            byte[] json = in.readAllBytes();
+            APIDoc doc = APIDoc.fromJson(json);
+            apiInfo = doc.getApiInfo();
+            endpoints = doc.getEndpoints();
+            publish(DocState.prebuilt(generations.incrementAndGet(), doc, json));
+        } catch (IOException e) {
+            throw new ChazaAPIException("Unable to read prebuilt documentation: " + e.getMessage());
+        }
         return this;
     }
 
+    /**
+     * Writes the generated documentation to {@code chaza.json} in the given directory, and
+     * optionally a copy of the documentation page with the JSON embedded so it needs no server.
+     *
+     * @param directory  the directory to write to, usually {@code target/classes/public}
+     * @param renderHtml whether to also write the pre-rendered {@code APIDoc.html}
+     * @throws ChazaAPIException if the documentation was not generated or failed validation
+     * @throws IOException       if writing fails
+     */
+    public void writeDocumentation(Path directory, boolean renderHtml) throws ChazaAPIException, IOException {
+        byte[] json = state.get().servable().snapshot().getBytes();
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("chaza.json"), json);
+
+        if (renderHtml) {
+            String page;
+            try (InputStream in = APIDisplay.class.getClassLoader().getResourceAsStream(DOC_PAGE)) {
+                if (in == null) {
+                    throw new ChazaAPIException("Documentation page " + DOC_PAGE + " is missing");
+                }
+                page = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            // "</" would end the script element early
+            String data = new String(json, StandardCharsets.UTF_8).replace("</", "<\\/");
+            int script = page.indexOf("<script>");
+            String rendered = page.substring(0, script)
+                    + "<script id=\"chaza-data\" type=\"application/json\">" + data + "</script>\n"
+                    + page.substring(script);
+            Files.writeString(directory.resolve("APIDoc.html"), rendered);
+        }
+    }
+
     public static void configureServer(JavalinConfig config){
         config.staticFiles.add("/public", Location.CLASSPATH);
     }
@@ -58,9 +632,121 @@ public class APIDisplay {
             throw new ChazaAPIException("Server instance cannot be null");
         }
         server.get("/chazaAPI", ctx -> ctx.redirect("APIDoc.html"));
-        server.get("/chaza-json", ctx -> {
-            ctx.json(doc.toPrettyJsonString());
+        server.get("/chaza-json", ctx -> state.get().servable().snapshot().serve(ctx));
+        server.get("/chaza-json/groups", ctx -> state.get().servable().slices().index().serve(ctx));
+        server.get("/chaza-json/endpoints", ctx -> {
+            DocSlices slices = state.get().servable().slices();
+            String group = ctx.queryParam("group");
+            if (group != null && !slices.hasGroup(group)) {
+                throw new NotFoundResponse("Unknown group: " + group);
+            }
+            slices.endpoints(group, parseMethod(ctx.queryParam("method")), ctx.queryParam("role")).serve(ctx);
         });
+        // changes are pushed as they are published, without holding a thread per connection
+        server.sse("/chaza-json/events", events::subscribe);
+        server.get("/chaza-json/runtime", ctx -> ctx.json(runtimeReport()));
+        server.get("/chaza-json/metrics", ctx -> {
+            if (metrics == null) {
+                throw new NotFoundResponse("Metrics are not recorded");
+            }
+            ctx.json(metrics.report());
+        });
+        server.get("/chaza-json/bulkheads", ctx -> {
+            if (bulkheads == null) {
+                throw new NotFoundResponse("Bulkheads are not enforced");
+            }
+            ctx.json(bulkheads.report());
+        });
+        if (batchDispatcher != null) {
+            batchDispatcher.attach(server, batchPath);
+        }
+    }
+
+    /**
+     * @return what is observed of the bound routes while serving, as served at {@code /chaza-json/runtime}
+     */
+    public Map<String, Object> runtimeReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (contractMonitor != null) {
+            report.put("contracts", contractMonitor.report());
+        }
+        if (latencyBudgets != null) {
+            report.put("latencyBudgets", latencyBudgets.report());
+        }
+        if (responseCache != null) {
+            report.put("cache", responseCache.report());
+        }
+        if (rateLimiter != null) {
+            report.put("rateLimits", rateLimiter.report());
+        }
+        if (bulkheads != null) {
+            report.put("bulkheads", bulkheads.report());
+        }
+        return report;
+    }
+
+    /**
+     * Registers the handlers of the given controllers with the server, at the method and URL
+     * their {@code @EndPoint} documents. See {@link RouteBinder}.
+     *
+     * @param server      the server to register the routes with
+     * @param controllers the controller classes
+     * @return this APIDisplay instance for chaining
+     * @throws ChazaAPIException if the server is null, a class is not annotated with Chaza or a handler is not static
+     */
+    public APIDisplay bindRoutes(Javalin server, List<Class<?>> controllers) throws ChazaAPIException {
+        List<RouteBinder.Route> routes = RouteBinder.routes(controllers);
+        if (rateLimiter != null && server != null) {
+            // attached first, so refused requests cost nothing else
+            rateLimiter.attach(server, routes);
+        }
+        if (bulkheads != null) {
+            // inside the cache, so that hits do not take a slot
+            routes = bulkheads.guard(routes);
+        }
+        RouteBinder.register(server, routes, requestValidation, responseCache);
+        if (contractMonitor != null) {
+            contractMonitor.attach(server, routes);
+        }
+        if (metrics != null) {
+            metrics.attach(server, routes);
+        }
+        if (latencyBudgets != null) {
+            latencyBudgets.attach(server, routes);
+        }
+        return this;
+    }
+
+    /**
+     * Registers the handlers of the controllers of a package with the server, finding them the
+     * same way {@link #scanEndPoints(String)} does with reflection.
+     *
+     * @param server      the server to register the routes with
+     * @param basePackage the package holding the controllers
+     * @return this APIDisplay instance for chaining
+     * @throws ChazaAPIException if the server is null or a handler is not static
+     */
+    public APIDisplay bindRoutes(Javalin server, String basePackage) throws ChazaAPIException {
+        return bindRoutes(server, ReflectionUtils.findIndexedControllers(basePackage)
+                .orElseGet(() -> ReflectionUtils.findChazaControllers(basePackage)));
+    }
+
+    /**
+     * @return the number of clients connected to {@code /chaza-json/events}
+     */
+    public int getEventSubscribers() {
+        return events.subscribers();
+    }
+
+    private static Method parseMethod(String method) {
+        if (method == null || method.isEmpty()) {
+            return null;
+        }
+        try {
+            return Method.valueOf(method.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse("Unknown method: " + method);
+        }
     }
 
 
@@ -88,6 +774,7 @@ public class APIDisplay {
                         .addLicense("url" , "www.chazaAPI.com"))
                 .scanEndPoints("chazaAPI.testlogic")
                 .generateDocumentation()
+                .bindRoutes(app, "chazaAPI.testlogic")
                 .hostToServer(app);
         app.start(8080);
     }
@@ -1,12 +1,23 @@
 package chazaAPI.documentation;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import chazaAPI.exceptions.ChazaAPIException;
 import lombok.Data;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +32,15 @@ import java.util.Map;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class APIDoc {
 
+    /**
+     * Shared mapper; building one is the expensive part of Jackson, so it is done once.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectWriter WRITER = MAPPER.writer();
+
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+
     /**
      * General information about the API.
      */
@@ -59,13 +79,9 @@ public class APIDoc {
      * @throws ChazaAPIException if validation fails (required fields are null)
      */
     public String toJsonString() throws ChazaAPIException {
-        ObjectMapper mapper = new ObjectMapper();
+        validateAll();
         try {
-            validate(apiInfo);
-            for (Endpoint endpoint : endpoints) {
-                validate(endpoint);
-            }
-            return mapper.writeValueAsString(this);
+            return WRITER.writeValueAsString(this);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
@@ -79,44 +95,172 @@ public class APIDoc {
      * @throws ChazaAPIException if validation fails (required fields are null)
      */
     public String toPrettyJsonString() throws ChazaAPIException {
-        ObjectMapper mapper = new ObjectMapper();
+        validateAll();
         try {
-            validate(apiInfo);
-            for (Endpoint endpoint : endpoints) {
-                validate(endpoint);
-            }
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(this);
+            return PRETTY_WRITER.writeValueAsString(this);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Streams this APIDoc as UTF-8 JSON straight into the given output stream, after
+     * validating required fields. No intermediate String is built, and the stream is
+     * flushed but left open.
+     *
+     * @param out    the stream to write to
+     * @param pretty whether to indent the output
+     * @throws ChazaAPIException if validation fails (required fields are null)
+     * @throws IOException       if writing to the stream fails
+     */
+    public void writeTo(OutputStream out, boolean pretty) throws ChazaAPIException, IOException {
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writeTo(generator, pretty);
+        }
+    }
+
+    /**
+     * Streams this APIDoc as JSON straight into the given writer, after validating
+     * required fields. The writer is flushed but left open.
+     *
+     * @param writer the writer to write to
+     * @param pretty whether to indent the output
+     * @throws ChazaAPIException if validation fails (required fields are null)
+     * @throws IOException       if writing fails
+     */
+    public void writeTo(Writer writer, boolean pretty) throws ChazaAPIException, IOException {
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writeTo(generator, pretty);
+        }
+    }
+
+    /**
+     * Writes this APIDoc through a caller-owned generator, after validating required fields.
+     * The generator is flushed but not closed, so it can be reused to write further documents.
+     *
+     * @param generator the generator to write with
+     * @param pretty    whether to indent the output
+     * @throws ChazaAPIException if validation fails (required fields are null)
+     * @throws IOException       if writing fails
+     */
+    public void writeTo(JsonGenerator generator, boolean pretty) throws ChazaAPIException, IOException {
+        validateAll();
+        (pretty ? PRETTY_WRITER : WRITER).writeValue(generator, this);
+        generator.flush();
+    }
+
+    /**
+     * Reads documentation previously written by {@link #writeTo(OutputStream, boolean)}.
+     *
+     * @param json the UTF-8 encoded JSON document
+     * @return the documentation it describes
+     * @throws IOException if the JSON cannot be read as an APIDoc
+     */
+    public static APIDoc fromJson(byte[] json) throws IOException {
+        return MAPPER.readValue(json, APIDoc.class);
+    }
+
+    /**
+     * @return the shared compact writer, for serializing parts of the documentation
+     */
+    static ObjectWriter writer() {
+        return WRITER;
+    }
+
+    private void validateAll() throws ChazaAPIException {
+        validate(apiInfo);
+        for (Endpoint endpoint : endpoints) {
+            validate(endpoint);
+        }
+    }
+
+    /**
+     * Validators compiled once per class, so validating a document is a plain loop over field getters.
+     */
+    private static final ClassValue<Validator> VALIDATORS = new ClassValue<>() {
+        @Override
+        protected Validator computeValue(Class<?> type) {
+            return Validator.compile(type);
+        }
+    };
+
     /**
      * Validates that all fields annotated with JsonInclude having NON_NULL or NON_EMPTY
      * are not null in the given object.
      *
+     * The fields to check are looked up once per class and turned into method handles,
+     * so repeated validation does no reflection lookups and allocates nothing unless it fails.
+     *
      * @param obj the object to validate
      * @throws ChazaAPIException if any required field is null
      */
     public static void validate(Object obj) throws ChazaAPIException {
-        Class<?> clazz = obj.getClass();
-        Field[] fields = clazz.getDeclaredFields();
+        VALIDATORS.get(obj.getClass()).validate(obj);
+    }
 
-        for (Field field : fields) {
-            JsonInclude annotation = field.getAnnotation(JsonInclude.class);
-            if (annotation != null) {
-                JsonInclude.Include includeValue = annotation.value();
+    /**
+     * Null checks for the required fields of one class.
+     */
+    private static final class Validator {
+
+        private final MethodHandle[] getters;
+        private final String[] messages;
+
+        private Validator(MethodHandle[] getters, String[] messages) {
+            this.getters = getters;
+            this.messages = messages;
+        }
 
+        static Validator compile(Class<?> clazz) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            List<MethodHandle> getters = new ArrayList<>();
+            List<String> messages = new ArrayList<>();
+
+            for (Field field : clazz.getDeclaredFields()) {
+                JsonInclude annotation = field.getAnnotation(JsonInclude.class);
+                if (annotation == null) {
+                    continue;
+                }
+                JsonInclude.Include includeValue = annotation.value();
                 if (includeValue == JsonInclude.Include.NON_NULL || includeValue == JsonInclude.Include.NON_EMPTY) {
                     field.setAccessible(true);
                     try {
-                        Object value = field.get(obj);
-                        if (value == null) {
-                            throw new ChazaAPIException("API " + field.getName() + " must not be null.");
-                        }
+                        getters.add(getter(lookup, field));
                     } catch (IllegalAccessException e) {
                         throw new RuntimeException(e);
                     }
+                    messages.add("API " + field.getName() + " must not be null.");
+                }
+            }
+            return new Validator(getters.toArray(new MethodHandle[0]), messages.toArray(new String[0]));
+        }
+
+        /**
+         * @return a getter of type {@code (Object)Object}; a static field's getter ignores the object
+         */
+        private static MethodHandle getter(MethodHandles.Lookup lookup, Field field) throws IllegalAccessException {
+            MethodHandle getter = lookup.unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                return MethodHandles.dropArguments(getter.asType(MethodType.methodType(Object.class)), 0, Object.class);
+            }
+            return getter.asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        void validate(Object obj) throws ChazaAPIException {
+            for (int i = 0; i < getters.length; i++) {
+                Object value;
+                try {
+                    value = (Object) getters[i].invokeExact(obj);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    // field getters declare no checked exceptions
+                    throw new IllegalStateException(e);
+                }
+                if (value == null) {
+                    throw new ChazaAPIException(messages[i]);
                 }
             }
         }
@@ -130,9 +274,8 @@ public class APIDoc {
      */
     @Override
     public String toString() {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.writeValueAsString(this);
+            return WRITER.writeValueAsString(this);
         } catch (JsonProcessingException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,189 @@
+package chazaAPI.documentation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.javalin.http.sse.SseClient;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes documentation changes to the clients of {@code /chaza-json/events}.
+ *
+ * <p>Every published state is compared with the previous one, endpoint by endpoint keyed by
+ * method and URL, and the difference is sent once to all subscribers as a {@code delta} event.
+ * A state that failed validation is sent as an {@code error} event instead. Nothing is compared
+ * while nobody listens.</p>
+ *
+ * <p>Connections hold no thread: each subscriber only gets a virtual thread while it has
+ * events queued, so a slow client delays nobody else and its events stay in order.</p>
+ */
+final class DocEvents {
+
+    static final String DELTA = "delta";
+    static final String ERROR = "error";
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The last state published, guarded by this.
+     */
+    private DocState published = DocState.EMPTY;
+
+    /**
+     * The documentation deltas are computed against, guarded by this.
+     */
+    private APIDoc baseline;
+
+    /**
+     * Registers an SSE connection; it receives every change published from now on.
+     */
+    void subscribe(SseClient client) {
+        Subscriber subscriber = new Subscriber(client);
+        client.keepAlive();
+        client.onClose(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    int subscribers() {
+        return subscribers.size();
+    }
+
+    /**
+     * Sends what changed since the last published state. Publishing the same or an older
+     * state again sends nothing.
+     */
+    synchronized void publish(DocState latest) {
+        if (latest.generation() <= published.generation()) {
+            return;
+        }
+        published = latest;
+        if (latest.error() != null) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("generation", latest.generation());
+            error.put("message", latest.error().getMessage());
+            broadcast(ERROR, error);
+            return;
+        }
+        if (latest.slices() == null) {
+            return;
+        }
+
+        APIDoc previous = baseline;
+        baseline = latest.doc();
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> delta = delta(previous, latest.doc());
+        if (delta != null) {
+            delta.put("generation", latest.generation());
+            broadcast(DELTA, delta);
+        }
+    }
+
+    /**
+     * Compares two versions of the documentation.
+     *
+     * @return the added, changed and removed endpoints, or null if none changed
+     */
+    static Map<String, Object> delta(APIDoc previous, APIDoc next) {
+        Map<String, Endpoint> before = byRoute(previous);
+        Map<String, Endpoint> after = byRoute(next);
+
+        List<Endpoint> added = new ArrayList<>();
+        List<Endpoint> changed = new ArrayList<>();
+        List<Map<String, Object>> removed = new ArrayList<>();
+        after.forEach((route, endpoint) -> {
+            Endpoint old = before.get(route);
+            if (old == null) {
+                added.add(endpoint);
+            } else if (!old.equals(endpoint)) {
+                changed.add(endpoint);
+            }
+        });
+        before.forEach((route, endpoint) -> {
+            if (!after.containsKey(route)) {
+                Map<String, Object> key = new LinkedHashMap<>();
+                key.put("method", endpoint.getMethod());
+                key.put("url", endpoint.getUrl());
+                key.put("group", endpoint.getGroup());
+                removed.add(key);
+            }
+        });
+        if (added.isEmpty() && changed.isEmpty() && removed.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("added", added);
+        delta.put("changed", changed);
+        delta.put("removed", removed);
+        return delta;
+    }
+
+    private static Map<String, Endpoint> byRoute(APIDoc doc) {
+        Map<String, Endpoint> routes = new LinkedHashMap<>();
+        if (doc != null && doc.getEndpoints() != null) {
+            for (Endpoint endpoint : doc.getEndpoints()) {
+                routes.put(endpoint.getMethod() + " " + endpoint.getUrl(), endpoint);
+            }
+        }
+        return routes;
+    }
+
+    private void broadcast(String event, Object data) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String json;
+        try {
+            json = APIDoc.writer().writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.send(event, json);
+        }
+    }
+
+    /**
+     * One connection and the events it has yet to receive.
+     */
+    private final class Subscriber {
+
+        private final SseClient client;
+        private final Queue<String[]> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseClient client) {
+            this.client = client;
+        }
+
+        void send(String event, String json) {
+            queue.add(new String[]{event, json});
+            if (draining.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("chaza-events").start(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                String[] next;
+                while ((next = queue.poll()) != null) {
+                    if (client.terminated()) {
+                        subscribers.remove(this);
+                        queue.clear();
+                        break;
+                    }
+                    client.sendEvent(next[0], next[1]);
+                }
+                draining.set(false);
+                // an event queued after the last poll but before the flag was cleared
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
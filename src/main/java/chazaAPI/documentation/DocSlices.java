@@ -0,0 +1,168 @@
+package chazaAPI.documentation;
+
+import chazaAPI.annotations.Method;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-serialized slices of an {@link APIDoc}, so that the documentation page can load only
+ * what it shows instead of the whole document.
+ *
+ * <p>The group index and the endpoints of every group are serialized up front. Slices further
+ * filtered by HTTP method or role are serialized the first time they are asked for and kept
+ * afterwards. Only groups and roles that appear in the documentation are cached, and roles that
+ * do not share the slice of {@code any}, which bounds the cache by the size of the API rather
+ * than by what clients send.</p>
+ *
+ * <p>Slices patched from a previous instance share the serialized groups that did not change.</p>
+ */
+public final class DocSlices {
+
+    private static final DocSnapshot EMPTY = DocSnapshot.of("[]");
+
+    private final List<Endpoint> endpoints;
+    private final Set<String> roles = new HashSet<>();
+    private final DocSnapshot index;
+    private final Map<String, DocSnapshot> groups = new HashMap<>();
+    private final Map<String, Map<String, Object>> groupEntries = new HashMap<>();
+    private final Map<SliceKey, DocSnapshot> filtered = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes the group index and per-group slices of the given documentation.
+     *
+     * @param doc the documentation to slice; it is expected to be validated already
+     */
+    public DocSlices(APIDoc doc) {
+        this(doc, null, Set.of());
+    }
+
+    private DocSlices(APIDoc doc, DocSlices previous, Set<String> changedGroups) {
+        this.endpoints = List.copyOf(doc.getEndpoints());
+
+        Map<String, List<Endpoint>> byGroup = new TreeMap<>();
+        for (Endpoint endpoint : endpoints) {
+            byGroup.computeIfAbsent(endpoint.getGroup(), group -> new ArrayList<>()).add(endpoint);
+            if (endpoint.getRoles() != null) {
+                roles.addAll(endpoint.getRoles());
+            }
+        }
+
+        List<Map<String, Object>> groupIndex = new ArrayList<>();
+        for (Map.Entry<String, List<Endpoint>> entry : byGroup.entrySet()) {
+            String name = entry.getKey();
+            if (previous != null && !changedGroups.contains(name) && previous.groups.containsKey(name)) {
+                groups.put(name, previous.groups.get(name));
+                groupEntries.put(name, previous.groupEntries.get(name));
+                groupIndex.add(groupEntries.get(name));
+                continue;
+            }
+
+            Set<Method> methods = EnumSet.noneOf(Method.class);
+            entry.getValue().forEach(endpoint -> methods.add(endpoint.getMethod()));
+
+            Map<String, Object> group = new LinkedHashMap<>();
+            group.put("name", name);
+            group.put("endpoints", entry.getValue().size());
+            group.put("methods", methods);
+            groupIndex.add(group);
+
+            groupEntries.put(name, group);
+            groups.put(name, serialize(entry.getValue()));
+        }
+
+        Map<String, Object> indexDoc = new LinkedHashMap<>();
+        indexDoc.put("apiInfo", doc.getApiInfo());
+        indexDoc.put("groups", groupIndex);
+        this.index = serialize(indexDoc);
+
+        if (previous != null) {
+            // slices confined to an untouched group are still accurate
+            previous.filtered.forEach((key, slice) -> {
+                if (key.group() != null && !changedGroups.contains(key.group()) && groups.containsKey(key.group())) {
+                    filtered.put(key, slice);
+                }
+            });
+        }
+    }
+
+    /**
+     * Slices a new version of the documentation in which only the given groups changed,
+     * reusing the serialized slices of every other group.
+     *
+     * @param doc           the new documentation, validated already
+     * @param changedGroups the groups that gained, lost or changed endpoints
+     * @return the slices of the new documentation
+     */
+    DocSlices patch(APIDoc doc, Set<String> changedGroups) {
+        return new DocSlices(doc, this, changedGroups);
+    }
+
+    /**
+     * @return the API information and the list of groups with their endpoint counts and methods
+     */
+    public DocSnapshot index() {
+        return index;
+    }
+
+    /**
+     * @param group the group name
+     * @return true if the documentation has endpoints in the given group
+     */
+    public boolean hasGroup(String group) {
+        return groups.containsKey(group);
+    }
+
+    /**
+     * Returns the endpoints matching all given filters; a null filter matches everything.
+     * An endpoint matches a role if it lists that role or the catch-all role {@code any}.
+     *
+     * @param group  the group to select, or null
+     * @param method the HTTP method to select, or null
+     * @param role   the role to select, or null
+     * @return the serialized list of matching endpoints
+     */
+    public DocSnapshot endpoints(String group, Method method, String role) {
+        if (group != null && !groups.containsKey(group)) {
+            return EMPTY;
+        }
+        if (method == null && role == null) {
+            return group == null ? filtered.computeIfAbsent(new SliceKey(null, null, null), this::slice) : groups.get(group);
+        }
+        if (role != null && !roles.contains(role)) {
+            // unknown roles see exactly the endpoints open to anyone, so arbitrary role names
+            // neither grow the cache nor cost a serialization each
+            role = "any";
+        }
+        return filtered.computeIfAbsent(new SliceKey(group, method, role), this::slice);
+    }
+
+    private DocSnapshot slice(SliceKey key) {
+        List<Endpoint> matching = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            if (key.matches(endpoint)) {
+                matching.add(endpoint);
+            }
+        }
+        return matching.isEmpty() ? EMPTY : serialize(matching);
+    }
+
+    private static DocSnapshot serialize(Object value) {
+        try {
+            return DocSnapshot.of(APIDoc.writer().writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private record SliceKey(String group, Method method, String role) {
+
+        boolean matches(Endpoint endpoint) {
+            return (group == null || group.equals(endpoint.getGroup()))
+                    && (method == null || method == endpoint.getMethod())
+                    && (role == null || endpoint.getRoles() != null
+                    && (endpoint.getRoles().contains(role) || endpoint.getRoles().contains("any")));
+        }
+    }
+}
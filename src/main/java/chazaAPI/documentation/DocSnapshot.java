@@ -0,0 +1,243 @@
+package chazaAPI.documentation;
+
+import chazaAPI.exceptions.ChazaAPIException;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An immutable, pre-serialized JSON document that is ready to be written to HTTP clients.
+ * <p>
+ * The document is serialized once, compressed once with gzip and deflate, and tagged with
+ * a strong ETag derived from a SHA-256 hash of its content. Serving it is then a matter of
+ * picking the right byte array for the client's {@code Accept-Encoding} header, or replying
+ * {@code 304 Not Modified} when the client already holds the current version.
+ * </p>
+ */
+public final class DocSnapshot {
+
+    private static final String JSON = "application/json";
+
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final byte[] deflate;
+    private final String etag;
+
+    private DocSnapshot(byte[] identity) {
+        this.identity = identity;
+        this.gzip = gzip(identity);
+        this.deflate = deflate(identity);
+        this.etag = hash(identity);
+    }
+
+    /**
+     * Creates a snapshot of the given UTF-8 encoded JSON document.
+     * The array is copied, so later changes to it do not affect the snapshot.
+     *
+     * @param json the serialized JSON document
+     * @return a new snapshot of the document
+     */
+    public static DocSnapshot of(byte[] json) {
+        return new DocSnapshot(json.clone());
+    }
+
+    /**
+     * Creates a snapshot of the pretty-printed JSON form of the given documentation,
+     * streamed straight into the snapshot's buffer.
+     *
+     * @param doc the documentation to serialize
+     * @return a new snapshot of the document
+     * @throws ChazaAPIException if validation fails (required fields are null)
+     */
+    public static DocSnapshot of(APIDoc doc) throws ChazaAPIException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try {
+            doc.writeTo(out, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new DocSnapshot(out.toByteArray());
+    }
+
+    /**
+     * Creates a snapshot of the given JSON document.
+     *
+     * @param json the serialized JSON document
+     * @return a new snapshot of the document
+     */
+    public static DocSnapshot of(String json) {
+        return new DocSnapshot(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return a copy of the uncompressed JSON bytes
+     */
+    public byte[] getBytes() {
+        return identity.clone();
+    }
+
+    /**
+     * @return the uncompressed JSON document as a string
+     */
+    public String asString() {
+        return new String(identity, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the quoted, strong entity tag of the uncompressed document
+     */
+    public String getEtag() {
+        return "\"" + etag + "\"";
+    }
+
+    /**
+     * Writes this snapshot to the given request context.
+     * <p>
+     * Clients whose {@code If-None-Match} header matches the current ETag receive an empty
+     * {@code 304 Not Modified}. Everyone else receives the gzip, deflate or identity bytes,
+     * depending on what their {@code Accept-Encoding} header allows.
+     * </p>
+     *
+     * @param ctx the Javalin request context
+     */
+    public void serve(Context ctx) {
+        String encoding = negotiate(ctx.header("Accept-Encoding"));
+        String tag = encoding == null ? getEtag() : "\"" + etag + "-" + encoding + "\"";
+
+        ctx.header("Vary", "Accept-Encoding");
+        ctx.header("ETag", tag);
+
+        if (matches(ctx.header("If-None-Match"))) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+
+        ctx.contentType(JSON);
+        if (encoding == null) {
+            ctx.result(identity);
+        } else {
+            ctx.header("Content-Encoding", encoding);
+            ctx.result(encoding.equals("gzip") ? gzip : deflate);
+        }
+    }
+
+    /**
+     * Picks the preferred encoding the client accepts, favouring gzip over deflate.
+     * A {@code *} stands for any coding the header does not refuse with {@code q=0}.
+     *
+     * @param acceptEncoding the raw Accept-Encoding header, may be null
+     * @return "gzip", "deflate" or null for the identity encoding
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        boolean gzipAccepted = false;
+        boolean deflateAccepted = false;
+        boolean anyAccepted = false;
+        Set<String> refused = new HashSet<>();
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            if (tokens.length > 1 && isZeroQuality(tokens[1])) {
+                refused.add(coding);
+                continue;
+            }
+            switch (coding) {
+                case "gzip" -> gzipAccepted = true;
+                case "deflate" -> deflateAccepted = true;
+                case "*" -> anyAccepted = true;
+                default -> {
+                }
+            }
+        }
+        if (!refused.contains("gzip") && (gzipAccepted || anyAccepted)) {
+            return "gzip";
+        }
+        if (!refused.contains("deflate") && (deflateAccepted || anyAccepted)) {
+            return "deflate";
+        }
+        return null;
+    }
+
+    /**
+     * Checks an If-None-Match header against every representation of this snapshot.
+     * All representations carry the same content, so a tag for any of them is a match.
+     */
+    private boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(getEtag())
+                    || tag.equals("\"" + etag + "-gzip\"")
+                    || tag.equals("\"" + etag + "-deflate\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String parameter) {
+        String param = parameter.trim();
+        if (!param.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(param.substring(2)) == 0.0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream df = new DeflaterOutputStream(out, deflater)) {
+            df.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package chazaAPI.documentation;
+
+import chazaAPI.exceptions.ChazaAPIException;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One published version of the documentation: the model and every serialized form of it.
+ *
+ * <p>States are built completely before they are published and never change afterwards, so a
+ * request that read the current state sees a consistent document for as long as it needs it,
+ * whatever regeneration happens meanwhile. {@link #generation()} orders states, so a slow
+ * regeneration cannot overwrite the result of a newer one.</p>
+ *
+ * <p>States patched from a previous one only serialize the groups that changed; the full
+ * document is then serialized the first time somebody asks for it.</p>
+ */
+final class DocState {
+
+    /**
+     * The state before anything was generated.
+     */
+    static final DocState EMPTY = new DocState(0, null, null, null, null);
+
+    private final long generation;
+    private final APIDoc doc;
+    private final DocSlices slices;
+    private final ChazaAPIException error;
+    private volatile DocSnapshot snapshot;
+
+    private DocState(long generation, APIDoc doc, DocSnapshot snapshot, DocSlices slices, ChazaAPIException error) {
+        this.generation = generation;
+        this.doc = doc;
+        this.snapshot = snapshot;
+        this.slices = slices;
+        this.error = error;
+    }
+
+    /**
+     * Builds and serializes the documentation for the given API information and endpoints.
+     */
+    static DocState build(long generation, ApiInfo apiInfo, List<Endpoint> endpoints) {
+        APIDoc doc = new APIDoc(apiInfo, endpoints == null ? null : List.copyOf(endpoints));
+        try {
+            return new DocState(generation, doc, DocSnapshot.of(doc), new DocSlices(doc), null);
+        } catch (ChazaAPIException e) {
+            return new DocState(generation, doc, null, null, e);
+        }
+    }
+
+    /**
+     * Wraps documentation that was serialized at build time, keeping its exact bytes.
+     */
+    static DocState prebuilt(long generation, APIDoc doc, byte[] json) {
+        return new DocState(generation, doc, DocSnapshot.of(json), new DocSlices(doc), null);
+    }
+
+    /**
+     * Derives a state from this one in which only some endpoints changed. Only the changed
+     * endpoints are validated and only their groups are serialized again.
+     *
+     * @param generation    the generation of the new state
+     * @param endpoints     all endpoints of the new state
+     * @param changed       the endpoints that are new or different
+     * @param changedGroups the groups that gained, lost or changed endpoints
+     * @return the new state; a full build if this state cannot be patched
+     */
+    DocState patch(long generation, List<Endpoint> endpoints, List<Endpoint> changed, Set<String> changedGroups) {
+        if (slices == null) {
+            return build(generation, doc == null ? null : doc.getApiInfo(), endpoints);
+        }
+        APIDoc patched = new APIDoc(doc.getApiInfo(), List.copyOf(endpoints));
+        try {
+            for (Endpoint endpoint : changed) {
+                APIDoc.validate(endpoint);
+            }
+        } catch (ChazaAPIException e) {
+            return new DocState(generation, patched, null, null, e);
+        }
+        return new DocState(generation, patched, null, slices.patch(patched, changedGroups), null);
+    }
+
+    /**
+     * Reports a failure without touching the documentation that was valid before it.
+     */
+    DocState failed(long generation, ChazaAPIException failure) {
+        return new DocState(generation, doc, null, null, failure);
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    APIDoc doc() {
+        return doc;
+    }
+
+    DocSlices slices() {
+        return slices;
+    }
+
+    ChazaAPIException error() {
+        return error;
+    }
+
+    /**
+     * @return the full document, serialized on first use for patched states; null if there is none
+     */
+    DocSnapshot snapshot() {
+        DocSnapshot current = snapshot;
+        if (current == null && slices != null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    try {
+                        current = DocSnapshot.of(doc);
+                    } catch (ChazaAPIException e) {
+                        throw new IllegalStateException("Patched documentation failed validation", e);
+                    }
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * @return this state if it can be served
+     * @throws ChazaAPIException the validation failure, or a failure saying nothing was generated yet
+     */
+    DocState servable() throws ChazaAPIException {
+        if (error != null) {
+            throw error;
+        }
+        if (slices == null) {
+            throw new ChazaAPIException("Documentation has not been generated");
+        }
+        return this;
+    }
+
+    /**
+     * @return whichever of the two states was generated last
+     */
+    static DocState newer(DocState current, DocState candidate) {
+        return candidate.generation() > current.generation() ? candidate : current;
+    }
+}
@@ -0,0 +1,266 @@
+package chazaAPI.documentation;
+
+import chazaAPI.bytecode.BytecodeScanner;
+import chazaAPI.exceptions.ChazaAPIException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Keeps the documentation of an {@link APIDisplay} in step with class files that change on disk.
+ *
+ * <p>The watcher remembers the endpoints of every controller and which DTO classes each one was
+ * built from. When class files change, only the controllers that are new, gone, or depend on a
+ * changed class are read again, with {@link BytecodeScanner}, and only the groups they touch are
+ * serialized again; the package is only listed again when events were lost. The full document is
+ * serialized lazily, the first time it is requested. A class file that cannot be read, such as
+ * one the compiler is still writing, is reported as a failure until a later change fixes it.</p>
+ *
+ * <p>Class directories are watched with a {@link WatchService}; jars are not watched. Bursts of
+ * changes, such as a compiler rewriting many class files, are collected until the directories
+ * have been quiet for {@value #QUIET_MILLIS} milliseconds and then applied as one update.</p>
+ */
+public final class DocWatcher implements AutoCloseable {
+
+    static final long QUIET_MILLIS = 200;
+
+    private final APIDisplay display;
+    private final String basePackage;
+    private final ClassLoader classLoader;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final List<Path> roots = new ArrayList<>();
+    private final Thread thread;
+
+    /**
+     * Endpoints and dependencies per controller, by binary name; only touched by the watcher thread after start.
+     */
+    private final Map<String, Scanned> controllers = new TreeMap<>();
+
+    /**
+     * Shared by every rescan, so rescanned endpoints share metadata with the ones that stayed.
+     */
+    private final MetadataPool metadata = new MetadataPool();
+
+    private record Scanned(List<Endpoint> endpoints, Set<String> dependencies) {
+    }
+
+    DocWatcher(APIDisplay display, String basePackage, ClassLoader classLoader) throws ChazaAPIException {
+        this.display = display;
+        this.basePackage = basePackage;
+        this.classLoader = classLoader;
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            for (Path root : classRoots()) {
+                roots.add(root);
+                registerTree(root);
+            }
+        } catch (IOException e) {
+            throw new ChazaAPIException("Unable to watch the classes of " + basePackage + ": " + e.getMessage());
+        }
+
+        BytecodeScanner scanner = new BytecodeScanner(classLoader, metadata);
+        List<Endpoint> all = new ArrayList<>();
+        for (String controller : scanner.findControllers(basePackage)) {
+            Scanned scanned = new Scanned(scanner.scan(List.of(controller)), scanner.dependenciesOf(controller));
+            controllers.put(controller, scanned);
+        }
+        controllers.values().forEach(scanned -> all.addAll(scanned.endpoints()));
+        display.setEndpoints(all);
+        display.publish(DocState.build(display.nextGeneration(), display.getApiInfo(), all));
+
+        this.thread = Thread.ofPlatform().daemon().name("chaza-doc-watcher").start(this::run);
+    }
+
+    /**
+     * @return the class directories being watched
+     */
+    public List<Path> getRoots() {
+        return List.copyOf(roots);
+    }
+
+    /**
+     * Stops watching. The documentation stays as it was last updated.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> changed = new TreeSet<>();
+                WatchKey key = watchService.take();
+                // collect until quiet, so a recompilation becomes one update
+                while (key != null) {
+                    collect(key, changed);
+                    key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!changed.isEmpty()) {
+                    apply(changed);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void collect(WatchKey key, Set<String> changed) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                // events were lost, so everything may have changed
+                changed.addAll(controllers.keySet());
+                changed.add("");
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(file)) {
+                try {
+                    registerTree(file);
+                    try (Stream<Path> files = Files.walk(file)) {
+                        files.forEach(path -> addClass(path, changed));
+                    }
+                } catch (IOException e) {
+                    // the directory vanished again
+                }
+            } else {
+                addClass(file, changed);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void addClass(Path file, Set<String> changed) {
+        String fileName = file.getFileName().toString();
+        if (!fileName.endsWith(".class")) {
+            return;
+        }
+        for (Path root : roots) {
+            if (file.startsWith(root)) {
+                String relative = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), ".");
+                changed.add(relative.substring(0, relative.length() - ".class".length()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rescans the controllers affected by the changed classes and publishes the patched documentation.
+     */
+    void apply(Set<String> changedClasses) {
+        BytecodeScanner scanner = new BytecodeScanner(classLoader, metadata);
+        String prefix = basePackage == null || basePackage.isEmpty() ? "" : basePackage + ".";
+
+        Set<String> affected = new TreeSet<>();
+        try {
+            if (changedClasses.contains("")) {
+                // events were lost, so only listing the package tells which controllers exist
+                affected.addAll(scanner.findControllers(basePackage));
+            }
+            for (String name : changedClasses) {
+                if (controllers.containsKey(name) || (!name.isEmpty() && name.startsWith(prefix))) {
+                    affected.add(name);
+                }
+            }
+            controllers.forEach((controller, scanned) -> {
+                if (!Collections.disjoint(scanned.dependencies(), changedClasses)) {
+                    affected.add(controller);
+                }
+            });
+
+            Set<String> changedGroups = new HashSet<>();
+            List<Endpoint> changedEndpoints = new ArrayList<>();
+            Map<String, Scanned> updates = new HashMap<>();
+            for (String controller : affected) {
+                Scanned previous = controllers.get(controller);
+                if (previous != null) {
+                    previous.endpoints().forEach(endpoint -> changedGroups.add(endpoint.getGroup()));
+                }
+                if (scanner.isController(controller)) {
+                    Scanned scanned = new Scanned(scanner.scan(List.of(controller)), scanner.dependenciesOf(controller));
+                    scanned.endpoints().forEach(endpoint -> changedGroups.add(endpoint.getGroup()));
+                    changedEndpoints.addAll(scanned.endpoints());
+                    updates.put(controller, scanned);
+                } else if (previous != null) {
+                    updates.put(controller, null);
+                }
+            }
+            if (updates.isEmpty() && display.currentState().error() == null) {
+                return;
+            }
+
+            updates.forEach((controller, scanned) -> {
+                if (scanned == null) {
+                    controllers.remove(controller);
+                } else {
+                    controllers.put(controller, scanned);
+                }
+            });
+            List<Endpoint> all = new ArrayList<>();
+            controllers.values().forEach(scanned -> all.addAll(scanned.endpoints()));
+            display.setEndpoints(all);
+            display.publish(display.currentState().patch(display.nextGeneration(), all, changedEndpoints, changedGroups));
+        } catch (ChazaAPIException e) {
+            // keep the last good model, and report the mistake until it is fixed
+            display.publish(display.currentState().failed(display.nextGeneration(), e));
+        } catch (RuntimeException e) {
+            // a class file read while it is still being written; a later change event brings it again
+            display.publish(display.currentState().failed(display.nextGeneration(),
+                    new ChazaAPIException("Unable to rescan " + affected + ": " + e)));
+        }
+    }
+
+    private List<Path> classRoots() throws IOException {
+        String packagePath = basePackage == null || basePackage.isEmpty() ? "" : basePackage.replace('.', '/');
+        int depth = packagePath.isEmpty() ? 0 : packagePath.split("/").length;
+        List<Path> found = new ArrayList<>();
+        Enumeration<URL> resources = classLoader.getResources(packagePath);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            if (!url.getProtocol().equals("file")) {
+                continue;
+            }
+            try {
+                Path root = Path.of(url.toURI());
+                for (int i = 0; i < depth; i++) {
+                    root = root.getParent();
+                }
+                found.add(root);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        if (found.isEmpty()) {
+            throw new IOException("no class directory holds package " + basePackage);
+        }
+        return found;
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (Stream<Path> tree = Files.walk(root)) {
+            for (Path directory : tree.filter(Files::isDirectory).toList()) {
+                directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+            }
+        }
+    }
+}
@@ -2,12 +2,15 @@ package chazaAPI.documentation;
 
 import chazaAPI.annotations.*;
 import chazaAPI.reflection.ReflectionUtils;
+import chazaAPI.schema.Schema;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import chazaAPI.exceptions.ChazaAPIException;
 import lombok.Data;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Represents an API endpoint definition.
@@ -31,21 +34,21 @@ public class Endpoint {
     /**
      * The request payload structure.
      *
-     * This map represents the fields expected in the request body,
-     * where each key is the field name and the value is either
+     * This schema describes the fields expected in the request body.
+     * Seen as a map, each key is the field name and the value is either
      * the simple type name or a nested map for complex objects.
      * Recursive extraction is supported for complex DTO classes.
      */
-    private Map<String, Object> request;
+    private Schema.ObjectType request;
 
     /**
      * The response payload structure.
      *
-     * This map represents the fields provided in the response body,
-     * similarly structured as the request map, supporting
+     * This schema describes the fields provided in the response body,
+     * similarly structured as the request schema, supporting
      * recursive extraction for nested complex types.
      */
-    private Map<String, Object> response;
+    private Schema.ObjectType response;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Map<String, Object> headers;
@@ -57,6 +60,59 @@ public class Endpoint {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> roles = List.of("any");
 
+    /**
+     * Target for the 99th percentile latency, in milliseconds, or null if the endpoint has none.
+     */
+    private Integer latencyBudgetMs;
+
+    /**
+     * How responses may be cached, or null if the endpoint is not cached.
+     */
+    private CachePolicy cache;
+
+    /**
+     * Rate limits by role, {@code any} standing for the roles without a limit of their own, or null if the endpoint has none.
+     */
+    private Map<String, RateLimitPolicy> rateLimits;
+
+    /**
+     * How many requests of the endpoint's group are handled at once, or null if there is no limit.
+     */
+    private BulkheadPolicy bulkhead;
+
+    /**
+     * How the responses of a GET endpoint are cached.
+     *
+     * @param ttlSeconds how long a response may be served from the cache, in seconds
+     * @param varyBy     the request headers that are part of the cache key
+     * @param maxEntries the most responses kept for the endpoint, or null for no limit besides the group's memory
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public record CachePolicy(int ttlSeconds, List<String> varyBy, Integer maxEntries) {
+
+        public CachePolicy {
+            varyBy = varyBy == null ? List.of() : List.copyOf(varyBy);
+        }
+    }
+
+    /**
+     * A rate limit on the requests of one role.
+     *
+     * @param perSecond the requests allowed per second, on average
+     * @param burst     the requests allowed at once after a quiet period
+     */
+    public record RateLimitPolicy(double perSecond, int burst) {
+    }
+
+    /**
+     * A limit on the requests of a group in flight at once.
+     *
+     * @param maxConcurrent the most requests handled at once
+     * @param maxQueued     the most requests waiting for a slot once all are taken
+     */
+    public record BulkheadPolicy(int maxConcurrent, int maxQueued) {
+    }
+
     /**
      * Default constructor. Initializes internal maps.
      */
@@ -81,7 +137,29 @@ public class Endpoint {
                 Objects.equals(statusCodes, endpoint.statusCodes) &&
                 Objects.equals(roles, endpoint.roles) &&
                 Objects.equals(contentType, endpoint.contentType) &&
-                Objects.equals(accept, endpoint.accept);
+                Objects.equals(accept, endpoint.accept) &&
+                Objects.equals(latencyBudgetMs, endpoint.latencyBudgetMs) &&
+                Objects.equals(cache, endpoint.cache) &&
+                Objects.equals(rateLimits, endpoint.rateLimits) &&
+                Objects.equals(bulkhead, endpoint.bulkhead);
+    }
+
+    /**
+     * Sets the request payload structure.
+     *
+     * @param request a schema, or a map tree of the same shape, e.g. read back from JSON
+     */
+    public void setRequest(Map<String, ?> request) {
+        this.request = request == null ? null : Schema.of(request);
+    }
+
+    /**
+     * Sets the response payload structure.
+     *
+     * @param response a schema, or a map tree of the same shape, e.g. read back from JSON
+     */
+    public void setResponse(Map<String, ?> response) {
+        this.response = response == null ? null : Schema.of(response);
     }
 
     /**
@@ -89,7 +167,7 @@ public class Endpoint {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(group, method, url, description, request, response, headers, statusCodes, roles);
+        return Objects.hash(group, method, url, description, request, response, headers, statusCodes, roles, latencyBudgetMs, cache, rateLimits, bulkhead);
     }
 
     /**
@@ -106,10 +184,39 @@ public class Endpoint {
      * @throws ChazaAPIException if annotation constraints are violated or invalid
      */
     public static Endpoint fromAnnotation(EndPoint endPoint, Chaza chaza, java.lang.reflect.Method method) throws ChazaAPIException {
+        return fromAnnotation(endPoint, chaza, method.getName());
+    }
+
+    /**
+     * Builds an Endpoint instance from the provided EndPoint annotation, for callers that
+     * read annotations without a {@link java.lang.reflect.Method} at hand.
+     *
+     * @param endPoint   the EndPoint annotation to read from
+     * @param chaza      the Chaza annotation on the controller class
+     * @param methodName the name of the annotated method, used in error messages
+     * @return the resulting Endpoint object
+     * @throws ChazaAPIException if annotation constraints are violated or invalid
+     */
+    public static Endpoint fromAnnotation(EndPoint endPoint, Chaza chaza, String methodName) throws ChazaAPIException {
+        return fromAnnotation(endPoint, chaza, methodName, new MetadataPool());
+    }
+
+    /**
+     * Builds an Endpoint instance from the provided EndPoint annotation, sharing its headers,
+     * status codes, roles and media types with the other endpoints built from the same pool.
+     *
+     * @param endPoint   the EndPoint annotation to read from
+     * @param chaza      the Chaza annotation on the controller class
+     * @param methodName the name of the annotated method, used in error messages
+     * @param pool       the pool of the scan this endpoint belongs to
+     * @return the resulting Endpoint object; its headers, status codes and roles are unmodifiable
+     * @throws ChazaAPIException if annotation constraints are violated or invalid
+     */
+    public static Endpoint fromAnnotation(EndPoint endPoint, Chaza chaza, String methodName, MetadataPool pool) throws ChazaAPIException {
         Endpoint endpoint = new Endpoint();
 
         // Set group: prefer @EndPoint.group over @Chaza.group
-        endpoint.setGroup(endPoint.group().isEmpty() ? chaza.group() : endPoint.group());
+        endpoint.setGroup(pool.string(endPoint.group().isEmpty() ? chaza.group() : endPoint.group()));
 
         // Set HTTP method
         endpoint.setMethod(endPoint.method());
@@ -122,73 +229,119 @@ public class Endpoint {
         endpoint.setDescription(endPoint.description());
 
         // Set accepted media type: prefer @EndPoint.accept over @Chaza.accept
-        endpoint.setAccept(endPoint.accept().isEmpty() ? chaza.accept() : endPoint.accept());
+        endpoint.setAccept(pool.string(endPoint.accept().isEmpty() ? chaza.accept() : endPoint.accept()));
 
         // Set content type: prefer @EndPoint.contentType over @Chaza.contentType
-        endpoint.setContentType(endPoint.contentType().isEmpty() ? chaza.contentType() : endPoint.contentType());
+        endpoint.setContentType(pool.string(endPoint.contentType().isEmpty() ? chaza.contentType() : endPoint.contentType()));
 
         // Set roles : prefer @EndPoint.roles() over @Chaza.roles(
         if (endPoint.roles().length == 0) {
-            endpoint.setRoles(Arrays.asList(chaza.roles()));
+            endpoint.setRoles(pool.roles(Arrays.asList(chaza.roles())));
         } else {
-            endpoint.setRoles(List.of(endPoint.roles()));
+            endpoint.setRoles(pool.roles(List.of(endPoint.roles())));
         }
 
-        // Set headers
-        if (endPoint.headers().length > 0) {
-            Map<String, Object> headersMap = new HashMap<>();
-            for (Header header : endPoint.headers()) {
-                headersMap.put(header.name(), header.value());
+        // Set latency budget: prefer @EndPoint.latencyBudgetMs over @Chaza.latencyBudgetMs
+        if (endPoint.latencyBudgetMs() < 0 || chaza.latencyBudgetMs() < 0) {
+            throw new ChazaAPIException("latencyBudgetMs cannot be negative -> " + methodName);
+        }
+        int latencyBudgetMs = endPoint.latencyBudgetMs() > 0 ? endPoint.latencyBudgetMs() : chaza.latencyBudgetMs();
+        if (latencyBudgetMs > 0) {
+            endpoint.setLatencyBudgetMs(latencyBudgetMs);
+        }
+
+        // Set cache policy: only GET responses are cached
+        if (endPoint.cacheTtlSeconds() < 0 || endPoint.cacheMaxEntries() < 0) {
+            throw new ChazaAPIException("cacheTtlSeconds and cacheMaxEntries cannot be negative -> " + methodName);
+        }
+        if (endPoint.cacheTtlSeconds() > 0) {
+            if (endPoint.method() != Method.GET) {
+                throw new ChazaAPIException("Only GET endpoints can be cached -> " + methodName);
+            }
+            endpoint.setCache(new CachePolicy(endPoint.cacheTtlSeconds(), List.of(endPoint.cacheVaryBy()),
+                    endPoint.cacheMaxEntries() > 0 ? endPoint.cacheMaxEntries() : null));
+        } else if (endPoint.cacheVaryBy().length > 0 || endPoint.cacheMaxEntries() > 0) {
+            throw new ChazaAPIException("cacheVaryBy and cacheMaxEntries need a cacheTtlSeconds -> " + methodName);
+        }
+
+        // Set rate limits: prefer @EndPoint.rateLimits over @Chaza.rateLimits
+        RateLimit[] rateLimits = endPoint.rateLimits().length > 0 ? endPoint.rateLimits() : chaza.rateLimits();
+        if (rateLimits.length > 0) {
+            Map<String, RateLimitPolicy> rateLimitsMap = new TreeMap<>();
+            for (RateLimit rateLimit : rateLimits) {
+                String role = rateLimit.role().isEmpty() ? "any" : rateLimit.role();
+                if (!(rateLimit.perSecond() > 0) || rateLimit.burst() < 0) {
+                    throw new ChazaAPIException("Rate limit of role " + role + " must allow a positive rate and burst -> " + methodName);
+                }
+                if (!role.equals("any") && !endpoint.getRoles().contains("any") && !endpoint.getRoles().contains(role)) {
+                    throw new ChazaAPIException("Rate limit for role " + role + " which the endpoint does not allow -> " + methodName);
+                }
+                int burst = rateLimit.burst() > 0 ? rateLimit.burst() : (int) Math.max(1, Math.ceil(rateLimit.perSecond()));
+                if (rateLimitsMap.put(pool.string(role), new RateLimitPolicy(rateLimit.perSecond(), burst)) != null) {
+                    throw new ChazaAPIException("More than one rate limit for role " + role + " -> " + methodName);
+                }
             }
-            endpoint.setHeaders(headersMap);
+            endpoint.setRateLimits(Collections.unmodifiableMap(rateLimitsMap));
+        }
+
+        // Set bulkhead: prefer @EndPoint.bulkhead over @Chaza.bulkhead
+        if (endPoint.bulkhead() < 0 || endPoint.bulkheadQueue() < 0 || chaza.bulkhead() < 0 || chaza.bulkheadQueue() < 0) {
+            throw new ChazaAPIException("bulkhead and bulkheadQueue cannot be negative -> " + methodName);
+        }
+        if ((endPoint.bulkheadQueue() > 0 && endPoint.bulkhead() == 0) || (chaza.bulkheadQueue() > 0 && chaza.bulkhead() == 0)) {
+            throw new ChazaAPIException("bulkheadQueue needs a bulkhead -> " + methodName);
+        }
+        if (endPoint.bulkhead() > 0) {
+            endpoint.setBulkhead(new BulkheadPolicy(endPoint.bulkhead(), endPoint.bulkheadQueue()));
+        } else if (chaza.bulkhead() > 0) {
+            endpoint.setBulkhead(new BulkheadPolicy(chaza.bulkhead(), chaza.bulkheadQueue()));
         }
 
+        // Set headers
+        Map<String, Object> headersMap = new HashMap<>();
+        for (Header header : endPoint.headers()) {
+            headersMap.put(pool.string(header.name()), pool.string(header.value()));
+        }
+        endpoint.setHeaders(pool.headers(headersMap));
+
         // Ensure the requestFields and requestDTO are not both set at the same place
         if (endPoint.requestFields().length > 0 && endPoint.requestDTO() != void.class) {
-            throw new ChazaAPIException("Cannot use both requestFields and requestDTO; please use one method -> " + method.getName());
+            throw new ChazaAPIException("Cannot use both requestFields and requestDTO; please use one method -> " + methodName);
         }
 
         // Set request fields
         if (endPoint.requestFields().length > 0) {
             Map<String, Object> requestMap = new HashMap<>();
             for (Field field : endPoint.requestFields()) {
-                Map<String, String> fieldInfo = new HashMap<>();
-                fieldInfo.put("type", field.type());
-                requestMap.put(field.name(), fieldInfo);
+                requestMap.put(field.name(), pool.field(field.type()));
             }
             endpoint.setRequest(requestMap);
         } else if (endPoint.requestDTO() != void.class) {
-            Map<String, Object> requestMap = ReflectionUtils.getFieldsRecursive(endPoint.requestDTO(), new HashSet<>());
-            endpoint.setRequest(requestMap);
+            endpoint.setRequest(ReflectionUtils.getFieldsRecursive(endPoint.requestDTO()));
         }
 
         //Ensure the responseFields and responseDTO are not both set at same place
         if (endPoint.responseFields().length > 0 && endPoint.responseDTO() != void.class) {
-            throw new ChazaAPIException("Cannot use both responseFields and responseDTO; please use one method -> " + method.getName());
+            throw new ChazaAPIException("Cannot use both responseFields and responseDTO; please use one method -> " + methodName);
         }
 
         // Set response fields
         if (endPoint.responseFields().length > 0) {
             Map<String, Object> responseMap = new HashMap<>();
             for (Field field : endPoint.responseFields()) {
-                Map<String, String> fieldInfo = new HashMap<>();
-                fieldInfo.put("type", field.type());
-                responseMap.put(field.name(), fieldInfo);
+                responseMap.put(field.name(), pool.field(field.type()));
             }
             endpoint.setResponse(responseMap);
         } else if (endPoint.responseDTO() != void.class) {
-            Map<String, Object> responseMap = ReflectionUtils.getFieldsRecursive(endPoint.responseDTO(), new HashSet<>());
-            endpoint.setResponse(responseMap);
+            endpoint.setResponse(ReflectionUtils.getFieldsRecursive(endPoint.responseDTO()));
         }
 
         // Set status codes
-        if (endPoint.statusCodes().length > 0) {
-            Map<String, String> statusCodesMap = new HashMap<>();
-            for (Status sc : endPoint.statusCodes()) {
-                statusCodesMap.put(String.valueOf(sc.code()), sc.description());
-            }
-            endpoint.setStatusCodes(statusCodesMap);
+        Map<String, String> statusCodesMap = new HashMap<>();
+        for (Status sc : endPoint.statusCodes()) {
+            statusCodesMap.put(pool.string(String.valueOf(sc.code())), pool.string(sc.description()));
         }
+        endpoint.setStatusCodes(pool.statusCodes(statusCodesMap));
 
         return endpoint;
     }
@@ -206,6 +359,7 @@ public class Endpoint {
      */
     public static List<Endpoint> scan(List<Class<?>> controllers) throws ChazaAPIException {
         List<Endpoint> endpoints = new ArrayList<>();
+        MetadataPool pool = new MetadataPool();
 
         for (Class<?> controllerClass : controllers) {
             if (!controllerClass.isAnnotationPresent(Chaza.class)) {
@@ -215,7 +369,7 @@ public class Endpoint {
             for (java.lang.reflect.Method method : controllerClass.getDeclaredMethods()) {
                 EndPoint annotation = method.getAnnotation(EndPoint.class);
                 if (annotation != null) {
-                    Endpoint endpoint = Endpoint.fromAnnotation(annotation, controllerClass.getAnnotation(Chaza.class), method);
+                    Endpoint endpoint = Endpoint.fromAnnotation(annotation, controllerClass.getAnnotation(Chaza.class), method.getName(), pool);
                     endpoints.add(endpoint);
                 }
             }
@@ -223,4 +377,94 @@ public class Endpoint {
 
         return endpoints;
     }
+
+    /**
+     * Scans a list of controller classes for annotated endpoints, spreading the work
+     * across the given fork/join pool.
+     *
+     * The result is identical to {@link #scan(List)}: endpoints come back in controller
+     * and method order, and if anything is misconfigured the exception thrown is the one
+     * the sequential scan would have hit first.
+     *
+     * @param controllers a list of controller classes to scan
+     * @param pool the pool that builds the endpoints
+     * @return a list of extracted Endpoint objects
+     * @throws ChazaAPIException if a class is not annotated with Chaza or an endpoint is invalid
+     */
+    public static List<Endpoint> scan(List<Class<?>> controllers, ForkJoinPool pool) throws ChazaAPIException {
+        // Cheap sequential pass to fix the output order; a missing @Chaza is recorded
+        // in place so that it is reported in the same order as in the sequential scan.
+        List<Object> units = new ArrayList<>();
+        for (Class<?> controllerClass : controllers) {
+            Chaza chaza = controllerClass.getAnnotation(Chaza.class);
+            if (chaza == null) {
+                units.add(new ChazaAPIException("class " + controllerClass.getName() + " is not annotated with @Chaza"));
+                break;
+            }
+            for (java.lang.reflect.Method method : controllerClass.getDeclaredMethods()) {
+                EndPoint annotation = method.getAnnotation(EndPoint.class);
+                if (annotation != null) {
+                    units.add(new ScanUnit(annotation, chaza, method));
+                }
+            }
+        }
+
+        Object[] results = new Object[units.size()];
+        pool.invoke(new ScanTask(units, results, new MetadataPool(), 0, units.size()));
+
+        List<Endpoint> endpoints = new ArrayList<>(results.length);
+        for (Object result : results) {
+            if (result instanceof ChazaAPIException e) {
+                throw e;
+            }
+            endpoints.add((Endpoint) result);
+        }
+        return endpoints;
+    }
+
+    private record ScanUnit(EndPoint endPoint, Chaza chaza, java.lang.reflect.Method method) {
+    }
+
+    /**
+     * Builds the endpoints of a slice of scan units, splitting the slice in half until it is small enough.
+     */
+    private static final class ScanTask extends RecursiveAction {
+
+        private static final int THRESHOLD = 8;
+
+        private final List<Object> units;
+        private final Object[] results;
+        private final MetadataPool metadata;
+        private final int from;
+        private final int to;
+
+        ScanTask(List<Object> units, Object[] results, MetadataPool metadata, int from, int to) {
+            this.units = units;
+            this.results = results;
+            this.metadata = metadata;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanTask(units, results, metadata, from, middle), new ScanTask(units, results, metadata, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                Object unit = units.get(i);
+                if (unit instanceof ScanUnit scanUnit) {
+                    try {
+                        results[i] = fromAnnotation(scanUnit.endPoint(), scanUnit.chaza(), scanUnit.method().getName(), metadata);
+                    } catch (ChazaAPIException e) {
+                        results[i] = e;
+                    }
+                } else {
+                    results[i] = unit;
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package chazaAPI.documentation;
+
+import chazaAPI.schema.Schema;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares equal endpoint metadata between endpoints.
+ *
+ * <p>Across a large API most endpoints carry the same headers, the same status codes, the same
+ * roles and the same media types, yet every endpoint built from annotations used to get its own
+ * copies. A scan hands all its endpoints one pool, which keeps a single immutable instance of
+ * each distinct value, so memory grows with the number of distinct values rather than with the
+ * number of endpoints.</p>
+ *
+ * <p>Pools are thread-safe, so a parallel scan can share one. Values handed out are unmodifiable.</p>
+ */
+public final class MetadataPool {
+
+    private final Map<Object, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * @return the pooled copy of the string, or null for null
+     */
+    public String string(String value) {
+        return value == null ? null : canonical(value);
+    }
+
+    /**
+     * @param headers header names and values; the pool may keep the map, so it must not change afterwards
+     * @return an unmodifiable map equal to the argument
+     */
+    public Map<String, Object> headers(Map<String, Object> headers) {
+        return map(headers);
+    }
+
+    /**
+     * @param statusCodes status codes and their descriptions; the pool may keep the map, so it must not change afterwards
+     * @return an unmodifiable map equal to the argument
+     */
+    public Map<String, String> statusCodes(Map<String, String> statusCodes) {
+        return map(statusCodes);
+    }
+
+    /**
+     * @return an unmodifiable list equal to the roles, with pooled strings
+     */
+    public List<String> roles(List<String> roles) {
+        if (roles == null) {
+            return null;
+        }
+        return canonical(roles.stream().map(this::string).toList());
+    }
+
+    /**
+     * @return the {@code {"type": type}} node that describes a field declared in an annotation
+     */
+    public Schema.ObjectType field(String type) {
+        return canonical(new Schema.ObjectType(new String[]{"type"}, new Schema[]{Schema.Primitive.of(string(type))}));
+    }
+
+    /**
+     * @return how many distinct values the pool holds
+     */
+    public int size() {
+        return values.size();
+    }
+
+    private <K, V> Map<K, V> map(Map<K, V> map) {
+        if (map == null) {
+            return null;
+        }
+        Map<K, V> existing = lookup(map);
+        if (existing != null) {
+            return existing;
+        }
+        // keeps the iteration order, and so the JSON, of the first map seen
+        return canonical(Collections.unmodifiableMap(map));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(T value) {
+        return (T) values.get(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T canonical(T value) {
+        return (T) values.computeIfAbsent(value, key -> key);
+    }
+}
@@ -0,0 +1,198 @@
+package chazaAPI.documentation;
+
+import chazaAPI.annotations.EndPoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * On-disk cache of scanned endpoints, keyed by a fingerprint of the controllers' class files.
+ *
+ * <p>The fingerprint is a SHA-256 hash over the class file bytes of every controller and of
+ * every DTO class their schemas were built from. It is computed from class path resources,
+ * so checking the cache never loads a class. When it matches, the stored endpoints are used
+ * as they are; otherwise the caller scans and stores a fresh entry.</p>
+ *
+ * <p>An unreadable, outdated or corrupt cache file is treated as a miss.</p>
+ */
+final class ScanCache {
+
+    /**
+     * Bumped whenever the cached representation of an endpoint changes.
+     */
+    static final int FORMAT = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final byte[] MISSING = {'-'};
+
+    private final Path file;
+
+    ScanCache(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the cached endpoints if they were scanned from exactly these controllers and
+     * none of the recorded class files changed since.
+     *
+     * @param controllers the binary names of the controllers, in scan order
+     * @param classLoader the class loader used to locate class files
+     * @return the cached endpoints, or an empty optional on a miss
+     */
+    Optional<List<Endpoint>> load(List<String> controllers, ClassLoader classLoader) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            Entry entry = MAPPER.readValue(file.toFile(), Entry.class);
+            if (entry.format() != FORMAT || !controllers.equals(entry.controllers()) || entry.endpoints() == null) {
+                return Optional.empty();
+            }
+            String fingerprint = fingerprint(controllers, entry.dependencies(), classLoader);
+            return fingerprint.equals(entry.fingerprint()) ? Optional.of(entry.endpoints()) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the endpoints scanned from the given controllers, replacing any previous entry.
+     *
+     * @param key         the controller names the entry is looked up with
+     * @param controllers the controller classes that were scanned
+     * @param endpoints   the scanned endpoints
+     * @param classLoader the class loader used to locate class files
+     */
+    void store(List<String> key, List<Class<?>> controllers, List<Endpoint> endpoints, ClassLoader classLoader) {
+        store(key, dependencies(controllers), endpoints, classLoader);
+    }
+
+    /**
+     * Writes the endpoints scanned from the given controllers, replacing any previous entry.
+     *
+     * @param key          the controller names the entry is looked up with
+     * @param classesRead  the binary names of the classes the endpoints were built from
+     * @param endpoints    the scanned endpoints
+     * @param classLoader  the class loader used to locate class files
+     */
+    void store(List<String> key, Collection<String> classesRead, List<Endpoint> endpoints, ClassLoader classLoader) {
+        List<String> dependencies = new ArrayList<>(new TreeSet<>(classesRead));
+        dependencies.removeAll(key);
+        try {
+            Entry entry = new Entry(FORMAT, fingerprint(key, dependencies, classLoader), key, dependencies, endpoints);
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                MAPPER.writeValue(temp.toFile(), entry);
+                replace(temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // the cache is only a shortcut; the next start simply scans again
+        }
+    }
+
+    /**
+     * Moves a fully written entry over the cache file, atomically where the file system allows it.
+     */
+    private void replace(Path temp) throws IOException {
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Collects the application classes the endpoint schemas are built from, following the
+     * same fields as {@link chazaAPI.reflection.ReflectionUtils#getFieldsRecursive(Class)}.
+     */
+    static Set<String> dependencies(List<Class<?>> controllers) {
+        Set<String> names = new TreeSet<>();
+        Set<Class<?>> seen = new HashSet<>();
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        for (Class<?> controller : controllers) {
+            for (java.lang.reflect.Method method : controller.getDeclaredMethods()) {
+                EndPoint endPoint = method.getAnnotation(EndPoint.class);
+                if (endPoint != null) {
+                    pending.add(endPoint.requestDTO());
+                    pending.add(endPoint.responseDTO());
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            Class<?> type = pending.pop();
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            // JDK classes live in the boot or platform loader and do not change between restarts
+            if (type.isPrimitive() || type.getClassLoader() == null
+                    || type.getClassLoader() == ClassLoader.getPlatformClassLoader() || !seen.add(type)) {
+                continue;
+            }
+            names.add(type.getName());
+            for (Field field : type.getDeclaredFields()) {
+                pending.add(field.getType());
+                if (field.getGenericType() instanceof ParameterizedType pt) {
+                    for (Type argument : pt.getActualTypeArguments()) {
+                        if (argument instanceof Class<?> argumentClass) {
+                            pending.add(argumentClass);
+                        }
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    static String fingerprint(List<String> controllers, List<String> dependencies, ClassLoader classLoader) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update((byte) FORMAT);
+        for (List<String> names : List.of(controllers, dependencies)) {
+            for (String name : names) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(classBytes(name, classLoader));
+                digest.update((byte) 0);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static byte[] classBytes(String name, ClassLoader classLoader) throws IOException {
+        try (InputStream in = classLoader.getResourceAsStream(name.replace('.', '/') + ".class")) {
+            return in == null ? MISSING : in.readAllBytes();
+        }
+    }
+
+    /**
+     * The serialized form of the cache file.
+     */
+    record Entry(int format, String fingerprint, List<String> controllers, List<String> dependencies,
+                 List<Endpoint> endpoints) {
+    }
+}
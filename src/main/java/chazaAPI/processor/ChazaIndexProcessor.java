@@ -0,0 +1,199 @@
+package chazaAPI.processor;
+
+import chazaAPI.reflection.ControllerIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Annotation processor that writes the {@link ControllerIndex} at compile time.
+ *
+ * <p>Every class annotated with {@code @Chaza} is recorded in
+ * {@value ControllerIndex#LOCATION}, which lets {@code APIDisplay.scanEndPoints(String)}
+ * find controllers without scanning the classpath at startup. While it is at it, the processor
+ * checks the {@code @EndPoint}, {@code @Status} and {@code @Header} declarations so that
+ * mistakes surface as compiler diagnostics instead of runtime failures.</p>
+ *
+ * <p>The processor is registered through {@code META-INF/services}, so it runs automatically
+ * for any project that has ChazaAPI on its compile classpath.</p>
+ */
+@SupportedAnnotationTypes({"chazaAPI.annotations.Chaza", "chazaAPI.annotations.EndPoint"})
+public class ChazaIndexProcessor extends AbstractProcessor {
+
+    private static final String CHAZA = "chazaAPI.annotations.Chaza";
+    private static final String END_POINT = "chazaAPI.annotations.EndPoint";
+
+    private final Set<String> controllers = new TreeSet<>();
+    private Elements elements;
+    private Messager messager;
+    private Filer filer;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        elements = processingEnv.getElementUtils();
+        messager = processingEnv.getMessager();
+        filer = processingEnv.getFiler();
+        readPreviousIndex();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        TypeElement chaza = elements.getTypeElement(CHAZA);
+        TypeElement endPoint = elements.getTypeElement(END_POINT);
+
+        if (chaza != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(chaza)) {
+                if (element instanceof TypeElement type) {
+                    controllers.add(elements.getBinaryName(type).toString());
+                }
+            }
+        }
+
+        if (endPoint != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(endPoint)) {
+                checkEndPoint((ExecutableElement) element);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports the same mistakes that {@code Endpoint.fromAnnotation} rejects at runtime,
+     * plus duplicated status codes and headers which would otherwise silently overwrite each other.
+     */
+    private void checkEndPoint(ExecutableElement method) {
+        Element owner = method.getEnclosingElement();
+        if (findAnnotation(owner, CHAZA) == null) {
+            messager.printMessage(Diagnostic.Kind.WARNING,
+                    "@EndPoint method " + method.getSimpleName() + " is declared in a class without @Chaza and will not be documented",
+                    method);
+        }
+
+        AnnotationMirror mirror = findAnnotation(method, END_POINT);
+        if (mirror == null) {
+            return;
+        }
+        Map<String, AnnotationValue> values = explicitValues(mirror);
+
+        if (isNonEmptyArray(values.get("requestFields")) && isDeclaredClass(values.get("requestDTO"))) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot use both requestFields and requestDTO; please use one method -> " + method.getSimpleName(), method, mirror);
+        }
+        if (isNonEmptyArray(values.get("responseFields")) && isDeclaredClass(values.get("responseDTO"))) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot use both responseFields and responseDTO; please use one method -> " + method.getSimpleName(), method, mirror);
+        }
+
+        reportDuplicates(method, mirror, values.get("statusCodes"), "code", "status code");
+        reportDuplicates(method, mirror, values.get("headers"), "name", "header");
+    }
+
+    private void reportDuplicates(Element method, AnnotationMirror mirror, AnnotationValue array, String key, String label) {
+        if (array == null) {
+            return;
+        }
+        Set<Object> seen = new HashSet<>();
+        for (Object entry : (List<?>) array.getValue()) {
+            AnnotationMirror nested = (AnnotationMirror) ((AnnotationValue) entry).getValue();
+            AnnotationValue value = explicitValues(nested).get(key);
+            if (value != null && !seen.add(value.getValue())) {
+                messager.printMessage(Diagnostic.Kind.WARNING,
+                        "Duplicate " + label + " " + value.getValue() + " on " + method.getSimpleName() + "; only the last one is documented",
+                        method, mirror);
+            }
+        }
+    }
+
+    private void readPreviousIndex() {
+        // Incremental builds only hand us the changed sources, so keep entries for controllers
+        // compiled earlier as long as they still exist and are still annotated.
+        try {
+            FileObject previous = filer.getResource(StandardLocation.CLASS_OUTPUT, "", ControllerIndex.LOCATION);
+            try (BufferedReader reader = new BufferedReader(previous.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    TypeElement type = elements.getTypeElement(line.replace('$', '.'));
+                    if (type != null && findAnnotation(type, CHAZA) != null) {
+                        controllers.add(line);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // no previous index
+        }
+    }
+
+    private void writeIndex() {
+        if (controllers.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", ControllerIndex.LOCATION);
+            try (Writer writer = index.openWriter()) {
+                writer.write("# Generated by " + ChazaIndexProcessor.class.getName() + "\n");
+                for (String controller : controllers) {
+                    writer.write(controller);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write " + ControllerIndex.LOCATION + ": " + e.getMessage());
+        }
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, AnnotationValue> explicitValues(AnnotationMirror mirror) {
+        Map<String, AnnotationValue> values = new HashMap<>();
+        mirror.getElementValues().forEach((key, value) -> values.put(key.getSimpleName().toString(), value));
+        return values;
+    }
+
+    private static boolean isNonEmptyArray(AnnotationValue value) {
+        return value != null && !((List<?>) value.getValue()).isEmpty();
+    }
+
+    private static boolean isDeclaredClass(AnnotationValue value) {
+        return value != null && value.getValue() instanceof TypeMirror type && !type.getKind().isPrimitive()
+                && type.getKind() != TypeKind.VOID;
+    }
+}
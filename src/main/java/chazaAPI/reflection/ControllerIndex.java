@@ -0,0 +1,75 @@
+package chazaAPI.reflection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads the controller index generated at compile time by
+ * {@link chazaAPI.processor.ChazaIndexProcessor}.
+ *
+ * <p>The index is a plain text resource listing the binary name of every class annotated
+ * with {@code @Chaza}, one per line. Lines starting with {@code #} are comments. Every jar
+ * or class directory compiled with the processor contributes its own copy of the resource,
+ * so all copies visible to the class loader are merged.</p>
+ */
+public final class ControllerIndex {
+
+    /**
+     * Location of the generated index, relative to the class output root.
+     */
+    public static final String LOCATION = "META-INF/chaza/controllers.idx";
+
+    private ControllerIndex() {
+    }
+
+    /**
+     * Reads the names of all indexed controllers that live in the given package or one of its subpackages.
+     *
+     * @param basePackage the package to filter on; an empty string matches every controller
+     * @param classLoader the class loader used to locate index resources
+     * @return the sorted controller class names, or an empty optional if no index resource exists at all
+     */
+    public static Optional<List<String>> read(String basePackage, ClassLoader classLoader) {
+        Set<String> names = new TreeSet<>();
+        boolean found = false;
+        try {
+            Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            while (resources.hasMoreElements()) {
+                found = true;
+                readInto(resources.nextElement(), names);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + LOCATION, e);
+        }
+
+        if (!found) {
+            return Optional.empty();
+        }
+
+        String prefix = basePackage == null || basePackage.isEmpty() ? "" : basePackage + ".";
+        List<String> matching = new ArrayList<>();
+        for (String name : names) {
+            if (prefix.isEmpty() || name.startsWith(prefix)) {
+                matching.add(name);
+            }
+        }
+        return Optional.of(matching);
+    }
+
+    private static void readInto(URL url, Set<String> names) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    names.add(line);
+                }
+            }
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package chazaAPI.reflection;
 
 import chazaAPI.annotations.Chaza;
+import chazaAPI.schema.Schema;
 import org.reflections.Reflections;
 import org.reflections.scanners.Scanners;
 
 import java.lang.reflect.*;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Utility class for performing reflection-based operations on classes,
@@ -15,67 +15,206 @@ import java.util.stream.Collectors;
 public class ReflectionUtils {
 
     /**
-     * Recursively retrieves a map of field names to their types for the given class,
-     * including nested fields for complex types and handling collections with generics.
+     * Process-wide schema cache. {@link ClassValue} keys are held weakly by the class itself,
+     * so cached schemas never keep a class loader from being unloaded.
+     */
+    private static final ClassValue<SchemaHolder> SCHEMAS = new ClassValue<>() {
+        @Override
+        protected SchemaHolder computeValue(Class<?> type) {
+            return new SchemaHolder();
+        }
+    };
+
+    /**
+     * Key of the node that stands in for a class already being described higher up in the same tree.
+     */
+    public static final String REF = Schema.REF;
+
+    /**
+     * Returns the field schema of the given class, computing it on first use and sharing it afterwards.
+     *
+     * <p>The result maps each field name to either:</p>
+     * <ul>
+     *     <li>a {@link Schema.Primitive} for primitives, wrappers and Strings, or a
+     *     {@link Schema.EnumType} for enums, both seen as their simple type name in the map view,</li>
+     *     <li>a nested {@link Schema.ObjectType} for complex types,</li>
+     *     <li>an {@link Schema.ArrayType} holding the element schema for collections, or</li>
+     *     <li>a {@link Schema.Reference}, i.e. {@code {"$ref": "SimpleName"}}, when a class refers back to one of its own ancestors.</li>
+     * </ul>
      *
-     * <p>This method avoids infinite recursion by tracking visited classes.</p>
+     * <p>Returned schemas are immutable and may be shared between endpoints and threads.
+     * A class used in several places of one tree is described in full every time;
+     * only true cycles are cut short with a reference node.</p>
      *
      * @param clazz the class to inspect
-     * @param visitedClasses a set of classes already visited to prevent infinite recursion
-     * @return a map where keys are field names and values are either:
-     *         - a simple type name (for primitives, wrappers, enums, and Strings),
-     *         - a nested map of fields for complex types,
-     *         - or a list containing nested fields for collections
+     * @return the immutable field schema of the class
      */
-    public static Map<String, Object> getFieldsRecursive(Class<?> clazz, Set<Class<?>> visitedClasses) {
-        Map<String, Object> fieldsMap = new LinkedHashMap<>();
+    public static Schema.ObjectType getFieldsRecursive(Class<?> clazz) {
+        return (Schema.ObjectType) nodeFor(clazz, new ArrayList<>()).schema();
+    }
+
+    /**
+     * Recursively retrieves a map of field names to their types for the given class.
+     *
+     * @param clazz the class to inspect
+     * @param visitedClasses ignored; cycles are now detected along each path of the tree
+     * @return the immutable field schema of the class
+     * @deprecated use {@link #getFieldsRecursive(Class)}, which caches and shares schemas
+     */
+    @Deprecated
+    public static Schema.ObjectType getFieldsRecursive(Class<?> clazz, Set<Class<?>> visitedClasses) {
+        return getFieldsRecursive(clazz);
+    }
 
-        if (clazz == null || clazz == Object.class || visitedClasses.contains(clazz)) {
-            return fieldsMap;
+    /**
+     * Resolves the node for a class reached through {@code path}: a reference if the class is
+     * one of its own ancestors, the cached schema if there is one, or a freshly built schema.
+     */
+    private static Built nodeFor(Class<?> clazz, List<Class<?>> path) {
+        if (clazz == null || clazz == Object.class) {
+            return new Built(Schema.ObjectType.EMPTY, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < path.size(); i++) {
+            if (path.get(i) == clazz) {
+                return new Built(new Schema.Reference(clazz.getSimpleName()), i);
+            }
+        }
+        Schema.ObjectType cached = SCHEMAS.get(clazz).schema;
+        if (cached != null) {
+            return new Built(cached, Integer.MAX_VALUE);
         }
+        return build(clazz, path);
+    }
 
-        visitedClasses.add(clazz);
+    private static Built build(Class<?> clazz, List<Class<?>> path) {
+        int depth = path.size();
+        int lowestRef = Integer.MAX_VALUE;
+        path.add(clazz);
 
-        for (Field field : clazz.getDeclaredFields()) {
-            field.setAccessible(true);
+        Field[] declared = clazz.getDeclaredFields();
+        String[] names = new String[declared.length];
+        Schema[] fields = new Schema[declared.length];
+        for (int i = 0; i < declared.length; i++) {
+            Field field = declared[i];
             Class<?> fieldType = field.getType();
+            names[i] = field.getName();
 
-            if (isPrimitiveOrWrapper(fieldType) || fieldType == String.class || fieldType.isEnum()) {
-                fieldsMap.put(field.getName(), fieldType.getSimpleName());
+            if (isSimple(fieldType)) {
+                fields[i] = simple(fieldType);
             } else if (Collection.class.isAssignableFrom(fieldType)) {
-                Type genericType = field.getGenericType();
+                Class<?> elementType = elementType(field);
+                if (elementType == null) {
+                    fields[i] = Schema.Primitive.of("Collection");
+                } else if (isSimple(elementType)) {
+                    fields[i] = new Schema.ArrayType(simple(elementType));
+                } else {
+                    Built nested = nodeFor(elementType, path);
+                    lowestRef = Math.min(lowestRef, nested.lowestRef());
+                    fields[i] = new Schema.ArrayType(nested.schema());
+                }
+            } else {
+                Built nested = nodeFor(fieldType, path);
+                lowestRef = Math.min(lowestRef, nested.lowestRef());
+                fields[i] = nested.schema();
+            }
+        }
+        path.remove(depth);
+
+        Schema.ObjectType schema = new Schema.ObjectType(names, fields);
+        if (lowestRef < depth) {
+            // Refers to an ancestor outside this subtree, so it only holds in this context.
+            return new Built(schema, lowestRef);
+        }
+        SchemaHolder holder = SCHEMAS.get(clazz);
+        if (holder.schema == null) {
+            holder.schema = schema;
+        }
+        return new Built(holder.schema, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the element class of a single-parameter collection field, or null if it is not a plain class
+     */
+    private static Class<?> elementType(Field field) {
+        if (field.getGenericType() instanceof ParameterizedType pt) {
+            Type[] actualTypeArguments = pt.getActualTypeArguments();
+            if (actualTypeArguments.length == 1 && actualTypeArguments[0] instanceof Class<?> actualClass) {
+                return actualClass;
+            }
+        }
+        return null;
+    }
 
-                if (genericType instanceof ParameterizedType) {
-                    ParameterizedType pt = (ParameterizedType) genericType;
-                    Type[] actualTypeArguments = pt.getActualTypeArguments();
+    private static boolean isSimple(Class<?> type) {
+        return isPrimitiveOrWrapper(type) || type == String.class || type.isEnum();
+    }
 
-                    if (actualTypeArguments.length == 1) {
-                        Type actualType = actualTypeArguments[0];
+    /**
+     * Describes a simple type; enum constants are read from the declared fields, which does not initialize the enum.
+     */
+    private static Schema simple(Class<?> type) {
+        if (!type.isEnum()) {
+            return Schema.Primitive.of(type.getSimpleName());
+        }
+        List<String> constants = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isEnumConstant()) {
+                constants.add(field.getName());
+            }
+        }
+        return new Schema.EnumType(type.getSimpleName(), constants);
+    }
 
-                        if (actualType instanceof Class<?>) {
-                            Class<?> actualClass = (Class<?>) actualType;
+    /**
+     * A schema node together with the shallowest ancestor depth it refers back to.
+     */
+    private record Built(Schema schema, int lowestRef) {
+    }
 
-                            Map<String, Object> nestedFields = getFieldsRecursive(actualClass, visitedClasses);
+    private static final class SchemaHolder {
+        private volatile Schema.ObjectType schema;
+    }
 
-                            fieldsMap.put(field.getName(), List.of(nestedFields));
-                        } else {
-                            fieldsMap.put(field.getName(), "Collection");
-                        }
-                    } else {
-                        fieldsMap.put(field.getName(), "Collection");
-                    }
-                } else {
-                    fieldsMap.put(field.getName(), "Collection");
-                }
+    /**
+     * Finds controllers through the compile-time {@link ControllerIndex} instead of scanning the classpath.
+     *
+     * <p>Classes are loaded without being initialized, and stale entries that are no longer
+     * annotated with {@link Chaza} are skipped.</p>
+     *
+     * @param basePackage the package to look for controllers in
+     * @return the indexed controllers, or an empty optional if no index covers the package
+     */
+    public static Optional<List<Class<?>>> findIndexedControllers(String basePackage) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = ReflectionUtils.class.getClassLoader();
+        }
 
-            } else {
-                fieldsMap.put(field.getName(), getFieldsRecursive(fieldType, visitedClasses));
-            }
+        Optional<List<String>> names = ControllerIndex.read(basePackage, classLoader);
+        if (names.isEmpty() || names.get().isEmpty()) {
+            return Optional.empty();
         }
 
-        return fieldsMap;
+        List<Class<?>> controllers = new ArrayList<>();
+        for (String name : names.get()) {
+            try {
+                Class<?> controller = Class.forName(name, false, classLoader);
+                if (controller.isAnnotationPresent(Chaza.class)) {
+                    controllers.add(controller);
+                }
+            } catch (ClassNotFoundException e) {
+                // the index outlived the class, ignore it
+            }
+        }
+        return Optional.of(controllers);
     }
 
+    /**
+     * Scans the classpath for classes annotated with {@link Chaza} in the given package.
+     *
+     * @param basePackage the package to scan
+     * @return the controllers found
+     */
     public static List<Class<?>> findChazaControllers(String basePackage) {
         Reflections reflections = new Reflections(basePackage, Scanners.TypesAnnotated);
 
@@ -0,0 +1,709 @@
+package chazaAPI.runtime;
+
+import chazaAPI.documentation.Endpoint;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.javalin.Javalin;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Serves a route that runs several documented endpoints in one HTTP call.
+ *
+ * <p>The batch is a JSON array of sub-requests, each with a {@code method}, a {@code url} that
+ * may carry a query string, optional {@code headers} and an optional {@code body}, sent as is
+ * if it is a string and as JSON otherwise. Sub-requests inherit the headers of the batch, such
+ * as its credentials, and are handed in-process to the server's own servlet, each on a virtual
+ * thread of its own, so they go through the same before-handlers, handlers and after-handlers as
+ * if they had been sent one by one. The answer is a JSON array of {@code status},
+ * {@code headers} and {@code body} in the order of the sub-requests; JSON bodies are embedded as
+ * JSON. Sub-requests still running after the timeout are answered with a 504.</p>
+ *
+ * <p>Limits come from the documentation: a sub-request must match the method and URL of a
+ * documented endpoint, its body defaults to the endpoint's documented {@code accept} type, and a
+ * batch may call an endpoint with rate limits no more times than its largest burst. Handlers
+ * that answer asynchronously, through {@code ctx.future()}, cannot be batched.</p>
+ */
+public final class BatchDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchDispatcher.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Headers of the batch that describe its own body or transfer rather than the caller.
+     */
+    private static final Set<String> OWN_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        OWN_HEADERS.addAll(List.of(Header.CONTENT_TYPE, Header.CONTENT_LENGTH, Header.CONTENT_ENCODING,
+                Header.ACCEPT_ENCODING, Header.TRANSFER_ENCODING, "Expect"));
+    }
+
+    private final int maxRequests;
+    private final long timeoutMillis;
+    private final Supplier<List<Endpoint>> endpoints;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chaza-batch-", 0).factory());
+    private volatile Documented documented = new Documented(null, List.of());
+
+    /**
+     * @param maxRequests   the most sub-requests a batch may hold
+     * @param timeoutMillis how long a batch waits for its sub-requests
+     * @param endpoints     the documented endpoints sub-requests may call, read for every batch
+     * @throws IllegalArgumentException if the limit or the timeout is not positive
+     */
+    public BatchDispatcher(int maxRequests, long timeoutMillis, Supplier<List<Endpoint>> endpoints) {
+        if (maxRequests <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Batch size and timeout must be positive: " + maxRequests + ", " + timeoutMillis);
+        }
+        this.maxRequests = maxRequests;
+        this.timeoutMillis = timeoutMillis;
+        this.endpoints = Objects.requireNonNull(endpoints);
+    }
+
+    /**
+     * Registers the batch route.
+     *
+     * @param server the server whose routes the sub-requests call
+     * @param path   the path of the batch route, e.g. {@code /batch}
+     */
+    public void attach(Javalin server, String path) {
+        Servlet servlet = server.javalinServlet();
+        server.post(path, ctx -> handle(ctx, servlet));
+    }
+
+    private void handle(Context ctx, Servlet servlet) throws InterruptedException {
+        JsonNode batch;
+        try {
+            batch = MAPPER.readTree(ctx.bodyAsBytes());
+        } catch (JsonProcessingException e) {
+            throw new BadRequestResponse("Malformed batch: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new BadRequestResponse("Unreadable batch: " + e.getMessage());
+        }
+        if (batch == null || !batch.isArray() || batch.isEmpty()) {
+            throw new BadRequestResponse("A batch must be a non-empty JSON array of requests");
+        }
+        if (batch.size() > maxRequests) {
+            throw new BadRequestResponse("A batch holds at most " + maxRequests + " requests, not " + batch.size());
+        }
+
+        Documented routes = documented();
+        Map<Endpoint, Integer> calls = new IdentityHashMap<>();
+        // only this thread writes results: sub-requests that time out may still be running
+        ObjectNode[] results = new ObjectNode[batch.size()];
+        List<Callable<ObjectNode>> tasks = new ArrayList<>();
+        List<Integer> dispatched = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                SubRequest request = request(ctx, batch.get(i), routes, calls);
+                tasks.add(() -> dispatch(servlet, request, ctx.res()));
+                dispatched.add(i);
+            } catch (Refusal refusal) {
+                results[i] = result(refusal.status, Map.of(), MAPPER.getNodeFactory().textNode(refusal.getMessage()));
+            }
+        }
+
+        List<Future<ObjectNode>> futures = executor.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < futures.size(); i++) {
+            results[dispatched.get(i)] = outcome(futures.get(i), dispatched.get(i));
+        }
+        ArrayNode body = MAPPER.createArrayNode();
+        for (ObjectNode result : results) {
+            body.add(result);
+        }
+        ctx.json(body);
+    }
+
+    /**
+     * @param future a sub-request that is done, as all are once {@code invokeAll} returns
+     * @param index  its position in the batch
+     * @return its result, or a 504 if it timed out and a 500 if it failed; the cause of a failure
+     * is logged rather than sent, as it would be for a request of its own
+     */
+    private static ObjectNode outcome(Future<ObjectNode> future, int index) throws InterruptedException {
+        if (future.isCancelled()) {
+            return result(HttpStatus.GATEWAY_TIMEOUT.getCode(), Map.of(), MAPPER.getNodeFactory().textNode("Timed out"));
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            LOG.warn("Request {} of a batch failed", index, e.getCause());
+            return result(HttpStatus.INTERNAL_SERVER_ERROR.getCode(), Map.of(),
+                    MAPPER.getNodeFactory().textNode("Internal server error"));
+        }
+    }
+
+    /**
+     * Checks a sub-request against the documentation and builds it.
+     *
+     * @throws Refusal if it is not allowed
+     */
+    private SubRequest request(Context ctx, JsonNode node, Documented routes, Map<Endpoint, Integer> calls) throws Refusal {
+        if (node == null || !node.isObject() || !node.path("method").isTextual() || !node.path("url").isTextual()) {
+            throw new Refusal(400, "A request needs a method and a url");
+        }
+        String method = node.get("method").asText().toUpperCase(Locale.ROOT);
+        String url = node.get("url").asText();
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        if (!path.startsWith("/")) {
+            throw new Refusal(400, "The url must be absolute: " + url);
+        }
+        if (path.equals(ctx.path())) {
+            throw new Refusal(400, "Batches cannot be nested");
+        }
+        Endpoint endpoint = routes.match(method, path);
+        if (endpoint == null) {
+            throw new Refusal(404, "No documented endpoint for " + method + " " + path);
+        }
+        int burst = endpoint.getRateLimits() == null ? Integer.MAX_VALUE
+                : endpoint.getRateLimits().values().stream().mapToInt(Endpoint.RateLimitPolicy::burst).max().orElse(Integer.MAX_VALUE);
+        if (calls.merge(endpoint, 1, Integer::sum) > burst) {
+            throw new Refusal(429, "A batch calls " + method + " " + endpoint.getUrl() + " at most " + burst + " times");
+        }
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        ctx.headerMap().forEach((name, value) -> {
+            if (!OWN_HEADERS.contains(name)) {
+                headers.put(name, List.of(value));
+            }
+        });
+        node.path("headers").fields().forEachRemaining(header -> headers.put(header.getKey(), List.of(header.getValue().asText())));
+
+        byte[] body = new byte[0];
+        JsonNode content = node.get("body");
+        if (content != null && !content.isNull()) {
+            try {
+                body = content.isTextual() ? content.asText().getBytes(StandardCharsets.UTF_8) : MAPPER.writeValueAsBytes(content);
+            } catch (JsonProcessingException e) {
+                throw new Refusal(400, "Unreadable body: " + e.getOriginalMessage());
+            }
+            String type = content.isTextual() && endpoint.getAccept() != null && !endpoint.getAccept().isEmpty()
+                    ? endpoint.getAccept() : "application/json";
+            headers.putIfAbsent(Header.CONTENT_TYPE, List.of(type));
+        }
+        return new SubRequest(ctx.req(), method, path, query < 0 ? null : url.substring(query + 1), headers, body);
+    }
+
+    private static ObjectNode dispatch(Servlet servlet, SubRequest request, HttpServletResponse outer) throws ServletException, IOException {
+        SubResponse response = new SubResponse(outer);
+        servlet.service(request, response);
+        Map<String, String> headers = new TreeMap<>();
+        response.headers.forEach((name, values) -> headers.put(name, String.join(", ", values)));
+
+        byte[] bytes = response.body.toByteArray();
+        JsonNode body = null;
+        if (bytes.length > 0) {
+            String contentType = response.getContentType();
+            if (contentType != null && contentType.contains("json")) {
+                try {
+                    body = MAPPER.readTree(bytes);
+                } catch (IOException e) {
+                    // not the JSON it claims to be: sent as text
+                }
+            }
+            if (body == null) {
+                body = MAPPER.getNodeFactory().textNode(new String(bytes, response.charset()));
+            }
+        }
+        return result(response.status, headers, body);
+    }
+
+    private static ObjectNode result(int status, Map<String, String> headers, JsonNode body) {
+        ObjectNode result = MAPPER.createObjectNode();
+        result.put("status", status);
+        result.set("headers", MAPPER.valueToTree(headers));
+        if (body != null) {
+            result.set("body", body);
+        }
+        return result;
+    }
+
+    private Documented documented() {
+        List<Endpoint> current = endpoints.get();
+        Documented known = documented;
+        if (known.source != current) {
+            known = new Documented(current, current == null ? List.of() : current.stream().map(Template::new).toList());
+            documented = known;
+        }
+        return known;
+    }
+
+    /**
+     * The matchers of one list of documented endpoints.
+     */
+    private record Documented(List<Endpoint> source, List<Template> templates) {
+
+        Endpoint match(String method, String path) {
+            for (Template template : templates) {
+                if (template.endpoint.getMethod() != null && template.endpoint.getMethod().name().equals(method)
+                        && template.pattern.matcher(path).matches()) {
+                    return template.endpoint;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The URL of a documented endpoint as a pattern: {@code {name}} matches one path segment and
+     * {@code <name>} any number.
+     */
+    private static final class Template {
+
+        private static final Pattern PARAMETER = Pattern.compile("\\{[^}/]*}|<[^>]*>");
+
+        private final Endpoint endpoint;
+        private final Pattern pattern;
+
+        Template(Endpoint endpoint) {
+            this.endpoint = endpoint;
+            String url = endpoint.getUrl() == null ? "/" : endpoint.getUrl().startsWith("/") ? endpoint.getUrl() : "/" + endpoint.getUrl();
+            StringBuilder regex = new StringBuilder();
+            java.util.regex.Matcher parameter = PARAMETER.matcher(url);
+            int last = 0;
+            while (parameter.find()) {
+                regex.append(Pattern.quote(url.substring(last, parameter.start())));
+                regex.append(parameter.group().startsWith("{") ? "[^/]+" : ".+");
+                last = parameter.end();
+            }
+            regex.append(Pattern.quote(url.substring(last)));
+            // Javalin ignores a trailing slash
+            this.pattern = Pattern.compile(regex + "/?");
+        }
+    }
+
+    /**
+     * A sub-request that cannot be dispatched, answered with its status and message.
+     */
+    private static final class Refusal extends Exception {
+
+        private final int status;
+
+        Refusal(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * A sub-request seen by the servlet: its own method, URL, headers, body and attributes, the
+     * rest being the batch's.
+     */
+    private static final class SubRequest extends HttpServletRequestWrapper {
+
+        private final HttpServletRequest outer;
+        private final String method;
+        private final String path;
+        private final String query;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private String encoding;
+
+        SubRequest(HttpServletRequest outer, String method, String path, String query, Map<String, List<String>> headers, byte[] body) {
+            super(outer);
+            this.outer = outer;
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return path;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            return new StringBuffer(outer.getScheme()).append("://").append(outer.getServerName()).append(':')
+                    .append(outer.getServerPort()).append(path);
+        }
+
+        @Override
+        public String getContextPath() {
+            return "";
+        }
+
+        @Override
+        public String getServletPath() {
+            return "";
+        }
+
+        @Override
+        public String getPathInfo() {
+            return path;
+        }
+
+        @Override
+        public String getQueryString() {
+            return query;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return Collections.enumeration(headers.getOrDefault(name, List.of()));
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(headers.keySet());
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            String value = getHeader(name);
+            return value == null ? -1 : Integer.parseInt(value);
+        }
+
+        @Override
+        public String getContentType() {
+            return getHeader(Header.CONTENT_TYPE);
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return encoding;
+        }
+
+        @Override
+        public void setCharacterEncoding(String encoding) {
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Batched requests are read synchronously");
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public boolean isAsyncStarted() {
+            return false;
+        }
+
+        @Override
+        public boolean isAsyncSupported() {
+            return false;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            throw new IllegalStateException("Batched requests cannot be asynchronous");
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            throw new IllegalStateException("Batched requests cannot be asynchronous");
+        }
+    }
+
+    /**
+     * A response kept in memory, never reaching the batch's.
+     */
+    private static final class SubResponse extends HttpServletResponseWrapper {
+
+        private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status = HttpStatus.OK.getCode();
+        private String encoding;
+        private PrintWriter writer;
+
+        SubResponse(HttpServletResponse outer) {
+            // every method that writes is overridden, so the batch's response is left alone
+            super(outer);
+        }
+
+        Charset charset() {
+            return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        }
+
+        @Override
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void sendError(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public void sendError(int status, String message) {
+            this.status = status;
+        }
+
+        @Override
+        public void sendRedirect(String location) {
+            this.status = HttpStatus.FOUND.getCode();
+            setHeader(Header.LOCATION, location);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (value == null) {
+                headers.remove(name);
+            } else {
+                headers.put(name, new ArrayList<>(List.of(value)));
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            headers.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            addHeader(name, String.valueOf(value));
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            setHeader(name, String.valueOf(date));
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            addHeader(name, String.valueOf(date));
+        }
+
+        @Override
+        public boolean containsHeader(String name) {
+            return headers.containsKey(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            return List.copyOf(headers.getOrDefault(name, List.of()));
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return List.copyOf(headers.keySet());
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            addHeader(Header.SET_COOKIE, cookie.getName() + "=" + cookie.getValue());
+        }
+
+        @Override
+        public void setContentType(String type) {
+            setHeader(Header.CONTENT_TYPE, type);
+            if (type != null && type.toLowerCase(Locale.ROOT).contains("charset=")) {
+                encoding = type.substring(type.toLowerCase(Locale.ROOT).indexOf("charset=") + 8).trim();
+            }
+        }
+
+        @Override
+        public String getContentType() {
+            return getHeader(Header.CONTENT_TYPE);
+        }
+
+        @Override
+        public void setCharacterEncoding(String encoding) {
+            this.encoding = encoding;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return charset().name();
+        }
+
+        @Override
+        public void setContentLength(int length) {
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+        }
+
+        @Override
+        public Locale getLocale() {
+            return Locale.getDefault();
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+        }
+
+        @Override
+        public int getBufferSize() {
+            return body.size();
+        }
+
+        @Override
+        public void flushBuffer() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            headers.clear();
+            status = HttpStatus.OK.getCode();
+        }
+
+        @Override
+        public void resetBuffer() {
+            body.reset();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    throw new UnsupportedOperationException("Batched responses are written synchronously");
+                }
+
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset()), true);
+            }
+            return writer;
+        }
+    }
+}
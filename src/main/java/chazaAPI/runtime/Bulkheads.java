@@ -0,0 +1,175 @@
+package chazaAPI.runtime;
+
+import chazaAPI.documentation.Endpoint;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpResponseException;
+import io.javalin.http.HttpStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the requests of every group in flight at once, as endpoints document with {@code bulkhead},
+ * so that one slow group cannot take all the capacity of the server from the others. With
+ * virtual-thread handlers there is no pool to run out of, and this is the only cap there is.
+ *
+ * <p>A group is a compartment with as many permits as the smallest {@code bulkhead} its endpoints
+ * declare, including those guarded by earlier calls, e.g. when the routes of another package
+ * join a group. A request takes a permit, or waits for one up to the wait given here if fewer than
+ * {@code bulkheadQueue} requests are waiting already; otherwise it is refused. Refused requests
+ * get the 503 the endpoint documents, else the 429 it documents, else a 503. The guard wraps the
+ * handler of a route rather than running in a before-handler, so that the permit is given back
+ * in a {@code finally} however the handler ends. In-flight, waiting, admitted and refused requests
+ * of every group are reported by {@link #report()}, which {@code /chaza-json/runtime} serves.</p>
+ */
+public final class Bulkheads {
+
+    private final long maxWaitMillis;
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxWaitMillis how long a queued request waits for a permit before it is refused
+     * @throws IllegalArgumentException if the wait is negative
+     */
+    public Bulkheads(long maxWaitMillis) {
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Wait cannot be negative: " + maxWaitMillis);
+        }
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * @param routes the routes to guard
+     * @return the routes, those whose endpoint documents a bulkhead served through the compartment of its group
+     */
+    public List<RouteBinder.Route> guard(List<RouteBinder.Route> routes) {
+        Map<String, Endpoint.BulkheadPolicy> limits = new HashMap<>();
+        for (RouteBinder.Route route : routes) {
+            Endpoint.BulkheadPolicy policy = route.endpoint().getBulkhead();
+            if (policy != null) {
+                limits.merge(route.endpoint().getGroup(), policy, (a, b) -> new Endpoint.BulkheadPolicy(
+                        Math.min(a.maxConcurrent(), b.maxConcurrent()), Math.min(a.maxQueued(), b.maxQueued())));
+            }
+        }
+        limits.forEach((group, policy) -> compartments.compute(group,
+                (g, existing) -> existing == null ? new Compartment(g, policy) : existing.narrow(policy)));
+        List<RouteBinder.Route> guarded = new ArrayList<>(routes.size());
+        for (RouteBinder.Route route : routes) {
+            if (route.endpoint().getBulkhead() == null) {
+                guarded.add(route);
+                continue;
+            }
+            Compartment compartment = compartments.get(route.endpoint().getGroup());
+            Handler handler = route.handler();
+            Endpoint endpoint = route.endpoint();
+            guarded.add(route.withHandler(ctx -> compartment.run(ctx, endpoint, handler)));
+        }
+        return guarded;
+    }
+
+    /**
+     * @return per group with a bulkhead, sorted by name: its limits and the requests in flight,
+     * waiting, admitted and refused
+     */
+    public List<Map<String, Object>> report() {
+        return compartments.values().stream()
+                .sorted(Comparator.comparing(c -> c.group))
+                .map(Compartment::report)
+                .toList();
+    }
+
+    private final class Compartment {
+
+        private final String group;
+        private volatile Endpoint.BulkheadPolicy policy;
+        private final Permits permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder refused = new LongAdder();
+
+        Compartment(String group, Endpoint.BulkheadPolicy policy) {
+            this.group = group;
+            this.policy = policy;
+            this.permits = new Permits(policy.maxConcurrent());
+        }
+
+        /**
+         * Lowers the limits to those of the given policy where it is stricter. Requests in flight
+         * keep their permits; fewer are handed out until enough of them are given back.
+         */
+        Compartment narrow(Endpoint.BulkheadPolicy other) {
+            int fewer = policy.maxConcurrent() - other.maxConcurrent();
+            if (fewer > 0) {
+                permits.reduce(fewer);
+            }
+            policy = new Endpoint.BulkheadPolicy(Math.min(policy.maxConcurrent(), other.maxConcurrent()),
+                    Math.min(policy.maxQueued(), other.maxQueued()));
+            return this;
+        }
+
+        void run(Context ctx, Endpoint endpoint, Handler handler) throws Exception {
+            if (!permits.tryAcquire() && !await()) {
+                refused.increment();
+                throw refusal(endpoint);
+            }
+            admitted.increment();
+            try {
+                handler.handle(ctx);
+            } finally {
+                permits.release();
+            }
+        }
+
+        private boolean await() throws InterruptedException {
+            if (waiting.incrementAndGet() > policy.maxQueued()) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            try {
+                return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        private HttpResponseException refusal(Endpoint endpoint) {
+            Map<String, String> codes = endpoint.getStatusCodes() == null ? Map.of() : endpoint.getStatusCodes();
+            HttpStatus status = !codes.containsKey("503") && codes.containsKey("429")
+                    ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+            String message = codes.getOrDefault(String.valueOf(status.getCode()), "Group " + group + " is at capacity");
+            return new HttpResponseException(status, message, Map.of("group", group));
+        }
+
+        Map<String, Object> report() {
+            Endpoint.BulkheadPolicy policy = this.policy;
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("group", group);
+            report.put("maxConcurrent", policy.maxConcurrent());
+            report.put("maxQueued", policy.maxQueued());
+            report.put("inFlight", policy.maxConcurrent() - permits.availablePermits());
+            report.put("queued", waiting.get());
+            report.put("admitted", admitted.sum());
+            report.put("refused", refused.sum());
+            return report;
+        }
+    }
+
+    /**
+     * A semaphore whose permits can be taken away when a compartment is narrowed.
+     */
+    private static final class Permits extends Semaphore {
+
+        Permits(int permits) {
+            super(permits);
+        }
+
+        void reduce(int permits) {
+            reducePermits(permits);
+        }
+    }
+}
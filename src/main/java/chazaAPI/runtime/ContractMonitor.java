@@ -0,0 +1,185 @@
+package chazaAPI.runtime;
+
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.Endpoint;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares a sample of responses with the {@code responseDTO} or {@code responseFields} their
+ * endpoint documents, to catch handlers whose responses drift from the documentation.
+ *
+ * <p>Only successful responses whose result is held in memory are checked, with the same
+ * compiled checks as {@link RequestValidator}. Each one is sampled with the current rate, which
+ * starts at the configured fraction. Once a second, the time spent checking is compared with
+ * the CPU budget, a share of one core, and the rate is scaled by how far over or under budget
+ * it was, at most doubling and never exceeding the fraction. The added cost therefore follows
+ * the budget whatever the traffic.</p>
+ *
+ * <p>Results are kept in lock-free counters per endpoint, and per field for violations, and are
+ * reported by {@link #report()}, which {@code /chaza-json/runtime} serves.</p>
+ */
+public final class ContractMonitor {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Keeps some sampling going however expensive checks are, so the rate can recover.
+     */
+    private static final double MIN_RATE = 1e-4;
+
+    private final double fraction;
+    private final double cpuBudget;
+    private volatile double rate;
+
+    private final LongAdder spent = new LongAdder();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final Map<String, Contract> contracts = new ConcurrentHashMap<>();
+
+    /**
+     * @param fraction  the largest share of responses to check, between 0 and 1
+     * @param cpuBudget the time checks may take, as a share of one core, e.g. 0.01 for 10ms a second
+     * @throws IllegalArgumentException if the fraction is not between 0 and 1, or the budget is not positive
+     */
+    public ContractMonitor(double fraction, double cpuBudget) {
+        if (!(fraction > 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("Sampled fraction must be in (0, 1]: " + fraction);
+        }
+        if (!(cpuBudget > 0)) {
+            throw new IllegalArgumentException("CPU budget must be positive: " + cpuBudget);
+        }
+        this.fraction = fraction;
+        this.cpuBudget = cpuBudget;
+        this.rate = fraction;
+    }
+
+    /**
+     * Registers an after-matched handler that checks the responses of the routes that document
+     * a response body, each against the contract of the route the request matched.
+     *
+     * @param server the server the routes are registered with
+     * @param routes the routes
+     */
+    public void attach(Javalin server, List<RouteBinder.Route> routes) {
+        Map<String, Contract> byRoute = new HashMap<>();
+        for (RouteBinder.Route route : routes) {
+            RequestValidator.ofResponse(route.method().getAnnotation(EndPoint.class)).ifPresent(validator ->
+                    byRoute.put(route.key(), contracts.computeIfAbsent(route.key(), key -> new Contract(route.endpoint(), validator))));
+        }
+        if (byRoute.isEmpty()) {
+            return;
+        }
+        server.afterMatched(ctx -> {
+            Contract contract = byRoute.get(RouteBinder.matchedRoute(ctx));
+            if (contract != null) {
+                check(contract, ctx);
+            }
+        });
+    }
+
+    private void check(Contract contract, Context ctx) throws IOException {
+        if (!ctx.status().isSuccess() || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return;
+        }
+        InputStream result = ctx.resultInputStream();
+        if (result == null || !result.markSupported()) {
+            // streamed results cannot be read without consuming them
+            return;
+        }
+        long start = System.nanoTime();
+        result.mark(Integer.MAX_VALUE);
+        Optional<RequestValidator.Violation> violation;
+        try {
+            violation = contract.validator.validate(result);
+        } finally {
+            result.reset();
+        }
+        contract.record(violation);
+        spend(System.nanoTime() - start);
+    }
+
+    private void spend(long nanos) {
+        spent.add(nanos);
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            double allowed = cpuBudget * (now - start);
+            long observed = spent.sumThenReset();
+            double scale = observed == 0 ? 2 : Math.min(2, allowed / observed);
+            rate = Math.max(MIN_RATE, Math.min(fraction, rate * scale));
+        }
+    }
+
+    /**
+     * @return the share of responses currently checked
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the sampling settings and, per endpoint with a documented response, how many
+     * responses were checked, how many violated the contract, the violations per field and the last one
+     */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("fraction", fraction);
+        report.put("cpuBudget", cpuBudget);
+        report.put("rate", rate);
+        report.put("endpoints", contracts.values().stream()
+                .sorted(Comparator.comparing((Contract c) -> c.endpoint.getUrl()).thenComparing(c -> c.endpoint.getMethod().name()))
+                .map(Contract::report)
+                .toList());
+        return report;
+    }
+
+    private static final class Contract {
+
+        private final Endpoint endpoint;
+        private final RequestValidator validator;
+        private final LongAdder sampled = new LongAdder();
+        private final LongAdder violations = new LongAdder();
+        private final Map<String, LongAdder> fields = new ConcurrentHashMap<>();
+        private final AtomicReference<RequestValidator.Violation> last = new AtomicReference<>();
+
+        Contract(Endpoint endpoint, RequestValidator validator) {
+            this.endpoint = endpoint;
+            this.validator = validator;
+        }
+
+        void record(Optional<RequestValidator.Violation> violation) {
+            sampled.increment();
+            if (violation.isPresent()) {
+                violations.increment();
+                fields.computeIfAbsent(violation.get().field(), field -> new LongAdder()).increment();
+                last.set(violation.get());
+            }
+        }
+
+        Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("method", endpoint.getMethod());
+            report.put("url", endpoint.getUrl());
+            report.put("sampled", sampled.sum());
+            report.put("violations", violations.sum());
+            Map<String, Long> byField = new TreeMap<>();
+            fields.forEach((field, count) -> byField.put(field, count.sum()));
+            report.put("fields", byField);
+            RequestValidator.Violation violation = last.get();
+            if (violation != null) {
+                report.put("lastViolation", Map.of("field", violation.field(), "error", violation.message()));
+            }
+            return report;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package chazaAPI.runtime;
+
+import chazaAPI.documentation.Endpoint;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency and throughput of bound routes, per documented endpoint.
+ *
+ * <p>A before-matched handler notes when a request starts and an after-matched handler records
+ * how long it took, in the {@link LatencyHistogram} of the documented method and URL template
+ * of the route the request matched.
+ * Requests and server errors are counted in {@link LongAdder}s, which stripe their count across
+ * cells under contention. Throughput is measured over windows of ten seconds.</p>
+ *
+ * <p>{@link #report()} gives, for every endpoint, its latency percentiles since the server
+ * started and its current requests per second, as served at {@code /chaza-json/metrics} and
+ * shown with each endpoint by {@code APIDoc.html}.</p>
+ */
+public final class EndpointMetrics {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the handlers that measure the given routes.
+     *
+     * @param server the server the routes are registered with
+     * @param routes the routes
+     */
+    public void attach(Javalin server, List<RouteBinder.Route> routes) {
+        Map<String, Meter> byRoute = new HashMap<>();
+        for (RouteBinder.Route route : routes) {
+            byRoute.put(route.key(), meters.computeIfAbsent(route.key(), key -> new Meter(route.endpoint())));
+        }
+        if (byRoute.isEmpty()) {
+            return;
+        }
+        server.beforeMatched(ctx -> {
+            if (byRoute.containsKey(RouteBinder.matchedRoute(ctx))) {
+                RouteBinder.markStart(ctx);
+            }
+        });
+        server.afterMatched(ctx -> {
+            Meter meter = byRoute.get(RouteBinder.matchedRoute(ctx));
+            if (meter != null) {
+                meter.record(ctx);
+            }
+        });
+    }
+
+    /**
+     * @return per endpoint, sorted by URL and method: the request and server error counts, the
+     * requests per second and the 50th, 95th and 99th percentile and maximum latency in milliseconds
+     */
+    public List<Map<String, Object>> report() {
+        long now = System.nanoTime();
+        return meters.values().stream()
+                .sorted(Comparator.comparing((Meter meter) -> meter.endpoint.getUrl()).thenComparing(meter -> meter.endpoint.getMethod().name()))
+                .map(meter -> meter.report(now))
+                .toList();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Meter {
+
+        private final Endpoint endpoint;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<Window> window = new AtomicReference<>(new Window(System.nanoTime(), 0));
+
+        Meter(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(Context ctx) {
+            long nanos = RouteBinder.elapsedNanos(ctx);
+            if (nanos < 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            latencies.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            requests.increment();
+            if (ctx.statusCode() >= 500) {
+                errors.increment();
+            }
+            Window current = window.get();
+            if (now - current.start() >= WINDOW_NANOS) {
+                // one allocation per window, by whichever request closes it
+                window.compareAndSet(current, current.next(now, requests.sum()));
+            }
+        }
+
+        Map<String, Object> report(long now) {
+            long[] percentiles = latencies.percentiles(0.5, 0.95, 0.99);
+            long total = requests.sum();
+            Window current = window.get();
+            // once a window has closed, its rate stands for the current one; a window left open
+            // long past its end means traffic stopped, and its own rate shows that
+            double rps = current.rate() >= 0 && now - current.start() < WINDOW_NANOS
+                    ? current.rate()
+                    : (total - current.requestsBefore()) * 1e9 / Math.max(1, now - current.start());
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("method", endpoint.getMethod());
+            report.put("url", endpoint.getUrl());
+            report.put("group", endpoint.getGroup());
+            report.put("requests", total);
+            report.put("errors", errors.sum());
+            report.put("rps", Math.round(rps * 100) / 100.0);
+            report.put("p50", millis(percentiles[0]));
+            report.put("p95", millis(percentiles[1]));
+            report.put("p99", millis(percentiles[2]));
+            report.put("max", millis(latencies.max()));
+            return report;
+        }
+    }
+
+    /**
+     * A throughput window: when it started, the request count then, and the rate of the window
+     * before it, or -1 for the first one.
+     */
+    private record Window(long start, long requestsBefore, double rate) {
+
+        Window(long start, long requestsBefore) {
+            this(start, requestsBefore, -1);
+        }
+
+        Window next(long now, long requests) {
+            return new Window(now, requests, (requests - requestsBefore) * 1e9 / (now - start));
+        }
+    }
+}
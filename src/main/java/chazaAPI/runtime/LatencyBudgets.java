@@ -0,0 +1,263 @@
+package chazaAPI.runtime;
+
+import chazaAPI.documentation.Endpoint;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks bound routes against the latency budget their endpoint documents with
+ * {@code latencyBudgetMs}, a target for the 99th percentile.
+ *
+ * <p>Requests are timed from the start {@link RouteBinder#markStart(Context)} keeps, and a sample
+ * of them is counted against the route they matched. Each endpoint counts its timed requests and those over
+ * budget in a sliding window of one minute, made of twelve five-second slots that are reused as
+ * time moves on. Under the target, at most 1% of requests may be slow; the budget burn rate is
+ * the share of slow requests divided by that 1%. An endpoint burning its budget faster than it
+ * is earned, i.e. a burn rate above 1 over at least {@value #MIN_REQUESTS} requests, is flagged
+ * as violating.</p>
+ *
+ * <p>Whether an endpoint violates its budget is decided again, on the request thread, after
+ * every slow request, when a slot is reused and for one in 64 requests in between, which adds
+ * a scan of twelve slots to those requests only. It is also decided on every {@link #report()},
+ * so an endpoint that stops getting requests is still seen to recover. Counts are kept in {@link LongAdder}s, so
+ * requests to one endpoint on many threads do not contend on a single counter. The
+ * {@link Listener} is told about every change and is the hook for alerting; it should hand off
+ * anything slow. Counting is approximate under contention, as a slot being reused may lose the
+ * few counts that race with the reset.</p>
+ */
+public final class LatencyBudgets {
+
+    /**
+     * Share of requests allowed over budget: the budget is a target for the 99th percentile.
+     */
+    private static final double ALLOWED_SLOW = 0.01;
+
+    /**
+     * Requests a window needs before an endpoint can be flagged, so a few slow ones do not.
+     */
+    private static final long MIN_REQUESTS = 20;
+
+    private final double sampleRate;
+    private final Listener listener;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * Told when an endpoint starts or stops violating its latency budget.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param status the endpoint's state in the window that triggered the change
+         */
+        void onChange(Status status);
+    }
+
+    /**
+     * An endpoint's latency against its budget over the last minute.
+     *
+     * @param endpoint  the endpoint
+     * @param violating whether it burns its budget faster than it is earned
+     * @param requests  the requests timed
+     * @param slow      the requests timed over budget
+     * @param burnRate  the share of slow requests over the share allowed, 1 meaning exactly on budget
+     */
+    public record Status(Endpoint endpoint, boolean violating, long requests, long slow, double burnRate) {
+    }
+
+    /**
+     * @param sampleRate the share of requests to time, between 0 and 1
+     * @param listener   told when an endpoint starts or stops violating its budget
+     * @throws IllegalArgumentException if the rate is not between 0 and 1
+     */
+    public LatencyBudgets(double sampleRate, Listener listener) {
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be in (0, 1]: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Registers the before- and after-matched handlers that time the routes whose endpoint has a
+     * latency budget.
+     *
+     * @param server the server the routes are registered with
+     * @param routes the routes
+     */
+    public void attach(Javalin server, List<RouteBinder.Route> routes) {
+        Map<String, Budget> byRoute = new HashMap<>();
+        for (RouteBinder.Route route : routes) {
+            if (route.endpoint().getLatencyBudgetMs() != null) {
+                byRoute.put(route.key(), track(route.endpoint()));
+            }
+        }
+        if (byRoute.isEmpty()) {
+            return;
+        }
+        server.beforeMatched(ctx -> {
+            if (byRoute.containsKey(RouteBinder.matchedRoute(ctx))) {
+                RouteBinder.markStart(ctx);
+            }
+        });
+        server.afterMatched(ctx -> {
+            Budget budget = byRoute.get(RouteBinder.matchedRoute(ctx));
+            if (budget != null && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+                long nanos = RouteBinder.elapsedNanos(ctx);
+                if (nanos >= 0) {
+                    budget.record(nanos);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param endpoint an endpoint with a latency budget
+     * @return the counters of the endpoint, created on first use
+     * @throws IllegalArgumentException if the endpoint has no latency budget
+     */
+    public Budget track(Endpoint endpoint) {
+        if (endpoint.getLatencyBudgetMs() == null) {
+            throw new IllegalArgumentException("No latency budget for " + endpoint.getMethod() + " " + endpoint.getUrl());
+        }
+        return budgets.computeIfAbsent(endpoint.getMethod() + " " + endpoint.getUrl(), key -> new Budget(endpoint));
+    }
+
+    /**
+     * @return the sample rate and, per endpoint with a budget, sorted by URL and method, its
+     * budget and its state over the last minute; the endpoints violating their budget are also listed apart
+     */
+    public Map<String, Object> report() {
+        long slot = currentSlot();
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        List<String> violating = new ArrayList<>();
+        budgets.values().stream()
+                .sorted(Comparator.comparing((Budget budget) -> budget.endpoint.getUrl()).thenComparing(budget -> budget.endpoint.getMethod().name()))
+                .forEach(budget -> {
+                    Status status = budget.evaluate(slot);
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("method", budget.endpoint.getMethod());
+                    entry.put("url", budget.endpoint.getUrl());
+                    entry.put("latencyBudgetMs", budget.endpoint.getLatencyBudgetMs());
+                    entry.put("requests", status.requests());
+                    entry.put("slow", status.slow());
+                    entry.put("burnRate", Math.round(status.burnRate() * 100) / 100.0);
+                    entry.put("violating", status.violating());
+                    endpoints.add(entry);
+                    if (status.violating()) {
+                        violating.add(budget.endpoint.getMethod() + " " + budget.endpoint.getUrl());
+                    }
+                });
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sampleRate", sampleRate);
+        report.put("violating", violating);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private static long currentSlot() {
+        return Math.floorDiv(System.nanoTime(), Budget.SLOT_NANOS);
+    }
+
+    /**
+     * The sliding window of one endpoint.
+     */
+    public final class Budget {
+
+        private static final int SLOTS = 12;
+        private static final long SLOT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+        /**
+         * Requests between two decisions within a slot, on average, when none is slow.
+         */
+        private static final int EVALUATE_EVERY = 64;
+
+        private final Endpoint endpoint;
+        private final long budgetNanos;
+        private final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+        private final LongAdder[] totals = new LongAdder[SLOTS];
+        private final LongAdder[] slows = new LongAdder[SLOTS];
+        private final AtomicBoolean violating = new AtomicBoolean();
+
+        private Budget(Endpoint endpoint) {
+            this.endpoint = endpoint;
+            this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(endpoint.getLatencyBudgetMs());
+            long slot = currentSlot();
+            for (int i = 0; i < SLOTS; i++) {
+                // marks every slot as stale
+                slots.set(i, slot - SLOTS);
+                totals[i] = new LongAdder();
+                slows[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Counts one timed request.
+         *
+         * @param nanos how long the request took
+         */
+        public void record(long nanos) {
+            long slot = currentSlot();
+            int index = Math.floorMod(slot, SLOTS);
+            long seen = slots.get(index);
+            if (seen != slot && slots.compareAndSet(index, seen, slot)) {
+                totals[index].reset();
+                slows[index].reset();
+            }
+            totals[index].increment();
+            boolean slow = nanos > budgetNanos;
+            if (slow) {
+                slows[index].increment();
+            }
+            if (seen != slot || slow || ThreadLocalRandom.current().nextInt(EVALUATE_EVERY) == 0) {
+                evaluate(slot);
+            }
+        }
+
+        private Status evaluate(long slot) {
+            Status status = status(slot);
+            if (violating.compareAndSet(!status.violating(), status.violating())) {
+                try {
+                    listener.onChange(status);
+                } catch (RuntimeException e) {
+                    // alerting must not fail the request or report that noticed the change
+                }
+            }
+            return status;
+        }
+
+        /**
+         * @return the endpoint's state over the window ending with the given slot
+         */
+        private Status status(long slot) {
+            long requests = 0;
+            long slow = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                long age = slot - slots.get(i);
+                if (age >= 0 && age < SLOTS) {
+                    requests += totals[i].sum();
+                    slow += slows[i].sum();
+                }
+            }
+            double burnRate = requests == 0 ? 0 : (double) slow / requests / ALLOWED_SLOW;
+            return new Status(endpoint, requests >= MIN_REQUESTS && burnRate > 1, requests, slow, burnRate);
+        }
+
+        /**
+         * Decides again whether the endpoint violates its budget, telling the listener if that changed.
+         *
+         * @return the endpoint's state over the last minute
+         */
+        public Status status() {
+            return evaluate(currentSlot());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package chazaAPI.runtime;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of latencies in microseconds, with logarithmic buckets.
+ *
+ * <p>Values below 16 have a bucket each. Above that, every power of two is split into 16
+ * buckets of equal width, so a bucket is never wider than 1/16 of the values it holds and
+ * percentiles are off by at most about 6%. The buckets up to about 19 hours take 528 longs,
+ * allocated once; larger values land in the last bucket. Recording computes the bucket from
+ * the position of the highest bit and increments it, without locking or allocating.</p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 35;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value.
+     *
+     * @param micros the latency in microseconds; negative values count as 0
+     */
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return the middle of the values a bucket holds
+     */
+    static long valueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+
+    /**
+     * @return how many values were recorded
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return the largest value recorded, or 0 if there is none
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Reads several percentiles in one pass. Values recorded meanwhile may or may not be counted.
+     *
+     * @param quantiles quantiles between 0 and 1, in increasing order, e.g. 0.5, 0.95 and 0.99
+     * @return the value in microseconds below which each quantile of the values lies, 0 for all if there is none
+     */
+    public long[] percentiles(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] values = new long[quantiles.length];
+        if (total == 0) {
+            return values;
+        }
+        long seen = 0;
+        int next = 0;
+        for (int i = 0; i < BUCKETS && next < quantiles.length; i++) {
+            seen += snapshot[i];
+            while (next < quantiles.length && seen >= Math.max(1, (long) Math.ceil(quantiles[next] * total))) {
+                values[next++] = Math.min(valueOf(i), max.get());
+            }
+        }
+        return values;
+    }
+}
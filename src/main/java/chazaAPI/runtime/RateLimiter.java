@@ -0,0 +1,150 @@
+package chazaAPI.runtime;
+
+import chazaAPI.documentation.Endpoint;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpResponseException;
+import io.javalin.http.HttpStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces the rate limits endpoints document with {@code rateLimits}, in a before-matched handler
+ * that answers requests over the limit of the route they matched with a 429 before anything else runs.
+ *
+ * <p>Every role an endpoint limits has a {@link TokenBucket} of its own, shared by all the
+ * requests of that role; the limit of {@code any} applies to the roles without one. The role of a
+ * request comes from the {@link RoleResolver}, since how callers are authenticated is up to the
+ * application. Refused requests get a {@code Retry-After} header, and the allowed and refused
+ * requests of every bucket are reported by {@link #report()}, which {@code /chaza-json/runtime} serves.</p>
+ */
+public final class RateLimiter {
+
+    private final RoleResolver roles;
+    private final Map<String, Limits> limits = new ConcurrentHashMap<>();
+
+    /**
+     * Tells the role a request is made with.
+     */
+    @FunctionalInterface
+    public interface RoleResolver {
+
+        /**
+         * @param ctx the request
+         * @return the role of the caller, or null if it has none
+         */
+        String roleOf(Context ctx);
+    }
+
+    /**
+     * Limits every request with the limit of {@code any}.
+     */
+    public RateLimiter() {
+        this(ctx -> null);
+    }
+
+    /**
+     * @param roles tells the role of a request
+     */
+    public RateLimiter(RoleResolver roles) {
+        this.roles = Objects.requireNonNull(roles);
+    }
+
+    /**
+     * Registers a before-matched handler that takes a token for the requests to the routes whose
+     * endpoint documents rate limits. To refuse requests before other before-matched handlers
+     * run, attach it first.
+     *
+     * @param server the server the routes are registered with
+     * @param routes the routes
+     */
+    public void attach(Javalin server, List<RouteBinder.Route> routes) {
+        Map<String, Limits> byRoute = new HashMap<>();
+        for (RouteBinder.Route route : routes) {
+            if (route.endpoint().getRateLimits() != null) {
+                byRoute.put(route.key(), limits.computeIfAbsent(route.key(), key -> new Limits(route.endpoint())));
+            }
+        }
+        if (byRoute.isEmpty()) {
+            return;
+        }
+        server.beforeMatched(ctx -> {
+            Limits routeLimits = byRoute.get(RouteBinder.matchedRoute(ctx));
+            if (routeLimits != null) {
+                routeLimits.acquire(ctx, roles.roleOf(ctx));
+            }
+        });
+    }
+
+    /**
+     * @return per endpoint with rate limits, sorted by URL and method, and per role: the limit and
+     * the requests allowed and refused
+     */
+    public List<Map<String, Object>> report() {
+        return limits.values().stream()
+                .sorted(Comparator.comparing((Limits l) -> l.endpoint.getUrl()).thenComparing(l -> l.endpoint.getMethod().name()))
+                .map(Limits::report)
+                .toList();
+    }
+
+    /**
+     * The buckets of one route, by role.
+     */
+    private static final class Limits {
+
+        private final Endpoint endpoint;
+        private final Map<String, Bucket> buckets = new TreeMap<>();
+
+        Limits(Endpoint endpoint) {
+            this.endpoint = endpoint;
+            endpoint.getRateLimits().forEach((role, policy) -> buckets.put(role, new Bucket(new TokenBucket(policy.perSecond(), policy.burst()))));
+        }
+
+        void acquire(Context ctx, String role) {
+            Bucket bucket = role == null ? null : buckets.get(role);
+            if (bucket == null) {
+                bucket = buckets.get("any");
+                if (bucket == null) {
+                    return;
+                }
+            }
+            if (bucket.tokens.tryAcquire()) {
+                bucket.allowed.increment();
+                return;
+            }
+            bucket.refused.increment();
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(bucket.tokens.nanosUntilAvailable() + TimeUnit.SECONDS.toNanos(1) - 1));
+            ctx.header(Header.RETRY_AFTER, String.valueOf(seconds));
+            throw new HttpResponseException(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded",
+                    Map.of("retryAfterSeconds", String.valueOf(seconds)));
+        }
+
+        Map<String, Object> report() {
+            Map<String, Object> byRole = new LinkedHashMap<>();
+            buckets.forEach((role, bucket) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("perSecond", bucket.tokens.getPerSecond());
+                entry.put("burst", bucket.tokens.getBurst());
+                entry.put("allowed", bucket.allowed.sum());
+                entry.put("refused", bucket.refused.sum());
+                byRole.put(role, entry);
+            });
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("method", endpoint.getMethod());
+            report.put("url", endpoint.getUrl());
+            report.put("roles", byRole);
+            return report;
+        }
+    }
+
+    private record Bucket(TokenBucket tokens, LongAdder allowed, LongAdder refused) {
+
+        Bucket(TokenBucket tokens) {
+            this(tokens, new LongAdder(), new LongAdder());
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package chazaAPI.runtime;
+
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.Field;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Checks request bodies against the request schema an endpoint documents.
+ *
+ * <p>The schema is compiled once into a tree of checks, and a body is checked in a single
+ * pass over Jackson's streaming parser, without building an object tree. Checking stops at
+ * the first violation. DTOs are compiled from their classes rather than from their documented
+ * {@link chazaAPI.schema.Schema}, which does not tell arrays and JDK types from nested objects.</p>
+ *
+ * <ul>
+ *     <li>Fields declared with {@code requestFields} are all required and may not be null.</li>
+ *     <li>Fields of a {@code requestDTO} are required when their Java type is primitive, since
+ *     they cannot hold null; other fields may be missing or null.</li>
+ *     <li>Numbers, booleans and strings must have the declared JSON type, integral types take
+ *     no fraction, and enums take the name of one of their constants.</li>
+ *     <li>Arrays and collections must be arrays of valid elements, and nested classes objects of
+ *     their valid non-static fields. {@code byte[]} and {@code char[]} are strings, as Jackson writes them.</li>
+ *     <li>JDK types are checked against the JSON type Jackson writes them as: numbers such as
+ *     {@code BigDecimal} and {@code BigInteger} as numbers, {@code UUID}, {@code URI} and the like as
+ *     strings, and maps as objects. Types whose form depends on the mapper, such as
+ *     {@code java.time} types and {@code Date}, take any value.</li>
+ *     <li>Fields the schema does not describe are skipped, as are values of types it does not
+ *     know, such as collections of unknown elements. A class referring back to one of its
+ *     ancestors is only checked to be an object.</li>
+ * </ul>
+ *
+ * <p>A body that fails is answered with a 400 whose details name the offending field as a
+ * path from the root, e.g. {@code $.items[2].category}, and what is wrong with it. The same
+ * checks serve to compare response bodies with their documented schema, see
+ * {@link #ofResponse(EndPoint)}.</p>
+ */
+public final class RequestValidator {
+
+    /**
+     * Leaves streams open, so a response checked in place can still be sent.
+     */
+    private static final JsonFactory JSON = JsonFactory.builder().disable(StreamReadFeature.AUTO_CLOSE_SOURCE).build();
+
+    private static final String ROOT = "$";
+
+    /**
+     * JDK types Jackson writes as strings, besides character sequences and paths.
+     */
+    private static final Set<Class<?>> STRING_TYPES = Set.of(UUID.class, URI.class, URL.class, Locale.class,
+            Currency.class, Pattern.class, File.class, Charset.class);
+
+    private final Check root;
+
+    private RequestValidator(Check root) {
+        this.root = root;
+    }
+
+    /**
+     * A field of a body that does not match its schema.
+     *
+     * @param field   the path of the field from the root of the body, e.g. {@code $.items[2].category}
+     * @param message what is wrong with it
+     */
+    public record Violation(String field, String message) {
+
+        private Violation at(String segment) {
+            return new Violation(segment + field, message);
+        }
+    }
+
+    /**
+     * Compiles the validator of the request body an endpoint documents.
+     *
+     * @param endPoint the endpoint annotation
+     * @return the validator, or an empty optional if the endpoint documents no request body
+     */
+    public static Optional<RequestValidator> of(EndPoint endPoint) {
+        if (endPoint.requestFields().length > 0) {
+            return Optional.of(forFields(endPoint.requestFields()));
+        }
+        if (endPoint.requestDTO() != void.class) {
+            return Optional.of(forType(endPoint.requestDTO()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Compiles the validator of the response body an endpoint documents.
+     *
+     * @param endPoint the endpoint annotation
+     * @return the validator, or an empty optional if the endpoint documents no response body
+     */
+    public static Optional<RequestValidator> ofResponse(EndPoint endPoint) {
+        if (endPoint.responseFields().length > 0) {
+            return Optional.of(forFields(endPoint.responseFields()));
+        }
+        if (endPoint.responseDTO() != void.class) {
+            return Optional.of(forType(endPoint.responseDTO()));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Compiles a validator for a body made of the given fields, all of them required.
+     *
+     * @param fields the fields, as declared in {@code requestFields}
+     * @return the validator
+     */
+    public static RequestValidator forFields(Field[] fields) {
+        Map<String, Check> checks = new LinkedHashMap<>();
+        for (Field field : fields) {
+            checks.put(field.name(), Scalar.named(field.type()).required());
+        }
+        return new RequestValidator(new ObjectCheck(checks).required());
+    }
+
+    /**
+     * Compiles a validator for a body holding a DTO.
+     *
+     * @param type the class of the DTO
+     * @return the validator
+     */
+    public static RequestValidator forType(Class<?> type) {
+        return new RequestValidator(compile(type, type, new ArrayList<>()).required());
+    }
+
+    /**
+     * Compiles the check of a value of the given type, reached through the classes in {@code path}.
+     */
+    private static Check compile(Class<?> type, Type generic, List<Class<?>> path) {
+        if (type.isPrimitive()) {
+            // primitives cannot be null, so a DTO cannot do without them
+            return Scalar.named(type.getName()).required();
+        }
+        if (type.isEnum()) {
+            return enumCheck(type);
+        }
+        if (type == byte[].class || type == char[].class) {
+            return Scalar.STRING;
+        }
+        if (type.isArray()) {
+            return new ArrayCheck(compile(type.getComponentType(), type.getComponentType(), path));
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> element = elementType(generic);
+            return element == null ? Scalar.ANY : new ArrayCheck(compile(element, element, path));
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return new ObjectCheck(Map.of());
+        }
+        if (type.getClassLoader() == null || type.getClassLoader() == ClassLoader.getPlatformClassLoader()) {
+            return jdkValue(type);
+        }
+        if (path.contains(type)) {
+            return new ObjectCheck(Map.of());
+        }
+        path.add(type);
+        Map<String, Check> checks = new LinkedHashMap<>();
+        for (java.lang.reflect.Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                checks.put(field.getName(), compile(field.getType(), field.getGenericType(), path));
+            }
+        }
+        path.remove(path.size() - 1);
+        return new ObjectCheck(checks);
+    }
+
+    /**
+     * @return the check of a JDK class that is neither a collection nor a map
+     */
+    private static Check jdkValue(Class<?> type) {
+        Scalar scalar = Scalar.named(type.getSimpleName());
+        if (scalar != Scalar.ANY) {
+            return scalar;
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            return Scalar.NUMBER;
+        }
+        if (CharSequence.class.isAssignableFrom(type) || Path.class.isAssignableFrom(type) || STRING_TYPES.contains(type)) {
+            return Scalar.STRING;
+        }
+        return Scalar.ANY;
+    }
+
+    /**
+     * Reads the constants from the declared fields, which does not initialize the enum.
+     */
+    private static Check enumCheck(Class<?> type) {
+        Set<String> constants = new HashSet<>();
+        for (java.lang.reflect.Field field : type.getDeclaredFields()) {
+            if (field.isEnumConstant()) {
+                constants.add(field.getName());
+            }
+        }
+        return new EnumCheck(type.getSimpleName(), Set.copyOf(constants));
+    }
+
+    /**
+     * @return the element class of a single-parameter collection, or null if it is not a plain class
+     */
+    private static Class<?> elementType(Type generic) {
+        if (generic instanceof ParameterizedType pt && pt.getActualTypeArguments().length == 1
+                && pt.getActualTypeArguments()[0] instanceof Class<?> element) {
+            return element;
+        }
+        return null;
+    }
+
+    /**
+     * Checks a body.
+     *
+     * @param body the raw body
+     * @return the first violation found, or an empty optional if the body is valid
+     */
+    public Optional<Violation> validate(byte[] body) {
+        try (JsonParser parser = JSON.createParser(body)) {
+            return validate(parser);
+        } catch (IOException e) {
+            return Optional.of(new Violation(ROOT, "Unreadable body: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks a body read from a stream, which is left open.
+     *
+     * @param body the raw body
+     * @return the first violation found, or an empty optional if the body is valid
+     */
+    public Optional<Violation> validate(InputStream body) {
+        try (JsonParser parser = JSON.createParser(body)) {
+            return validate(parser);
+        } catch (IOException e) {
+            return Optional.of(new Violation(ROOT, "Unreadable body: " + e.getMessage()));
+        }
+    }
+
+    private Optional<Violation> validate(JsonParser parser) throws IOException {
+        try {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return Optional.of(new Violation(ROOT, "Request body is missing"));
+            }
+            Violation violation = root.check(parser, first);
+            if (violation == null && parser.nextToken() != null) {
+                violation = new Violation("", "Unexpected content after the body");
+            }
+            return Optional.ofNullable(violation).map(v -> v.at(ROOT));
+        } catch (JsonProcessingException e) {
+            return Optional.of(new Violation(ROOT, "Malformed JSON: " + e.getOriginalMessage()));
+        }
+    }
+
+    /**
+     * Checks the body of a request, for use as a before-handler.
+     *
+     * @param ctx the request
+     * @throws BadRequestResponse if the body does not match the schema
+     */
+    public void validate(Context ctx) {
+        Optional<Violation> violation = validate(ctx.bodyAsBytes());
+        if (violation.isPresent()) {
+            throw new BadRequestResponse("Invalid request body",
+                    Map.of("field", violation.get().field(), "error", violation.get().message()));
+        }
+    }
+
+    /**
+     * One node of a compiled schema. A check consumes the value starting at the current token,
+     * including all of its children, and returns the violation it found, if any, with a path
+     * relative to the value.
+     */
+    private sealed interface Check permits Scalar, Required, EnumCheck, ObjectCheck, ArrayCheck {
+
+        Violation check(JsonParser parser, JsonToken token) throws IOException;
+
+        default boolean isRequired() {
+            return false;
+        }
+
+        default Check required() {
+            return new Required(this);
+        }
+    }
+
+    /**
+     * A value that must be present and not null.
+     */
+    private record Required(Check check) implements Check {
+
+        @Override
+        public Violation check(JsonParser parser, JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NULL) {
+                return new Violation("", "must not be null");
+            }
+            return check.check(parser, token);
+        }
+
+        @Override
+        public boolean isRequired() {
+            return true;
+        }
+
+        @Override
+        public Check required() {
+            return this;
+        }
+    }
+
+    private enum Scalar implements Check {
+        STRING("a string"),
+        BOOLEAN("a boolean"),
+        INTEGER("an integer"),
+        NUMBER("a number"),
+        ANY("any value");
+
+        private final String expected;
+
+        Scalar(String expected) {
+            this.expected = expected;
+        }
+
+        /**
+         * @return the check of a Java simple type name, or of a type name declared in an annotation, e.g. {@code string}
+         */
+        static Scalar named(String type) {
+            return switch (type.toLowerCase(Locale.ROOT)) {
+                case "string", "char", "character" -> STRING;
+                case "boolean" -> BOOLEAN;
+                case "byte", "short", "int", "integer", "long", "biginteger" -> INTEGER;
+                case "float", "double", "number", "bigdecimal" -> NUMBER;
+                default -> ANY;
+            };
+        }
+
+        @Override
+        public Violation check(JsonParser parser, JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            boolean valid = switch (this) {
+                case STRING -> token == JsonToken.VALUE_STRING;
+                case BOOLEAN -> token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE;
+                case INTEGER -> token == JsonToken.VALUE_NUMBER_INT;
+                case NUMBER -> token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT;
+                case ANY -> true;
+            };
+            parser.skipChildren();
+            return valid ? null : new Violation("", "expected " + expected);
+        }
+    }
+
+    private record EnumCheck(String name, Set<String> constants) implements Check {
+
+        @Override
+        public Violation check(JsonParser parser, JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (token != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                return new Violation("", "expected one of " + name + " " + new TreeSet<>(constants));
+            }
+            if (!constants.contains(parser.getText())) {
+                return new Violation("", "'" + parser.getText() + "' is not one of " + name + " " + new TreeSet<>(constants));
+            }
+            return null;
+        }
+    }
+
+    private static final class ObjectCheck implements Check {
+
+        private final String[] names;
+        private final Map<String, Integer> indexes;
+        private final Check[] fields;
+        private final int required;
+
+        ObjectCheck(Map<String, Check> checks) {
+            names = checks.keySet().toArray(String[]::new);
+            fields = checks.values().toArray(Check[]::new);
+            indexes = new HashMap<>();
+            int count = 0;
+            for (int i = 0; i < names.length; i++) {
+                indexes.put(names[i], i);
+                if (fields[i].isRequired()) {
+                    count++;
+                }
+            }
+            required = count;
+        }
+
+        @Override
+        public Violation check(JsonParser parser, JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return new Violation("", "expected an object");
+            }
+            boolean[] seen = required > 0 ? new boolean[names.length] : null;
+            int present = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Integer index = indexes.get(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (index == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                Violation violation = fields[index].check(parser, value);
+                if (violation != null) {
+                    return violation.at("." + names[index]);
+                }
+                if (seen != null && fields[index].isRequired() && !seen[index]) {
+                    seen[index] = true;
+                    present++;
+                }
+            }
+            if (present < required) {
+                for (int i = 0; i < names.length; i++) {
+                    if (fields[i].isRequired() && !seen[i]) {
+                        return new Violation("." + names[i], "is required");
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private record ArrayCheck(Check element) implements Check {
+
+        @Override
+        public Violation check(JsonParser parser, JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return new Violation("", "expected an array");
+            }
+            int index = 0;
+            JsonToken next;
+            while ((next = parser.nextToken()) != JsonToken.END_ARRAY) {
+                Violation violation = element.check(parser, next);
+                if (violation != null) {
+                    return violation.at("[" + index + "]");
+                }
+                index++;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package chazaAPI.runtime;
+
+import chazaAPI.documentation.Endpoint;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HandlerType;
+import io.javalin.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves the responses of GET routes whose endpoint documents a {@code cacheTtlSeconds} from
+ * memory, until they expire.
+ *
+ * <p>A response is cached under the route, the request path and query string and the values of
+ * the request headers the endpoint lists in {@code cacheVaryBy}. Only 200 responses whose result
+ * is held in memory and that set no cookie are cached; a hit sends the same body, content type
+ * and headers the handler set back without calling the handler, and the after-handlers of the
+ * route still run. Headers the before-handlers set for the request at hand take precedence.</p>
+ *
+ * <p>Loading is single-flight: while a request runs the handler for a key, other requests for
+ * that key wait for its response instead of calling the handler too, and run it themselves only
+ * if that response cannot be cached or takes longer than {@value #LOAD_TIMEOUT_MILLIS} ms.</p>
+ *
+ * <p>Memory is bounded per documented group: every group has a byte limit, counting each body
+ * with its key and a fixed overhead, and entries are evicted least recently used first across
+ * the group's routes once it is exceeded, as well as within a route over its
+ * {@code cacheMaxEntries}. A group's entries are kept under a lock of its own, so routes of
+ * different groups never contend. Expired entries are dropped when read, or evicted as the
+ * oldest. Hits, misses and evictions are reported by {@link #report()}, which
+ * {@code /chaza-json/runtime} serves.</p>
+ */
+public final class ResponseCache {
+
+    /**
+     * Response header telling whether a response came from the cache.
+     */
+    public static final String CACHE_HEADER = "X-Chaza-Cache";
+
+    private static final long LOAD_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Bytes counted for an entry besides its body and key.
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /**
+     * Response headers an entry does not keep, as a hit sets them itself.
+     */
+    private static final Set<String> NOT_REPLAYED = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        NOT_REPLAYED.addAll(List.of("Content-Type", "Content-Length", "Vary", CACHE_HEADER));
+    }
+
+    private final long groupBytes;
+    private final Map<String, Long> groupLimits;
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final Map<String, CachedRoute> routes = new ConcurrentHashMap<>();
+
+    /**
+     * @param groupBytes the memory the responses of each group may take, in bytes
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public ResponseCache(long groupBytes) {
+        this(groupBytes, Map.of());
+    }
+
+    /**
+     * @param groupBytes  the memory the responses of each group may take, in bytes
+     * @param groupLimits the limits of the groups that do not take the default one, by group name
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public ResponseCache(long groupBytes, Map<String, Long> groupLimits) {
+        if (groupBytes <= 0) {
+            throw new IllegalArgumentException("Group memory limit must be positive: " + groupBytes);
+        }
+        groupLimits.forEach((group, limit) -> {
+            if (limit == null || limit <= 0) {
+                throw new IllegalArgumentException("Memory limit of group " + group + " must be positive: " + limit);
+            }
+        });
+        this.groupBytes = groupBytes;
+        this.groupLimits = Map.copyOf(groupLimits);
+    }
+
+    /**
+     * @param route a route
+     * @return a handler serving the route's responses from the cache, or the route's own handler
+     * if its endpoint is not cached
+     */
+    public Handler wrap(RouteBinder.Route route) {
+        Endpoint.CachePolicy policy = route.endpoint().getCache();
+        if (policy == null || route.type() != HandlerType.GET) {
+            return route.handler();
+        }
+        String name = Objects.toString(route.endpoint().getGroup(), "");
+        Group group = groups.computeIfAbsent(name, key -> new Group(key, groupLimits.getOrDefault(key, groupBytes)));
+        CachedRoute cached = new CachedRoute(route, policy, group);
+        routes.put(route.type() + " " + route.path(), cached);
+        group.add(cached);
+        return cached::handle;
+    }
+
+    /**
+     * @return per group, its memory limit and use, entries and evictions; per cached endpoint,
+     * sorted by URL, its policy, entries, hits, misses and the requests served by another's load
+     */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("groups", groups.values().stream()
+                .sorted(Comparator.comparing((Group group) -> group.name))
+                .map(Group::report)
+                .toList());
+        report.put("endpoints", routes.values().stream()
+                .sorted(Comparator.comparing((CachedRoute route) -> route.endpoint.getUrl()))
+                .map(CachedRoute::report)
+                .toList());
+        return report;
+    }
+
+    /**
+     * A cached response. {@code used} is the group's clock at its last read, guarded by the group.
+     */
+    private static final class Entry {
+
+        private final byte[] body;
+        private final String contentType;
+        private final Map<String, List<String>> headers;
+        private final long expiresAt;
+        private final long size;
+        private long used;
+
+        Entry(byte[] body, String contentType, Map<String, List<String>> headers, long expiresAt, long size) {
+            this.body = body;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.expiresAt = expiresAt;
+            this.size = size;
+        }
+
+        boolean expired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    private final class CachedRoute {
+
+        private final Endpoint endpoint;
+        private final Handler handler;
+        private final long ttlNanos;
+        private final List<String> varyBy;
+        private final String vary;
+        private final int maxEntries;
+        private final Group group;
+
+        /**
+         * Responses in access order, guarded by the group.
+         */
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+
+        CachedRoute(RouteBinder.Route route, Endpoint.CachePolicy policy, Group group) {
+            this.endpoint = route.endpoint();
+            this.handler = route.handler();
+            this.ttlNanos = TimeUnit.SECONDS.toNanos(policy.ttlSeconds());
+            this.varyBy = policy.varyBy();
+            this.vary = varyBy.isEmpty() ? null : String.join(", ", varyBy);
+            this.maxEntries = policy.maxEntries() == null ? 0 : policy.maxEntries();
+            this.group = group;
+        }
+
+        void handle(Context ctx) throws Exception {
+            String key = key(ctx);
+            Entry entry = group.get(this, key);
+            if (entry != null) {
+                hits.increment();
+                serve(ctx, entry);
+                return;
+            }
+            CompletableFuture<Entry> load = new CompletableFuture<>();
+            CompletableFuture<Entry> leader = loading.putIfAbsent(key, load);
+            if (leader != null) {
+                Entry loaded = await(leader);
+                if (loaded != null) {
+                    coalesced.increment();
+                    serve(ctx, loaded);
+                    return;
+                }
+                misses.increment();
+                respond(ctx);
+                return;
+            }
+            // the previous load may have completed between the lookup and taking its place
+            entry = group.get(this, key);
+            if (entry != null) {
+                loading.remove(key, load);
+                load.complete(entry);
+                hits.increment();
+                serve(ctx, entry);
+                return;
+            }
+            misses.increment();
+            Entry loaded = null;
+            try {
+                Set<String> preset = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                preset.addAll(ctx.res().getHeaderNames());
+                respond(ctx);
+                loaded = capture(ctx, key, preset);
+                if (loaded != null) {
+                    group.put(this, key, loaded);
+                }
+            } finally {
+                loading.remove(key, load);
+                load.complete(loaded);
+            }
+        }
+
+        private String key(Context ctx) {
+            StringBuilder key = new StringBuilder(ctx.path());
+            String query = ctx.queryString();
+            if (query != null) {
+                key.append('?').append(query);
+            }
+            for (String header : varyBy) {
+                key.append('\n').append(Objects.toString(ctx.header(header), ""));
+            }
+            return key.toString();
+        }
+
+        private Entry await(CompletableFuture<Entry> leader) {
+            try {
+                return leader.get(LOAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                return null;
+            }
+        }
+
+        private void respond(Context ctx) throws Exception {
+            handler.handle(ctx);
+            ctx.header(CACHE_HEADER, "MISS");
+            if (vary != null) {
+                ctx.header("Vary", vary);
+            }
+        }
+
+        private void serve(Context ctx, Entry entry) {
+            ctx.status(HttpStatus.OK);
+            if (entry.contentType != null) {
+                ctx.contentType(entry.contentType);
+            }
+            entry.headers.forEach((name, values) -> {
+                if (!ctx.res().containsHeader(name)) {
+                    values.forEach(value -> ctx.res().addHeader(name, value));
+                }
+            });
+            ctx.result(entry.body);
+            ctx.header(CACHE_HEADER, "HIT");
+            if (vary != null) {
+                ctx.header("Vary", vary);
+            }
+        }
+
+        /**
+         * @param preset the response headers set before the handler ran, which are not the handler's to keep
+         * @return the response as an entry, or null if it cannot be cached
+         */
+        private Entry capture(Context ctx, String key, Set<String> preset) throws IOException {
+            if (ctx.statusCode() != HttpStatus.OK.getCode() || ctx.res().containsHeader("Set-Cookie")) {
+                return null;
+            }
+            InputStream result = ctx.resultInputStream();
+            if (result == null || !result.markSupported()) {
+                // streamed results cannot be read without consuming them
+                return null;
+            }
+            byte[] body;
+            result.mark(Integer.MAX_VALUE);
+            try {
+                body = result.readAllBytes();
+            } finally {
+                result.reset();
+            }
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            long headerBytes = 0;
+            for (String name : ctx.res().getHeaderNames()) {
+                if (preset.contains(name) || NOT_REPLAYED.contains(name) || headers.containsKey(name)) {
+                    continue;
+                }
+                List<String> values = List.copyOf(ctx.res().getHeaders(name));
+                headers.put(name, values);
+                headerBytes += 2L * name.length() + values.stream().mapToLong(value -> 2L * value.length()).sum();
+            }
+            return new Entry(body, ctx.res().getContentType(), headers, System.nanoTime() + ttlNanos,
+                    body.length + 2L * key.length() + headerBytes + ENTRY_OVERHEAD);
+        }
+
+        Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("method", endpoint.getMethod());
+            report.put("url", endpoint.getUrl());
+            report.put("group", endpoint.getGroup());
+            report.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+            report.put("entries", group.size(this));
+            report.put("hits", hits.sum());
+            report.put("misses", misses.sum());
+            report.put("coalesced", coalesced.sum());
+            return report;
+        }
+    }
+
+    /**
+     * The entries of the routes of one group and the memory they take.
+     */
+    private static final class Group {
+
+        private final String name;
+        private final long limit;
+        private final List<CachedRoute> routes = new ArrayList<>();
+        private final LongAdder evictions = new LongAdder();
+        private long bytes;
+        private long clock;
+
+        Group(String name, long limit) {
+            this.name = name;
+            this.limit = limit;
+        }
+
+        synchronized void add(CachedRoute route) {
+            routes.add(route);
+        }
+
+        synchronized Entry get(CachedRoute route, String key) {
+            Entry entry = route.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expired(System.nanoTime())) {
+                route.entries.remove(key);
+                bytes -= entry.size;
+                return null;
+            }
+            entry.used = ++clock;
+            return entry;
+        }
+
+        synchronized void put(CachedRoute route, String key, Entry entry) {
+            if (entry.size > limit) {
+                return;
+            }
+            entry.used = ++clock;
+            Entry previous = route.entries.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.size;
+            }
+            bytes += entry.size;
+            if (route.maxEntries > 0 && route.entries.size() > route.maxEntries) {
+                evictEldest(route);
+            }
+            while (bytes > limit) {
+                CachedRoute oldest = null;
+                long used = Long.MAX_VALUE;
+                for (CachedRoute candidate : routes) {
+                    if (!candidate.entries.isEmpty()) {
+                        Entry eldest = candidate.entries.values().iterator().next();
+                        if (eldest.used < used) {
+                            oldest = candidate;
+                            used = eldest.used;
+                        }
+                    }
+                }
+                evictEldest(oldest);
+            }
+        }
+
+        private void evictEldest(CachedRoute route) {
+            Iterator<Entry> eldest = route.entries.values().iterator();
+            bytes -= eldest.next().size;
+            eldest.remove();
+            evictions.increment();
+        }
+
+        synchronized int size(CachedRoute route) {
+            return route.entries.size();
+        }
+
+        synchronized Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("group", name);
+            report.put("limitBytes", limit);
+            report.put("bytes", bytes);
+            report.put("entries", routes.stream().mapToInt(route -> route.entries.size()).sum());
+            report.put("evictions", evictions.sum());
+            return report;
+        }
+    }
+}
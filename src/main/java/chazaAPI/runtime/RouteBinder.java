@@ -0,0 +1,271 @@
+package chazaAPI.runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.documentation.MetadataPool;
+import chazaAPI.exceptions.ChazaAPIException;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HandlerType;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registers the handlers of annotated controllers with Javalin, at the method and URL their
+ * {@link EndPoint} documents, so routes and documentation cannot drift apart.
+ *
+ * <p>A handler is a static {@link EndPoint} method taking a single {@link Context}. Each one is
+ * bound through a {@link LambdaMetafactory}-generated {@link Handler} that calls the method
+ * directly, so serving a request costs no reflection. Controllers loaded by another class loader
+ * get a handler that calls a method handle instead. Annotated methods that take no
+ * {@code Context} are documentation only and are not bound.</p>
+ */
+public final class RouteBinder {
+
+    private static final MethodType HANDLER_FACTORY = MethodType.methodType(Handler.class);
+    private static final MethodType HANDLE = MethodType.methodType(void.class, Context.class);
+
+    private static final String MATCHED = "chaza.route";
+    private static final String STARTED = "chaza.start";
+
+    private RouteBinder() {
+    }
+
+    /**
+     * A handler bound to its route.
+     *
+     * @param endpoint the documented endpoint the route serves
+     * @param type     the HTTP method
+     * @param path     the Javalin path
+     * @param handler  the generated handler
+     * @param method   the controller method the handler calls
+     */
+    public record Route(Endpoint endpoint, HandlerType type, String path, Handler handler, Method method) {
+
+        /**
+         * @param handler the handler to serve the route with, usually one that calls this route's own {@link #handler()}
+         * @return this route, served by the given handler
+         */
+        public Route withHandler(Handler handler) {
+            return new Route(endpoint, type, path, handler, method);
+        }
+
+        /**
+         * @return the method and path of the route, as {@link #matchedRoute(Context)} tells them
+         */
+        public String key() {
+            return type + " " + path;
+        }
+    }
+
+    /**
+     * Builds and registers the routes of the given controllers.
+     *
+     * @param server      the server to register the routes with
+     * @param controllers the controller classes
+     * @return the routes registered, controller by controller in the given order
+     * @throws ChazaAPIException if a controller is not annotated with Chaza, or a handler is not static
+     */
+    public static List<Route> bind(Javalin server, List<Class<?>> controllers) throws ChazaAPIException {
+        return bind(server, controllers, false);
+    }
+
+    /**
+     * Builds and registers the routes of the given controllers, optionally checking request
+     * bodies against their documented schema before the handlers run.
+     *
+     * @param server           the server to register the routes with
+     * @param controllers      the controller classes
+     * @param validateRequests whether to check request bodies with a {@link RequestValidator} against the schema their route documents
+     * @return the routes registered, controller by controller in the given order
+     * @throws ChazaAPIException if a controller is not annotated with Chaza, or a handler is not static
+     */
+    public static List<Route> bind(Javalin server, List<Class<?>> controllers, boolean validateRequests) throws ChazaAPIException {
+        return bind(server, controllers, validateRequests, null);
+    }
+
+    /**
+     * Builds and registers the routes of the given controllers, optionally checking request
+     * bodies and serving cached responses.
+     *
+     * @param server           the server to register the routes with
+     * @param controllers      the controller classes
+     * @param validateRequests whether to check request bodies with a {@link RequestValidator} against the schema their route documents
+     * @param cache            the cache serving the routes whose endpoint documents a cache policy, or null not to cache
+     * @return the routes registered, controller by controller in the given order
+     * @throws ChazaAPIException if a controller is not annotated with Chaza, or a handler is not static
+     */
+    public static List<Route> bind(Javalin server, List<Class<?>> controllers, boolean validateRequests, ResponseCache cache) throws ChazaAPIException {
+        List<Route> routes = routes(controllers);
+        register(server, routes, validateRequests, cache);
+        return routes;
+    }
+
+    /**
+     * Registers routes built by {@link #routes(List)}, optionally checking request bodies and
+     * serving cached responses, for callers that attach before-handlers of their own first.
+     *
+     * @param server           the server to register the routes with
+     * @param routes           the routes
+     * @param validateRequests whether to check request bodies with a {@link RequestValidator} against the schema their route documents
+     * @param cache            the cache serving the routes whose endpoint documents a cache policy, or null not to cache
+     * @throws ChazaAPIException if the server is null
+     */
+    public static void register(Javalin server, List<Route> routes, boolean validateRequests, ResponseCache cache) throws ChazaAPIException {
+        if (server == null) {
+            throw new ChazaAPIException("Server instance cannot be null");
+        }
+        // after-matched handlers can only tell the matched route if it is kept before
+        server.beforeMatched(RouteBinder::matchedRoute);
+        for (Route route : routes) {
+            server.addHttpHandler(route.type(), route.path(), cache == null ? route.handler() : cache.wrap(route));
+        }
+        if (validateRequests) {
+            validate(server, routes);
+        }
+    }
+
+    /**
+     * Registers a before-matched handler that checks the body of requests to routes that
+     * document one, answering those that do not match the schema with a 400 before the route's
+     * handler runs. Schemas are compiled once, here.
+     *
+     * @param server the server the routes are registered with
+     * @param routes the routes
+     */
+    public static void validate(Javalin server, List<Route> routes) {
+        Map<String, RequestValidator> validators = new HashMap<>();
+        for (Route route : routes) {
+            RequestValidator.of(route.method().getAnnotation(EndPoint.class)).ifPresent(validator -> validators.put(route.key(), validator));
+        }
+        if (validators.isEmpty()) {
+            return;
+        }
+        server.beforeMatched(ctx -> {
+            RequestValidator validator = validators.get(matchedRoute(ctx));
+            if (validator != null) {
+                validator.validate(ctx);
+            }
+        });
+    }
+
+    /**
+     * Tells which route a request matched, so that a single before- or after-matched handler
+     * can look up the state of that route. A handler registered per path would also run for
+     * every other route whose template matches the same path.
+     *
+     * <p>Javalin only tells the matched route to before-matched handlers; the first call for a
+     * request, which {@link #register} makes for every request, keeps it as an attribute for the
+     * after-matched handlers.</p>
+     *
+     * @param ctx a request that matched a route
+     * @return the method and path of the route, as {@link Route#key()} gives them
+     */
+    public static String matchedRoute(Context ctx) {
+        String key = ctx.attribute(MATCHED);
+        if (key == null) {
+            key = ctx.method() + " " + ctx.endpointHandlerPath();
+            ctx.attribute(MATCHED, key);
+        }
+        return key;
+    }
+
+    /**
+     * Notes when a request started, on the first call only, so that everything timing the
+     * request shares one clock reading.
+     *
+     * @param ctx a request, in a before-matched handler
+     */
+    public static void markStart(Context ctx) {
+        if (ctx.attribute(STARTED) == null) {
+            ctx.attribute(STARTED, System.nanoTime());
+        }
+    }
+
+    /**
+     * @param ctx a request
+     * @return the nanoseconds since {@link #markStart(Context)} was first called for it, or -1 if it was not
+     */
+    public static long elapsedNanos(Context ctx) {
+        Long start = ctx.attribute(STARTED);
+        return start == null ? -1 : System.nanoTime() - start;
+    }
+
+    /**
+     * Builds the routes of the given controllers without registering them.
+     *
+     * @param controllers the controller classes
+     * @return the routes, controller by controller in the given order
+     * @throws ChazaAPIException if a controller is not annotated with Chaza, or a handler is not static
+     */
+    public static List<Route> routes(List<Class<?>> controllers) throws ChazaAPIException {
+        List<Route> routes = new ArrayList<>();
+        MetadataPool pool = new MetadataPool();
+        for (Class<?> controller : controllers) {
+            Chaza chaza = controller.getAnnotation(Chaza.class);
+            if (chaza == null) {
+                throw new ChazaAPIException("class " + controller.getName() + " is not annotated with @Chaza");
+            }
+            for (Method method : controller.getDeclaredMethods()) {
+                EndPoint endPoint = method.getAnnotation(EndPoint.class);
+                if (endPoint == null || !Arrays.equals(method.getParameterTypes(), new Class<?>[]{Context.class})) {
+                    continue;
+                }
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    throw new ChazaAPIException("Handler must be static to be bound -> " + controller.getName() + "." + method.getName());
+                }
+                Endpoint endpoint = Endpoint.fromAnnotation(endPoint, chaza, method.getName(), pool);
+                String path = endpoint.getUrl().startsWith("/") ? endpoint.getUrl() : "/" + endpoint.getUrl();
+                routes.add(new Route(endpoint, HandlerType.valueOf(endpoint.getMethod().name()), path, handler(method), method));
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Generates a {@link Handler} that calls the given static method directly.
+     *
+     * @param method a static method taking a single {@link Context}
+     * @return the handler
+     * @throws ChazaAPIException if the method cannot be accessed
+     */
+    public static Handler handler(Method method) throws ChazaAPIException {
+        try {
+            // a lookup in the controller itself, so the handler can call non-public methods and
+            // is defined by the controller's class loader
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle target = lookup.unreflect(method);
+            if ((lookup.lookupModes() & MethodHandles.Lookup.MODULE) == 0) {
+                // a controller from another class loader lives in another unnamed module, which
+                // leaves the lookup without the full privilege the metafactory requires
+                MethodHandle exact = target.asType(HANDLE);
+                return ctx -> invoke(exact, ctx);
+            }
+            CallSite site = LambdaMetafactory.metafactory(lookup, "handle", HANDLER_FACTORY, HANDLE, target, HANDLE);
+            return (Handler) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new ChazaAPIException("Unable to bind handler " + method.getDeclaringClass().getName() + "."
+                    + method.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static void invoke(MethodHandle handler, Context ctx) throws Exception {
+        try {
+            handler.invokeExact(ctx);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package chazaAPI.runtime;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free token bucket, striped so that many cores taking tokens at once do not all
+ * contend on one counter.
+ *
+ * <p>The rate and the burst are split evenly between the stripes, at most one per core and never
+ * more than the burst, so that each stripe holds at least one token. A stripe is a single
+ * {@code long} kept by the generic cell rate algorithm: the time at which it will be full again,
+ * from which its tokens follow, updated with a compare-and-set. Stripes are padded to their own
+ * cache lines. A thread takes from the stripe its id maps to and only tries the others when
+ * that one is empty, so a request is refused only if every stripe is empty: over any period,
+ * no more than the burst plus the rate times the period are allowed, and no fewer are while
+ * requests keep coming.</p>
+ */
+public final class TokenBucket {
+
+    /**
+     * Longs between two stripes, so that each has a cache line of its own.
+     */
+    private static final int PADDING = 16;
+
+    private final double perSecond;
+    private final int burst;
+    private final int stripes;
+
+    /**
+     * Nanoseconds a stripe takes to earn one token.
+     */
+    private final long interval;
+
+    /**
+     * How far ahead of now each stripe may be full again, i.e. its burst less one token, in nanoseconds.
+     */
+    private final long[] tolerances;
+
+    private final AtomicLongArray full;
+
+    /**
+     * @param perSecond the tokens earned per second
+     * @param burst     the most tokens held at once
+     * @throws IllegalArgumentException if the rate or the burst is not positive
+     */
+    public TokenBucket(double perSecond, int burst) {
+        this(perSecond, burst, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param perSecond the tokens earned per second
+     * @param burst     the most tokens held at once
+     * @param stripes   the stripes to split the bucket into, lowered to the burst if above it
+     * @throws IllegalArgumentException if the rate, the burst or the stripes are not positive
+     */
+    public TokenBucket(double perSecond, int burst, int stripes) {
+        if (!(perSecond > 0) || burst <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("Rate, burst and stripes must be positive: " + perSecond + ", " + burst + ", " + stripes);
+        }
+        this.perSecond = perSecond;
+        this.burst = burst;
+        this.stripes = Math.min(stripes, burst);
+        this.interval = Math.max(1, Math.round(this.stripes * TimeUnit.SECONDS.toNanos(1) / perSecond));
+        this.tolerances = new long[this.stripes];
+        this.full = new AtomicLongArray(this.stripes * PADDING);
+        long now = System.nanoTime();
+        for (int i = 0; i < this.stripes; i++) {
+            int tokens = burst / this.stripes + (i < burst % this.stripes ? 1 : 0);
+            tolerances[i] = (tokens - 1) * interval;
+            // full since long ago
+            full.set(i * PADDING, now - interval);
+        }
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @return whether a token was taken
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        int first = (int) (Thread.currentThread().threadId() % stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (tryAcquire((first + i) % stripes, now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAcquire(int stripe, long now) {
+        int index = stripe * PADDING;
+        while (true) {
+            long current = full.get(index);
+            long from = now - current > 0 ? now : current;
+            if (from - now > tolerances[stripe]) {
+                return false;
+            }
+            if (full.compareAndSet(index, current, from + interval)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return how long until a token can be taken, in nanoseconds, 0 if one can now
+     */
+    public long nanosUntilAvailable() {
+        long now = System.nanoTime();
+        long wait = Long.MAX_VALUE;
+        for (int i = 0; i < stripes; i++) {
+            wait = Math.min(wait, Math.max(0, full.get(i * PADDING) - now - tolerances[i]));
+        }
+        return wait;
+    }
+
+    /**
+     * @return the tokens earned per second
+     */
+    public double getPerSecond() {
+        return perSecond;
+    }
+
+    /**
+     * @return the most tokens held at once
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return the stripes the bucket is split into
+     */
+    public int getStripes() {
+        return stripes;
+    }
+}
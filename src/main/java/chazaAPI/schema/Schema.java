@@ -0,0 +1,393 @@
+package chazaAPI.schema;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable description of the fields of a DTO, as documented for request and response bodies.
+ *
+ * <p>A schema is a tree of five kinds of nodes: {@link Primitive} for simple types,
+ * {@link EnumType} for enums, {@link ObjectType} for classes with fields, {@link ArrayType}
+ * for collections and {@link Reference} for a class that refers back to one of its ancestors.
+ * Nodes compute their hash once when they are built, so comparing two schemas is cheap and
+ * usually decided by the hash or by identity.</p>
+ *
+ * <p>For compatibility with the map trees schemas used to be, object, array and reference
+ * nodes are also read-only {@link Map}s and {@link List}s in which primitives and enums appear
+ * as their type name, and they are equal to the maps and lists they replace. Their JSON is
+ * written by {@link SchemaSerializer} and has the same shape as before.</p>
+ */
+public sealed interface Schema permits Schema.Primitive, Schema.EnumType, Schema.ObjectType, Schema.ArrayType, Schema.Reference {
+
+    /**
+     * Key of the node that stands in for a class already being described higher up in the same tree.
+     */
+    String REF = "$ref";
+
+    /**
+     * @return the hash of the node's map, list or type name view
+     */
+    int viewHash();
+
+    /**
+     * @return the node as it appears in a map tree: the type name for primitives and enums, the node itself otherwise
+     */
+    Object view();
+
+    /**
+     * Converts a map tree, e.g. read back from JSON, into a schema. Strings become primitives,
+     * since the JSON does not tell enums apart.
+     *
+     * @param fields a map of field names to type names, nested maps and single-element lists
+     * @return the equivalent schema; the argument itself if it is one already
+     * @throws IllegalArgumentException if the tree holds anything else
+     */
+    static ObjectType of(Map<String, ?> fields) {
+        if (fields instanceof ObjectType object) {
+            return object;
+        }
+        String[] names = new String[fields.size()];
+        Schema[] nodes = new Schema[fields.size()];
+        int i = 0;
+        for (Map.Entry<String, ?> field : fields.entrySet()) {
+            names[i] = field.getKey();
+            nodes[i++] = node(field.getValue());
+        }
+        return new ObjectType(names, nodes);
+    }
+
+    private static Schema node(Object value) {
+        if (value instanceof Schema schema) {
+            return schema;
+        }
+        if (value instanceof String name) {
+            return Primitive.of(name);
+        }
+        if (value instanceof Map<?, ?> map) {
+            if (map.size() == 1 && map.get(REF) instanceof String name) {
+                return new Reference(name);
+            }
+            Map<String, Object> fields = new LinkedHashMap<>();
+            map.forEach((key, field) -> fields.put(String.valueOf(key), field));
+            return of(fields);
+        }
+        if (value instanceof List<?> list && list.size() == 1) {
+            return new ArrayType(node(list.get(0)));
+        }
+        throw new IllegalArgumentException("Not a schema node: " + value);
+    }
+
+    /**
+     * A primitive, a wrapper, a String, or a collection whose element type is unknown.
+     * Instances are shared, as there are only a handful of distinct ones.
+     */
+    @JsonSerialize(using = SchemaSerializer.class)
+    record Primitive(String name) implements Schema {
+
+        private static final Map<String, Primitive> SHARED = new ConcurrentHashMap<>();
+
+        /**
+         * @return the shared node of the given type name
+         */
+        public static Primitive of(String name) {
+            return SHARED.computeIfAbsent(name, Primitive::new);
+        }
+
+        @Override
+        public int viewHash() {
+            return name.hashCode();
+        }
+
+        @Override
+        public Object view() {
+            return name;
+        }
+    }
+
+    /**
+     * An enum, with the names of its constants in declaration order. Documented by its name only.
+     */
+    @JsonSerialize(using = SchemaSerializer.class)
+    record EnumType(String name, List<String> values) implements Schema {
+
+        public EnumType {
+            values = List.copyOf(values);
+        }
+
+        @Override
+        public int viewHash() {
+            return name.hashCode();
+        }
+
+        @Override
+        public Object view() {
+            return name;
+        }
+    }
+
+    /**
+     * A class and its fields, in declaration order. Field names and nodes are kept in two
+     * arrays instead of a hash table, as DTOs rarely have more than a few dozen fields.
+     */
+    @JsonSerialize(using = SchemaSerializer.class)
+    final class ObjectType extends AbstractMap<String, Object> implements Schema {
+
+        /**
+         * A class without fields.
+         */
+        public static final ObjectType EMPTY = new ObjectType(new String[0], new Schema[0]);
+
+        private final String[] names;
+        private final Schema[] fields;
+        private final int hash;
+
+        /**
+         * @param names  the field names; the array is kept, not copied
+         * @param fields the field nodes, in the same order; the array is kept, not copied
+         */
+        public ObjectType(String[] names, Schema[] fields) {
+            if (names.length != fields.length) {
+                throw new IllegalArgumentException(names.length + " names for " + fields.length + " fields");
+            }
+            this.names = names;
+            this.fields = fields;
+            int h = 0;
+            for (int i = 0; i < names.length; i++) {
+                // the hash of a Map entry, so the hash matches the map view
+                h += names[i].hashCode() ^ fields[i].viewHash();
+            }
+            this.hash = h;
+        }
+
+        /**
+         * @return the name of the field at the given position
+         */
+        public String name(int index) {
+            return names[index];
+        }
+
+        /**
+         * @return the node of the field at the given position
+         */
+        public Schema field(int index) {
+            return fields[index];
+        }
+
+        /**
+         * @return the node of the named field, or null if there is none
+         */
+        public Schema field(String name) {
+            int index = indexOf(name);
+            return index < 0 ? null : fields[index];
+        }
+
+        private int indexOf(Object name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : fields[index].view();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < names.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (next >= names.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = next++;
+                            return new SimpleImmutableEntry<>(names[index], fields[index].view());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+
+        @Override
+        public int viewHash() {
+            return hash;
+        }
+
+        @Override
+        public Object view() {
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ObjectType other)) {
+                return super.equals(o);
+            }
+            if (hash != other.hash || names.length != other.names.length) {
+                return false;
+            }
+            for (int i = 0; i < names.length; i++) {
+                if (!names[i].equals(other.names[i]) || !sameView(fields[i], other.fields[i])) {
+                    // same fields in another order are still the same map
+                    return !Arrays.equals(names, other.names) && super.equals(o);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A collection of elements of one type. Written as a one-element list holding the element schema.
+     */
+    @JsonSerialize(using = SchemaSerializer.class)
+    final class ArrayType extends AbstractList<Object> implements Schema {
+
+        private final Schema element;
+        private final int hash;
+
+        public ArrayType(Schema element) {
+            this.element = Objects.requireNonNull(element);
+            // the hash of a one-element List
+            this.hash = 31 + element.viewHash();
+        }
+
+        public Schema element() {
+            return element;
+        }
+
+        @Override
+        public Object get(int index) {
+            Objects.checkIndex(index, 1);
+            return element.view();
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public int viewHash() {
+            return hash;
+        }
+
+        @Override
+        public Object view() {
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof ArrayType other) {
+                return hash == other.hash && sameView(element, other.element);
+            }
+            return super.equals(o);
+        }
+    }
+
+    /**
+     * A class that is already being described higher up in the same tree, by its simple name.
+     * Written as {@code {"$ref": "SimpleName"}}.
+     */
+    @JsonSerialize(using = SchemaSerializer.class)
+    final class Reference extends AbstractMap<String, Object> implements Schema {
+
+        private final String name;
+
+        public Reference(String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return Set.of(new SimpleImmutableEntry<>(REF, name));
+        }
+
+        @Override
+        public int viewHash() {
+            return hashCode();
+        }
+
+        @Override
+        public Object view() {
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return REF.hashCode() ^ name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof Reference other) {
+                return name.equals(other.name);
+            }
+            return super.equals(o);
+        }
+    }
+
+    /**
+     * Compares two nodes the way their map views compare: primitives and enums by name.
+     */
+    private static boolean sameView(Schema a, Schema b) {
+        if (a == b) {
+            return true;
+        }
+        if (a instanceof Primitive || a instanceof EnumType) {
+            return (b instanceof Primitive || b instanceof EnumType) && a.view().equals(b.view());
+        }
+        return a.equals(b);
+    }
+}
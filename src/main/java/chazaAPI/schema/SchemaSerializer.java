@@ -0,0 +1,55 @@
+package chazaAPI.schema;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Schema} in the JSON shape of the map trees it replaced: primitives and enums
+ * as their type name, objects as objects, arrays as a one-element array and references as
+ * {@code {"$ref": "SimpleName"}}. Nodes are written straight to the generator, without going
+ * through their map and list views.
+ */
+public final class SchemaSerializer extends StdSerializer<Schema> {
+
+    public SchemaSerializer() {
+        super(Schema.class);
+    }
+
+    @Override
+    public void serialize(Schema schema, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(schema, gen);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, Schema schema) {
+        return schema instanceof Schema.ObjectType object && object.isEmpty();
+    }
+
+    private static void write(Schema schema, JsonGenerator gen) throws IOException {
+        switch (schema) {
+            case Schema.Primitive primitive -> gen.writeString(primitive.name());
+            case Schema.EnumType enumType -> gen.writeString(enumType.name());
+            case Schema.ObjectType object -> {
+                gen.writeStartObject();
+                for (int i = 0; i < object.size(); i++) {
+                    gen.writeFieldName(object.name(i));
+                    write(object.field(i), gen);
+                }
+                gen.writeEndObject();
+            }
+            case Schema.ArrayType array -> {
+                gen.writeStartArray();
+                write(array.element(), gen);
+                gen.writeEndArray();
+            }
+            case Schema.Reference reference -> {
+                gen.writeStartObject();
+                gen.writeStringField(Schema.REF, reference.name());
+                gen.writeEndObject();
+            }
+        }
+    }
+}
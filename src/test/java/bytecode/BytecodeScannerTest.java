@@ -0,0 +1,210 @@
+package bytecode;
+
+import chazaAPI.DTO.Item;
+import chazaAPI.annotations.Chaza;
+import chazaAPI.bytecode.BytecodeScanner;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.reflection.ReflectionUtils;
+import chazaAPI.testlogic.BadController;
+import chazaAPI.testlogic.GoodController;
+import chazaAPI.testlogic.GoodController2;
+import chazaAPI.testlogic.GoodController3;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BytecodeScannerTest {
+
+    enum Mood { HAPPY, SAD }
+
+    static class Everything {
+        static final int LIMIT = 3;
+        int count;
+        Long total;
+        String label;
+        Mood mood;
+        Object anything;
+        int[] numbers;
+        Item[] itemArray;
+        List<String> tags;
+        Set<Item> items;
+        List<? extends Item> bounded;
+        @SuppressWarnings("rawtypes")
+        List raw;
+        List<List<String>> nested;
+        Map<String, Item> byName;
+        LocalDate date;
+        Everything next;
+        Inner inner;
+
+        class Inner {
+            String value;
+        }
+    }
+
+    static class Owner {
+        String name;
+        Pet pet;
+    }
+
+    static class Pet {
+        String name;
+        Owner owner;
+        List<Pet> friends;
+    }
+
+    private static final List<Class<?>> CONTROLLERS = List.of(GoodController.class, GoodController2.class, GoodController3.class);
+
+    private static BytecodeScanner scanner() {
+        return new BytecodeScanner(BytecodeScannerTest.class.getClassLoader());
+    }
+
+    private static Comparator<Endpoint> byRoute() {
+        return Comparator.comparing((Endpoint e) -> e.getMethod().name()).thenComparing(Endpoint::getUrl);
+    }
+
+    @Test
+    void endpointsMatchReflection() throws ChazaAPIException {
+        List<Endpoint> expected = new ArrayList<>(Endpoint.scan(CONTROLLERS));
+        List<Endpoint> actual = new ArrayList<>(scanner().scan(CONTROLLERS.stream().map(Class::getName).toList()));
+
+        expected.sort(byRoute());
+        actual.sort(byRoute());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void schemasMatchReflection() throws ChazaAPIException {
+        BytecodeScanner scanner = scanner();
+        for (Class<?> dto : List.of(Everything.class, Everything.Inner.class, Owner.class, Pet.class, Item.class)) {
+            assertEquals(ReflectionUtils.getFieldsRecursive(dto), scanner.schemaOf(dto.getName()), dto.getName());
+        }
+    }
+
+    @Test
+    void findsControllersOfAPackage() throws ChazaAPIException {
+        List<String> controllers = scanner().findControllers("chazaAPI.testlogic");
+
+        assertEquals(List.of(GoodController.class.getName(), GoodController2.class.getName(), GoodController3.class.getName()),
+                controllers);
+        assertFalse(controllers.contains(BadController.class.getName()));
+    }
+
+    @Test
+    void reportsTheSameErrorsAsReflection() {
+        ChazaAPIException reflection = assertThrows(ChazaAPIException.class, () -> Endpoint.scan(List.of(BadController.class)));
+        ChazaAPIException bytecode = assertThrows(ChazaAPIException.class, () -> scanner().scan(List.of(BadController.class.getName())));
+        assertEquals(reflection.getMessage(), bytecode.getMessage());
+    }
+
+    @Test
+    void scanningLoadsNoApplicationClass(@TempDir Path temp) throws Exception {
+        Path classes = compile(temp, Map.of(
+                "Payload", """
+                        package demo;
+                        public class Payload {
+                            static { System.setProperty("chaza.demo.loaded", "payload"); }
+                            String id;
+                            java.util.List<Line> lines;
+                        }
+                        """,
+                "Line", """
+                        package demo;
+                        public class Line { int quantity; State state; }
+                        """,
+                "State", """
+                        package demo;
+                        public enum State { OPEN, CLOSED }
+                        """,
+                "DemoController", """
+                        package demo;
+                        import chazaAPI.annotations.*;
+                        @Chaza(group = "demo", baseUrl = "/demo")
+                        public class DemoController {
+                            static { System.setProperty("chaza.demo.loaded", "controller"); }
+                            @EndPoint(method = Method.POST, url = "/orders", requestDTO = Payload.class,
+                                    statusCodes = {@Status(code = 201, description = "created")})
+                            public static void create() {}
+                        }
+                        """));
+
+        try (RecordingLoader loader = new RecordingLoader(classes)) {
+            BytecodeScanner scanner = new BytecodeScanner(loader);
+            List<Endpoint> endpoints = scanner.scan("demo");
+
+            assertEquals(1, endpoints.size());
+            assertEquals("/demo/orders", endpoints.get(0).getUrl());
+            assertEquals(Map.of("201", "created"), endpoints.get(0).getStatusCodes());
+            assertEquals(List.of(Map.of("quantity", "int", "state", "State")), endpoints.get(0).getRequest().get("lines"));
+            assertEquals(Set.of("demo.DemoController", "demo.Line", "demo.Payload", "demo.State"), scanner.getClassesRead());
+
+            assertTrue(loader.loaded.isEmpty(), "loaded " + loader.loaded);
+            assertNull(System.getProperty("chaza.demo.loaded"));
+
+            // and reflection agrees once the classes are actually loaded
+            Class<?> controller = Class.forName("demo.DemoController", false, loader);
+            assertEquals(Endpoint.scan(List.of(controller)), endpoints);
+        } finally {
+            System.clearProperty("chaza.demo.loaded");
+        }
+    }
+
+    @Test
+    void apiDisplayCanScanClassFiles() throws ChazaAPIException {
+        List<Endpoint> endpoints = APIDisplay.getInstance().useBytecodeScan().scanEndPoints("chazaAPI.testlogic").getEndpoints();
+
+        assertEquals(new HashSet<>(Endpoint.scan(CONTROLLERS)), new HashSet<>(endpoints));
+    }
+
+    private static Path compile(Path temp, Map<String, String> sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Path output = Files.createDirectories(temp.resolve("classes"));
+        List<File> files = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = temp.resolve("src/demo").resolve(source.getKey() + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            files.add(file.toFile());
+        }
+        String classpath = new File(Chaza.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            assertTrue(compiler.getTask(null, fileManager, null,
+                    List.of("-classpath", classpath, "-d", output.toString(), "-proc:none"),
+                    null, fileManager.getJavaFileObjectsFromFiles(files)).call());
+        }
+        return output;
+    }
+
+    /**
+     * Records every class it has to define itself, i.e. every application class that gets loaded.
+     */
+    private static final class RecordingLoader extends URLClassLoader {
+
+        final Set<String> loaded = ConcurrentHashMap.newKeySet();
+
+        RecordingLoader(Path classes) throws Exception {
+            super(new URL[]{classes.toUri().toURL()}, BytecodeScannerTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            loaded.add(name);
+            return super.findClass(name);
+        }
+    }
+}
@@ -1,15 +1,47 @@
 package documentation;
 
+import chazaAPI.annotations.Chaza;
 import chazaAPI.documentation.APIDisplay;
 import chazaAPI.documentation.ApiInfo;
+import chazaAPI.documentation.DocSlices;
+import chazaAPI.documentation.DocSnapshot;
 import chazaAPI.exceptions.ChazaAPIException;
 import io.javalin.Javalin;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import chazaAPI.testlogic.GoodController;
 import chazaAPI.testlogic.GoodController2;
+import chazaAPI.testlogic.GoodController3;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -60,4 +92,428 @@ class APIDisplayTest {
         assertEquals("Server instance cannot be null", ex.getMessage());
     }
 
+    @Test
+    void testChazaJsonServesCachedSnapshotWithEtag() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance()
+                        .setTitle("API")
+                        .addContact("email", "a@b.c")
+                        .addLicense("name", "MIT"))
+                .scanEndPoints(List.of(GoodController.class, GoodController2.class))
+                .generateDocumentation();
+        display.hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://localhost:" + server.port() + "/chaza-json");
+
+            HttpResponse<String> plain = client.send(HttpRequest.newBuilder(uri).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, plain.statusCode());
+            assertEquals(display.getDoc().toPrettyJsonString(), plain.body());
+            String etag = plain.headers().firstValue("ETag").orElseThrow();
+            assertEquals(display.getSnapshot().getEtag(), etag);
+
+            HttpResponse<byte[]> gzipped = client.send(HttpRequest.newBuilder(uri)
+                    .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElseThrow());
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.body()))) {
+                assertEquals(plain.body(), new String(in.readAllBytes()));
+            }
+
+            HttpResponse<String> notModified = client.send(HttpRequest.newBuilder(uri)
+                    .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(304, notModified.statusCode());
+            assertTrue(notModified.body().isEmpty());
+
+            // * stands only for the codings the client did not refuse
+            HttpResponse<byte[]> noGzip = client.send(HttpRequest.newBuilder(uri)
+                    .header("Accept-Encoding", "gzip;q=0, *").build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals("deflate", noGzip.headers().firstValue("Content-Encoding").orElseThrow());
+            try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(noGzip.body()))) {
+                assertEquals(plain.body(), new String(in.readAllBytes()));
+            }
+            HttpResponse<String> noCompression = client.send(HttpRequest.newBuilder(uri)
+                    .header("Accept-Encoding", "gzip;q=0, deflate;q=0, *").build(), HttpResponse.BodyHandlers.ofString());
+            assertTrue(noCompression.headers().firstValue("Content-Encoding").isEmpty());
+            assertEquals(plain.body(), noCompression.body());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testSlicedRoutesServeGroupsOnDemand() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance()
+                        .setTitle("API")
+                        .addContact("email", "a@b.c")
+                        .addLicense("name", "MIT"))
+                .scanEndPoints(List.of(GoodController.class, GoodController2.class, GoodController3.class))
+                .generateDocumentation();
+        display.hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            ObjectMapper mapper = new ObjectMapper();
+            String base = "http://localhost:" + server.port();
+
+            JsonNode index = mapper.readTree(client.send(HttpRequest.newBuilder(URI.create(base + "/chaza-json/groups")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            assertEquals("API", index.get("apiInfo").get("title").asText());
+            assertEquals(3, index.get("groups").size());
+            assertEquals("auth", index.get("groups").get(0).get("name").asText());
+            assertEquals(2, index.get("groups").get(2).get("endpoints").asInt());
+
+            JsonNode items = mapper.readTree(client.send(HttpRequest.newBuilder(URI.create(base + "/chaza-json/endpoints?group=items")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            assertEquals(2, items.size());
+
+            JsonNode posts = mapper.readTree(client.send(HttpRequest.newBuilder(URI.create(base + "/chaza-json/endpoints?method=post&role=user")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            assertEquals(1, posts.size());
+            assertEquals("/auth/login", posts.get(0).get("url").asText());
+
+            // unknown roles are served the cached slice of any
+            DocSlices slices = display.getSlices();
+            assertSame(slices.endpoints(null, null, "any"), slices.endpoints(null, null, "stranger"));
+            assertSame(slices.endpoints("items", null, "stranger"), slices.endpoints("items", null, "intruder"));
+
+            assertEquals(404, client.send(HttpRequest.newBuilder(URI.create(base + "/chaza-json/endpoints?group=nope")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+            assertEquals(400, client.send(HttpRequest.newBuilder(URI.create(base + "/chaza-json/endpoints?method=FETCH")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void testPrebuiltDocumentationRoundTrips(@TempDir Path temp) throws Exception {
+        APIDisplay built = APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance()
+                        .setTitle("API")
+                        .setApiVersion("2.0")
+                        .addContact("email", "a@b.c")
+                        .addLicense("name", "MIT"))
+                .scanEndPoints(List.of(GoodController.class, GoodController2.class, GoodController3.class))
+                .generateDocumentation();
+        Path publicDir = temp.resolve("public");
+        built.writeDocumentation(publicDir, true);
+
+        String html = Files.readString(publicDir.resolve("APIDoc.html"));
+        assertTrue(html.contains("<script id=\"chaza-data\" type=\"application/json\">"));
+        assertTrue(html.contains("\"title\" : \"API\""));
+
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{temp.toUri().toURL()}, previous)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            APIDisplay loaded = APIDisplay.getInstance().usePrebuiltDocumentation();
+
+            assertEquals(built.getSnapshot().asString(), loaded.getSnapshot().asString());
+            assertEquals(built.getSnapshot().getEtag(), loaded.getSnapshot().getEtag());
+            assertEquals("2.0", loaded.getApiInfo().getApiVersion());
+            assertEquals(built.getEndpoints(), loaded.getEndpoints());
+            assertEquals(new String(built.getSlices().index().getBytes()), new String(loaded.getSlices().index().getBytes()));
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    @Test
+    void testPrebuiltDocumentationMissing() {
+        assertThrows(ChazaAPIException.class, () -> APIDisplay.getInstance().usePrebuiltDocumentation());
+    }
+
+    @Test
+    void testScanCacheIsReusedUntilClassesChange(@TempDir Path temp) throws Exception {
+        Path cache = temp.resolve("scan-cache.json");
+        List<Class<?>> controllers = List.of(GoodController.class, GoodController3.class);
+
+        APIDisplay first = APIDisplay.getInstance().useScanCache(cache).scanEndPoints(controllers);
+        assertTrue(Files.exists(cache));
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode entry = mapper.readTree(cache.toFile());
+        assertTrue(entry.get("dependencies").toString().contains("chazaAPI.DTO.BoxOfItems"));
+
+        // A hit returns exactly what the file holds, without scanning the controllers again
+        ((ObjectNode) entry.get("endpoints").get(0)).put("description", "from cache");
+        mapper.writeValue(cache.toFile(), entry);
+        APIDisplay second = APIDisplay.getInstance().useScanCache(cache).scanEndPoints(controllers);
+        assertEquals("from cache", second.getEndpoints().get(0).getDescription());
+        assertEquals(first.getEndpoints().subList(1, first.getEndpoints().size()),
+                second.getEndpoints().subList(1, second.getEndpoints().size()));
+
+        // A different fingerprint is a miss and the cache is rewritten
+        ((ObjectNode) entry).put("fingerprint", "stale");
+        mapper.writeValue(cache.toFile(), entry);
+        APIDisplay third = APIDisplay.getInstance().useScanCache(cache).scanEndPoints(controllers);
+        assertEquals(first.getEndpoints(), third.getEndpoints());
+        assertNotEquals("stale", mapper.readTree(cache.toFile()).get("fingerprint").asText());
+
+        // So is a different set of controllers
+        APIDisplay fourth = APIDisplay.getInstance().useScanCache(cache).scanEndPoints(List.of(GoodController.class));
+        assertEquals(APIDisplay.getInstance().scanEndPoints(List.of(GoodController.class)).getEndpoints(), fourth.getEndpoints());
+    }
+
+    @Test
+    void testFailedScanCacheWriteLeavesNoTempFile(@TempDir Path temp) throws Exception {
+        // A non-empty directory where the cache file should be cannot be replaced
+        Path cache = temp.resolve("scan-cache.json");
+        Files.createDirectories(cache.resolve("taken"));
+        List<Class<?>> controllers = List.of(GoodController.class);
+
+        APIDisplay display = APIDisplay.getInstance().useScanCache(cache).scanEndPoints(controllers);
+        assertEquals(APIDisplay.getInstance().scanEndPoints(controllers).getEndpoints(), display.getEndpoints());
+        try (Stream<Path> files = Files.list(temp)) {
+            assertEquals(List.of(cache), files.toList());
+        }
+    }
+
+    @Test
+    void testRegenerationSwapsCompleteDocuments() throws Exception {
+        ApiInfo info = ApiInfo.getInstance()
+                .setTitle("API")
+                .addContact("email", "a@b.c")
+                .addLicense("name", "MIT");
+        List<Class<?>> small = List.of(GoodController.class);
+        List<Class<?>> large = List.of(GoodController.class, GoodController2.class, GoodController3.class);
+        String smallJson = APIDisplay.getInstance().setApiInfo(info).scanEndPoints(small).generateDocumentation()
+                .getSnapshot().asString();
+        String largeJson = APIDisplay.getInstance().setApiInfo(info).scanEndPoints(large).generateDocumentation()
+                .getSnapshot().asString();
+
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance().setApiInfo(info).scanEndPoints(small).generateDocumentation();
+        display.hostToServer(server);
+        server.start(0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://localhost:" + server.port() + "/chaza-json");
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<String> unexpected = new AtomicReference<>();
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> {
+                    while (running.get()) {
+                        String body = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString()).body();
+                        if (!Set.of(smallJson, largeJson).contains(body)) {
+                            unexpected.set(body);
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            for (int i = 0; i < 20; i++) {
+                display.regenerate(i % 2 == 0 ? large : small, executor).get(10, TimeUnit.SECONDS);
+            }
+            running.set(false);
+
+            assertNull(unexpected.get());
+            assertEquals(smallJson, display.getSnapshot().asString());
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            server.stop();
+        }
+    }
+
+    @Test
+    void testOlderRegenerationNeverReplacesNewerOne() throws Exception {
+        APIDisplay display = APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance()
+                        .setTitle("API")
+                        .addContact("email", "a@b.c")
+                        .addLicense("name", "MIT"));
+        ExecutorService slow = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            slow.submit(() -> {
+                release.await();
+                return null;
+            });
+            var older = display.regenerate(List.of(GoodController.class), slow);
+            display.regenerate(List.of(GoodController.class, GoodController2.class), Runnable::run).get();
+            release.countDown();
+            older.get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, display.getDoc().getEndpoints().size());
+            assertEquals(2, display.getEndpoints().size());
+        } finally {
+            slow.shutdown();
+        }
+    }
+
+    @Test
+    void testWatchPatchesOnlyTheChangedGroup(@TempDir Path temp) throws Exception {
+        Path sources = temp.resolve("src");
+        Path classes = Files.createDirectories(temp.resolve("classes"));
+        compile(sources, classes, Map.of(
+                "Payload", "package demo; public class Payload { String id; }",
+                "OrderController", """
+                        package demo;
+                        import chazaAPI.annotations.*;
+                        @Chaza(group = "orders", baseUrl = "/orders")
+                        public class OrderController {
+                            @EndPoint(method = Method.POST, url = "/", requestDTO = Payload.class)
+                            public static void create() {}
+                        }
+                        """,
+                "UserController", """
+                        package demo;
+                        import chazaAPI.annotations.*;
+                        @Chaza(group = "users", baseUrl = "/users")
+                        public class UserController {
+                            @EndPoint(method = Method.GET, url = "/")
+                            public static void list() {}
+                        }
+                        """));
+
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, previous)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            APIDisplay display = APIDisplay.getInstance()
+                    .setApiInfo(ApiInfo.getInstance()
+                            .setTitle("API")
+                            .addContact("email", "a@b.c")
+                            .addLicense("name", "MIT"));
+            try (var watcher = display.watch("demo")) {
+                assertEquals(List.of(classes), watcher.getRoots());
+                assertEquals(2, display.getDoc().getEndpoints().size());
+                DocSnapshot users = display.getSlices().endpoints("users", null, null);
+
+                // a DTO changes: its controller's group is rebuilt, the other group is kept as is
+                compile(sources, classes, Map.of("Payload", "package demo; public class Payload { String id; int quantity; }"));
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (!display.getDoc().getEndpoints().get(0).getRequest().containsKey("quantity")) {
+                    assertTrue(System.nanoTime() < deadline, "watcher did not pick up the change");
+                    Thread.sleep(50);
+                }
+                assertSame(users, display.getSlices().endpoints("users", null, null));
+                assertTrue(display.getSlices().endpoints("orders", null, null).asString().contains("quantity"));
+                assertTrue(display.getSnapshot().asString().contains("quantity"));
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    @Test
+    void testWatchSurvivesUnreadableClassFiles(@TempDir Path temp) throws Exception {
+        Path sources = temp.resolve("src");
+        Path classes = Files.createDirectories(temp.resolve("classes"));
+        compile(sources, classes, Map.of("UserController", """
+                package demo;
+                import chazaAPI.annotations.*;
+                @Chaza(group = "users", baseUrl = "/users")
+                public class UserController {
+                    @EndPoint(method = Method.GET, url = "/")
+                    public static void list() {}
+                }
+                """));
+
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, previous)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            APIDisplay display = APIDisplay.getInstance()
+                    .setApiInfo(ApiInfo.getInstance()
+                            .setTitle("API")
+                            .addContact("email", "a@b.c")
+                            .addLicense("name", "MIT"));
+            try (var watcher = display.watch("demo")) {
+                assertNotNull(display.getSnapshot());
+
+                // a class file caught half written is reported, not fatal to the watcher
+                Path broken = classes.resolve("demo").resolve("InvoiceController.class");
+                Files.write(broken, new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (display.getSnapshot() != null) {
+                    assertTrue(System.nanoTime() < deadline, "watcher did not report the unreadable class");
+                    Thread.sleep(50);
+                }
+                assertEquals(1, display.getDoc().getEndpoints().size());
+
+                compile(sources, classes, Map.of("InvoiceController", """
+                        package demo;
+                        import chazaAPI.annotations.*;
+                        @Chaza(group = "invoices", baseUrl = "/invoices")
+                        public class InvoiceController {
+                            @EndPoint(method = Method.GET, url = "/")
+                            public static void list() {}
+                        }
+                        """));
+                deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (display.getSnapshot() == null || display.getDoc().getEndpoints().size() != 2) {
+                    assertTrue(System.nanoTime() < deadline, "watcher stopped after the unreadable class");
+                    Thread.sleep(50);
+                }
+                assertTrue(display.getSnapshot().asString().contains("invoices"));
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    @Test
+    void testEventsStreamEndpointDeltas() throws Exception {
+        APIDisplay display = APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance()
+                        .setTitle("API")
+                        .addContact("email", "a@b.c")
+                        .addLicense("name", "MIT"))
+                .scanEndPoints(List.of(GoodController.class))
+                .generateDocumentation();
+        Javalin server = Javalin.create();
+        display.hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/chaza-json/events"))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            HttpResponse<java.util.stream.Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            assertEquals(200, response.statusCode());
+            var lines = response.body().iterator();
+
+            // wait until the connection is registered, then publish a version with one more controller
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (display.getEventSubscribers() == 0) {
+                assertTrue(System.nanoTime() < deadline, "client never subscribed");
+                Thread.sleep(10);
+            }
+            display.scanEndPoints(List.of(GoodController.class, GoodController2.class)).generateDocumentation();
+
+            assertEquals("event: delta", lines.next());
+            String data = lines.next();
+            assertTrue(data.startsWith("data: "), data);
+            JsonNode delta = new ObjectMapper().readTree(data.substring("data: ".length()));
+            assertEquals(1, delta.get("added").size());
+            assertEquals(display.getEndpoints().get(1).getUrl(), delta.get("added").get(0).get("url").asText());
+            assertEquals(0, delta.get("changed").size());
+            assertEquals(0, delta.get("removed").size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void compile(Path sources, Path output, Map<String, String> files) throws Exception {
+        List<File> sourceFiles = new ArrayList<>();
+        for (Map.Entry<String, String> source : files.entrySet()) {
+            Path file = sources.resolve("demo").resolve(source.getKey() + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            sourceFiles.add(file.toFile());
+        }
+        String classpath = new File(Chaza.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath()
+                + File.pathSeparator + output;
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            assertTrue(compiler.getTask(null, fileManager, null,
+                    List.of("-classpath", classpath, "-d", output.toString(), "-proc:none"),
+                    null, fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call());
+        }
+    }
 }
@@ -4,10 +4,14 @@ import chazaAPI.documentation.APIDoc;
 import chazaAPI.documentation.ApiInfo;
 import chazaAPI.documentation.Endpoint;
 import chazaAPI.exceptions.ChazaAPIException;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.junit.jupiter.api.Test;
 import chazaAPI.testlogic.GoodController;
 import chazaAPI.testlogic.GoodController2;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 
@@ -55,4 +59,67 @@ class APIDocTest {
         endpoint.setHeaders(null);
         assertThrows(ChazaAPIException.class , ()-> APIDoc.validate(endpoint));
     }
-}
\ No newline at end of file
+
+    @Test
+    void validateReportsTheSameMessageOnEveryCall() throws ChazaAPIException {
+        ApiInfo apiInfo = ApiInfo.getInstance().setTitle("No license").addContact("email", "a@b.c");
+
+        for (int i = 0; i < 3; i++) {
+            ChazaAPIException ex = assertThrows(ChazaAPIException.class, () -> APIDoc.validate(apiInfo));
+            assertEquals("API license must not be null.", ex.getMessage());
+        }
+        apiInfo.addLicense("name", "MIT");
+        APIDoc.validate(apiInfo);
+    }
+
+    static class Versioned {
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        static String version = "1.0.0";
+
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String name;
+    }
+
+    static class Unversioned {
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        static String version;
+    }
+
+    @Test
+    void validateChecksStaticFieldsToo() throws ChazaAPIException {
+        Versioned versioned = new Versioned();
+        ChazaAPIException ex = assertThrows(ChazaAPIException.class, () -> APIDoc.validate(versioned));
+        assertEquals("API name must not be null.", ex.getMessage());
+        versioned.name = "named";
+        APIDoc.validate(versioned);
+
+        ex = assertThrows(ChazaAPIException.class, () -> APIDoc.validate(new Unversioned()));
+        assertEquals("API version must not be null.", ex.getMessage());
+    }
+
+    @Test
+    void writeToStreamsTheSameJson() throws Exception {
+        ApiInfo apiInfo = ApiInfo.getInstance()
+                .setTitle("Good API")
+                .addContact("email", "support@example.com")
+                .addLicense("name", "Apache 2.0");
+        APIDoc doc = new APIDoc(apiInfo, Endpoint.scan(List.of(GoodController.class, GoodController2.class)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.writeTo(out, true);
+        assertEquals(doc.toPrettyJsonString(), out.toString(StandardCharsets.UTF_8));
+
+        StringWriter writer = new StringWriter();
+        doc.writeTo(writer, false);
+        assertEquals(doc.toJsonString(), writer.toString());
+    }
+
+    @Test
+    void writeToValidatesBeforeWriting() {
+        APIDoc doc = new APIDoc(ApiInfo.getInstance().setTitle("No contact"), List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(ChazaAPIException.class, () -> doc.writeTo(out, false));
+        assertEquals(0, out.size());
+    }
+}
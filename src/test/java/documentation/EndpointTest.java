@@ -2,7 +2,9 @@ package documentation;
 
 import chazaAPI.annotations.Chaza;
 import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.RateLimit;
 import chazaAPI.documentation.Endpoint;
+import chazaAPI.documentation.MetadataPool;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import chazaAPI.exceptions.ChazaAPIException;
@@ -12,10 +14,15 @@ import chazaAPI.testlogic.BadController;
 import chazaAPI.testlogic.GoodController;
 import chazaAPI.testlogic.GoodController2;
 
+import chazaAPI.testlogic.GoodController3;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -367,4 +374,228 @@ class EndpointTest {
         assertNotNull(result.getStatusCodes());
         assertTrue(result.getStatusCodes().isEmpty());
     }
+
+    @Test
+    void testParallelScanMatchesSequentialScan() throws ChazaAPIException {
+        List<Class<?>> controllers = List.of(GoodController.class, GoodController2.class, GoodController3.class);
+
+        assertEquals(Endpoint.scan(controllers), Endpoint.scan(controllers, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void testParallelScanThrowsLikeSequentialScan() {
+        ChazaAPIException ex = assertThrows(ChazaAPIException.class, () -> Endpoint.scan(
+                List.of(GoodController.class, BadController.class, GoodController2.class), ForkJoinPool.commonPool()));
+        assertEquals("class chazaAPI.testlogic.BadController is not annotated with @Chaza", ex.getMessage());
+    }
+
+    @Test
+    void testParallelScanKeepsControllerOrderAtScale() throws ChazaAPIException {
+        List<Class<?>> controllers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            controllers.add(i % 2 == 0 ? GoodController3.class : GoodController2.class);
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        try {
+            assertEquals(Endpoint.scan(controllers), Endpoint.scan(controllers, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testScanSharesRepeatedMetadata() throws Exception {
+        @Chaza(group = "shared", baseUrl = "/shared", accept = "application/json", contentType = "application/json",
+                roles = {"admin", "user"})
+        class SharedController {
+            @EndPoint(url = "/e", method = chazaAPI.annotations.Method.GET, description = "Synthetic endpoint",
+                    headers = {@chazaAPI.annotations.Header(name = "Authorization", value = "Bearer token")},
+                    statusCodes = {@chazaAPI.annotations.Status(code = 200, description = "OK"),
+                            @chazaAPI.annotations.Status(code = 400, description = "Bad request"),
+                            @chazaAPI.annotations.Status(code = 500, description = "Internal error")})
+            public void endpoint() {}
+        }
+        Method method = SharedController.class.getDeclaredMethod("endpoint");
+        EndPoint endPoint = method.getAnnotation(EndPoint.class);
+        Chaza chaza = SharedController.class.getAnnotation(Chaza.class);
+
+        // 10k endpoints whose annotations hand out fresh but equal strings, as 10k methods would
+        int count = 10_000;
+        List<Endpoint> unshared = new ArrayList<>(count);
+        MetadataPool pool = new MetadataPool();
+        List<Endpoint> shared = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            unshared.add(Endpoint.fromAnnotation(freshCopy(endPoint, "/e" + i), freshCopy(chaza, null), "endpoint"));
+            shared.add(Endpoint.fromAnnotation(freshCopy(endPoint, "/e" + i), freshCopy(chaza, null), "endpoint", pool));
+        }
+
+        assertEquals(unshared, shared);
+        assertEquals(count, distinct(unshared, Endpoint::getHeaders));
+        assertEquals(1, distinct(shared, Endpoint::getHeaders));
+        assertEquals(1, distinct(shared, Endpoint::getStatusCodes));
+        assertEquals(1, distinct(shared, Endpoint::getRoles));
+        assertEquals(1, distinct(shared, Endpoint::getContentType));
+        assertThrows(UnsupportedOperationException.class, () -> shared.get(0).getHeaders().put("X", "y"));
+    }
+
+    @Test
+    void testLatencyBudgetPrefersTheEndpointsOwn() throws Exception {
+        @Chaza(group = "budgets", latencyBudgetMs = 250)
+        class BudgetController {
+            @EndPoint(url = "inherited", method = chazaAPI.annotations.Method.GET)
+            public void inherited() {}
+
+            @EndPoint(url = "own", method = chazaAPI.annotations.Method.GET, latencyBudgetMs = 40)
+            public void own() {}
+
+            @EndPoint(url = "negative", method = chazaAPI.annotations.Method.GET, latencyBudgetMs = -1)
+            public void negative() {}
+        }
+        Chaza chaza = BudgetController.class.getAnnotation(Chaza.class);
+
+        Endpoint inherited = Endpoint.fromAnnotation(BudgetController.class.getDeclaredMethod("inherited").getAnnotation(EndPoint.class), chaza, "inherited");
+        Endpoint own = Endpoint.fromAnnotation(BudgetController.class.getDeclaredMethod("own").getAnnotation(EndPoint.class), chaza, "own");
+        assertEquals(250, inherited.getLatencyBudgetMs());
+        assertEquals(40, own.getLatencyBudgetMs());
+        assertTrue(new ObjectMapper().writeValueAsString(own).contains("\"latencyBudgetMs\":40"));
+
+        // without a budget the field is left out of the documentation
+        Endpoint none = Endpoint.scan(List.of(GoodController.class)).get(0);
+        assertNull(none.getLatencyBudgetMs());
+        assertFalse(new ObjectMapper().writeValueAsString(none).contains("latencyBudgetMs"));
+
+        EndPoint negative = BudgetController.class.getDeclaredMethod("negative").getAnnotation(EndPoint.class);
+        assertThrows(ChazaAPIException.class, () -> Endpoint.fromAnnotation(negative, chaza, "negative"));
+    }
+
+    @Test
+    void testCachePolicyOnlyForGetEndpoints() throws Exception {
+        @Chaza(group = "catalog")
+        class CacheController {
+            @EndPoint(url = "items", method = chazaAPI.annotations.Method.GET, cacheTtlSeconds = 30,
+                    cacheVaryBy = "Accept-Language", cacheMaxEntries = 100)
+            public void items() {}
+
+            @EndPoint(url = "items", method = chazaAPI.annotations.Method.POST, cacheTtlSeconds = 30)
+            public void create() {}
+
+            @EndPoint(url = "untimed", method = chazaAPI.annotations.Method.GET, cacheVaryBy = "Accept")
+            public void untimed() {}
+        }
+        Chaza chaza = CacheController.class.getAnnotation(Chaza.class);
+
+        Endpoint items = Endpoint.fromAnnotation(CacheController.class.getDeclaredMethod("items").getAnnotation(EndPoint.class), chaza, "items");
+        assertEquals(new Endpoint.CachePolicy(30, List.of("Accept-Language"), 100), items.getCache());
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(items, mapper.readValue(mapper.writeValueAsString(items), Endpoint.class));
+
+        assertNull(Endpoint.scan(List.of(GoodController.class)).get(0).getCache());
+        for (String name : List.of("create", "untimed")) {
+            EndPoint invalid = CacheController.class.getDeclaredMethod(name).getAnnotation(EndPoint.class);
+            assertThrows(ChazaAPIException.class, () -> Endpoint.fromAnnotation(invalid, chaza, name));
+        }
+    }
+
+    @Test
+    void testRateLimitsPerRole() throws Exception {
+        @Chaza(group = "limits", roles = {"guest", "admin"}, rateLimits = @RateLimit(perSecond = 5))
+        class LimitController {
+            @EndPoint(url = "inherited", method = chazaAPI.annotations.Method.GET)
+            public void inherited() {}
+
+            @EndPoint(url = "own", method = chazaAPI.annotations.Method.GET,
+                    rateLimits = {@RateLimit(perSecond = 1, burst = 10), @RateLimit(role = "admin", perSecond = 100)})
+            public void own() {}
+
+            @EndPoint(url = "unknown", method = chazaAPI.annotations.Method.GET, rateLimits = @RateLimit(role = "robot", perSecond = 1))
+            public void unknown() {}
+
+            @EndPoint(url = "twice", method = chazaAPI.annotations.Method.GET,
+                    rateLimits = {@RateLimit(perSecond = 1), @RateLimit(perSecond = 2)})
+            public void twice() {}
+
+            @EndPoint(url = "zero", method = chazaAPI.annotations.Method.GET, rateLimits = @RateLimit(perSecond = 0))
+            public void zero() {}
+        }
+        Chaza chaza = LimitController.class.getAnnotation(Chaza.class);
+
+        Endpoint inherited = Endpoint.fromAnnotation(LimitController.class.getDeclaredMethod("inherited").getAnnotation(EndPoint.class), chaza, "inherited");
+        assertEquals(Map.of("any", new Endpoint.RateLimitPolicy(5, 5)), inherited.getRateLimits());
+        Endpoint own = Endpoint.fromAnnotation(LimitController.class.getDeclaredMethod("own").getAnnotation(EndPoint.class), chaza, "own");
+        assertEquals(Map.of("any", new Endpoint.RateLimitPolicy(1, 10), "admin", new Endpoint.RateLimitPolicy(100, 100)), own.getRateLimits());
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(own, mapper.readValue(mapper.writeValueAsString(own), Endpoint.class));
+
+        assertNull(Endpoint.scan(List.of(GoodController.class)).get(0).getRateLimits());
+        for (String name : List.of("unknown", "twice", "zero")) {
+            EndPoint invalid = LimitController.class.getDeclaredMethod(name).getAnnotation(EndPoint.class);
+            assertThrows(ChazaAPIException.class, () -> Endpoint.fromAnnotation(invalid, chaza, name));
+        }
+    }
+
+    @Test
+    void testBulkheadPrefersTheEndpointsOwn() throws Exception {
+        @Chaza(group = "bulkheads", bulkhead = 10, bulkheadQueue = 5)
+        class BulkheadController {
+            @EndPoint(url = "inherited", method = chazaAPI.annotations.Method.GET)
+            public void inherited() {}
+
+            @EndPoint(url = "own", method = chazaAPI.annotations.Method.GET, bulkhead = 2)
+            public void own() {}
+
+            @EndPoint(url = "negative", method = chazaAPI.annotations.Method.GET, bulkhead = -1)
+            public void negative() {}
+
+            @EndPoint(url = "queueOnly", method = chazaAPI.annotations.Method.GET, bulkheadQueue = 3)
+            public void queueOnly() {}
+        }
+        Chaza chaza = BulkheadController.class.getAnnotation(Chaza.class);
+
+        Endpoint inherited = Endpoint.fromAnnotation(BulkheadController.class.getDeclaredMethod("inherited").getAnnotation(EndPoint.class), chaza, "inherited");
+        assertEquals(new Endpoint.BulkheadPolicy(10, 5), inherited.getBulkhead());
+        Endpoint own = Endpoint.fromAnnotation(BulkheadController.class.getDeclaredMethod("own").getAnnotation(EndPoint.class), chaza, "own");
+        assertEquals(new Endpoint.BulkheadPolicy(2, 0), own.getBulkhead());
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(own, mapper.readValue(mapper.writeValueAsString(own), Endpoint.class));
+
+        assertNull(Endpoint.scan(List.of(GoodController.class)).get(0).getBulkhead());
+        for (String name : List.of("negative", "queueOnly")) {
+            EndPoint invalid = BulkheadController.class.getDeclaredMethod(name).getAnnotation(EndPoint.class);
+            assertThrows(ChazaAPIException.class, () -> Endpoint.fromAnnotation(invalid, chaza, name));
+        }
+    }
+
+    private static long distinct(List<Endpoint> endpoints, Function<Endpoint, Object> value) {
+        Set<Object> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        endpoints.forEach(endpoint -> identities.add(value.apply(endpoint)));
+        return identities.size();
+    }
+
+    /**
+     * Copies an annotation so that every string it returns is a new instance, optionally with another URL.
+     */
+    @SuppressWarnings("unchecked")
+    private static <A extends Annotation> A freshCopy(A annotation, String url) {
+        Class<A> type = (Class<A>) annotation.annotationType();
+        return (A) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, member, args) -> {
+            if (member.getName().equals("url") && url != null) {
+                return new String(url);
+            }
+            Object value = member.invoke(annotation, args);
+            if (value instanceof String string) {
+                return new String(string);
+            }
+            if (value instanceof String[] strings) {
+                return Arrays.stream(strings).map(String::new).toArray(String[]::new);
+            }
+            if (value instanceof Annotation[] nested) {
+                Annotation[] copies = (Annotation[]) Array.newInstance(nested.getClass().getComponentType(), nested.length);
+                for (int i = 0; i < nested.length; i++) {
+                    copies[i] = freshCopy(nested[i], null);
+                }
+                return copies;
+            }
+            return value;
+        });
+    }
 }
@@ -0,0 +1,104 @@
+package processor;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.processor.ChazaIndexProcessor;
+import chazaAPI.reflection.ControllerIndex;
+import chazaAPI.reflection.ReflectionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChazaIndexProcessorTest {
+
+    @TempDir
+    Path temp;
+
+    private static final String CONTROLLER = """
+            package demo;
+            import chazaAPI.annotations.*;
+            @Chaza(group = "demo")
+            public class DemoController {
+                @EndPoint(method = Method.GET, url = "/demo",
+                        statusCodes = {@Status(code = 200, description = "ok")},
+                        headers = {@Header(name = "Authorization", value = "Bearer token")})
+                public static void demo() {}
+            }
+            """;
+
+    private static final String CONFLICT = """
+            package demo;
+            import chazaAPI.annotations.*;
+            @Chaza(group = "demo")
+            public class ConflictController {
+                @EndPoint(method = Method.POST, url = "/conflict", requestDTO = String.class,
+                        requestFields = {@Field(name = "foo", type = "string")})
+                public static void conflict() {}
+            }
+            """;
+
+    private DiagnosticCollector<JavaFileObject> compile(Path output, String className, String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            Path sourceFile = temp.resolve("src").resolve(className + ".java");
+            Files.createDirectories(sourceFile.getParent());
+            Files.writeString(sourceFile, source);
+            Files.createDirectories(output);
+            String classpath = new File(Chaza.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                    List.of("-classpath", classpath, "-d", output.toString(), "-proc:only"),
+                    null, files.getJavaFileObjects(sourceFile.toFile()));
+            task.setProcessors(List.of(new ChazaIndexProcessor()));
+            task.call();
+        }
+        return diagnostics;
+    }
+
+    @Test
+    void writesIndexOfControllers() throws Exception {
+        Path output = temp.resolve("classes");
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(output, "DemoController", CONTROLLER);
+
+        assertTrue(diagnostics.getDiagnostics().stream().noneMatch(d -> d.getKind() == Diagnostic.Kind.ERROR));
+        List<String> lines = Files.readAllLines(output.resolve(ControllerIndex.LOCATION));
+        assertTrue(lines.contains("demo.DemoController"));
+    }
+
+    @Test
+    void rejectsFieldsAndDtoOnTheSameEndpoint() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(temp.resolve("classes"), "ConflictController", CONFLICT);
+
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR
+                && d.getMessage(null).contains("Cannot use both requestFields and requestDTO")));
+    }
+
+    @Test
+    void indexIsReadThroughTheContextClassLoader() throws Exception {
+        Path output = temp.resolve("index");
+        Files.createDirectories(output.resolve("META-INF/chaza"));
+        Files.writeString(output.resolve(ControllerIndex.LOCATION),
+                "# test index\nchazaAPI.testlogic.GoodController\nchazaAPI.testlogic.GoodController2\nother.Missing\n");
+
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, previous)) {
+            Thread.currentThread().setContextClassLoader(loader);
+
+            Optional<List<Class<?>>> controllers = ReflectionUtils.findIndexedControllers("chazaAPI.testlogic");
+            assertTrue(controllers.isPresent());
+            assertEquals(2, controllers.get().size());
+            assertTrue(ReflectionUtils.findIndexedControllers("nothing.here").isEmpty());
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package reflection;
+
+import chazaAPI.DTO.BoxOfItems;
+import chazaAPI.DTO.Item;
+import chazaAPI.reflection.ReflectionUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReflectionUtilsTest {
+
+    static class Pair {
+        Item left;
+        Item right;
+    }
+
+    static class TreeNode {
+        String label;
+        TreeNode parent;
+        List<TreeNode> children;
+    }
+
+    static class Owner {
+        String name;
+        Pet pet;
+    }
+
+    static class Pet {
+        String name;
+        Owner owner;
+    }
+
+    @Test
+    void schemasAreSharedAndImmutable() {
+        Map<String, Object> item = ReflectionUtils.getFieldsRecursive(Item.class);
+
+        assertSame(item, ReflectionUtils.getFieldsRecursive(Item.class));
+        assertEquals(Map.of("name", "String", "description", "String", "price", "double", "category", "Category"), item);
+        assertThrows(UnsupportedOperationException.class, () -> item.put("extra", "String"));
+
+        List<?> items = (List<?>) ReflectionUtils.getFieldsRecursive(BoxOfItems.class).get("items");
+        assertSame(item, items.get(0));
+    }
+
+    @Test
+    void repeatedClassIsDescribedEveryTime() {
+        Map<String, Object> pair = ReflectionUtils.getFieldsRecursive(Pair.class);
+
+        assertEquals(pair.get("left"), pair.get("right"));
+        assertFalse(((Map<?, ?>) pair.get("right")).isEmpty());
+    }
+
+    @Test
+    void cyclesBecomeReferences() {
+        Map<String, Object> node = ReflectionUtils.getFieldsRecursive(TreeNode.class);
+
+        assertEquals(Map.of(ReflectionUtils.REF, "TreeNode"), node.get("parent"));
+        assertEquals(List.of(Map.of(ReflectionUtils.REF, "TreeNode")), node.get("children"));
+    }
+
+    @Test
+    void mutualCyclesReuseClosedSchemas() {
+        Map<String, Object> owner = ReflectionUtils.getFieldsRecursive(Owner.class);
+        Map<String, Object> pet = ReflectionUtils.getFieldsRecursive(Pet.class);
+
+        assertEquals(Map.of(ReflectionUtils.REF, "Owner"), ((Map<?, ?>) owner.get("pet")).get("owner"));
+        // the cached Owner schema is self-contained, so Pet embeds it as is
+        assertSame(owner, pet.get("owner"));
+    }
+}
@@ -0,0 +1,176 @@
+package runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.RateLimit;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.documentation.ApiInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchDispatcherTest {
+
+    @Chaza(group = "shop", baseUrl = "/shop", contentType = "application/json")
+    static class ShopController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "items/{id}")
+        static void item(Context ctx) {
+            ctx.json(Map.of("id", ctx.pathParam("id"), "currency", String.valueOf(ctx.queryParam("currency")),
+                    "user", String.valueOf(ctx.header("Authorization"))));
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.POST, url = "echo", accept = "text/plain")
+        static void echo(Context ctx) {
+            ctx.status(201).contentType("text/plain").result(ctx.body() + " from " + ctx.contentType());
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "slow")
+        static void slow(Context ctx) throws InterruptedException {
+            Thread.sleep(400);
+            ctx.result("slow");
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "garbled")
+        static void garbled(Context ctx) {
+            ctx.contentType("text/plain; charset=x-internal-codepage").result("hello");
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "scarce", rateLimits = @RateLimit(perSecond = 100, burst = 1))
+        static void scarce(Context ctx) {
+            ctx.result("scarce");
+        }
+    }
+
+    private static HttpResponse<String> batch(HttpClient client, Javalin server, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/batch"))
+                        .header("Authorization", "Bearer alice")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Javalin start() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance().setTitle("Shop").addContact("email", "a@b.c").addLicense("name", "MIT"))
+                .scanEndPoints(List.of(ShopController.class))
+                .generateDocumentation()
+                .enableBatch(5);
+        display.bindRoutes(server, List.of(ShopController.class)).hostToServer(server);
+        return server.start(0);
+    }
+
+    @Test
+    void runsDocumentedEndpointsInOneCall() throws Exception {
+        Javalin server = start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = batch(client, server, """
+                    [{"method": "GET", "url": "/shop/items/7?currency=eur"},
+                     {"method": "post", "url": "/shop/echo", "body": "hello"},
+                     {"method": "GET", "url": "/shop/missing"},
+                     {"method": "GET", "url": "/shop/scarce"},
+                     {"method": "GET", "url": "/shop/scarce"}]""");
+            assertEquals(200, response.statusCode());
+            JsonNode results = new ObjectMapper().readTree(response.body());
+            assertEquals(5, results.size());
+
+            JsonNode item = results.get(0);
+            assertEquals(200, item.get("status").asInt());
+            assertEquals("7", item.get("body").get("id").asText());
+            assertEquals("eur", item.get("body").get("currency").asText());
+            // sub-requests carry the credentials of the batch
+            assertEquals("Bearer alice", item.get("body").get("user").asText());
+
+            JsonNode echo = results.get(1);
+            assertEquals(201, echo.get("status").asInt());
+            // the body takes the documented accept type
+            assertEquals("hello from text/plain", echo.get("body").asText());
+
+            assertEquals(404, results.get(2).get("status").asInt());
+            assertEquals(200, results.get(3).get("status").asInt());
+            // a batch calls an endpoint no more often than its burst
+            assertEquals(429, results.get(4).get("status").asInt());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void runsSubRequestsConcurrently() throws Exception {
+        Javalin server = start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            long start = System.nanoTime();
+            JsonNode results = new ObjectMapper().readTree(batch(client, server, """
+                    [{"method": "GET", "url": "/shop/slow"}, {"method": "GET", "url": "/shop/slow"},
+                     {"method": "GET", "url": "/shop/slow"}, {"method": "GET", "url": "/shop/slow"}]""").body());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            for (JsonNode result : results) {
+                assertEquals("slow", result.get("body").asText());
+            }
+            assertTrue(millis < 1200, "four 400ms requests took " + millis + "ms");
+
+            assertEquals(400, batch(client, server, "{\"not\": \"a list\"}").statusCode());
+            assertEquals(400, batch(client, server, "[1, 2, 3, 4, 5, 6]").statusCode());
+            JsonNode nested = new ObjectMapper().readTree(batch(client, server, "[{\"method\": \"POST\", \"url\": \"/batch\"}]").body());
+            assertEquals(400, nested.get(0).get("status").asInt());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void subRequestsOverTheTimeoutAreAnsweredWithA504() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance().setTitle("Shop").addContact("email", "a@b.c").addLicense("name", "MIT"))
+                .scanEndPoints(List.of(ShopController.class))
+                .generateDocumentation()
+                .enableBatch("/batch", 5, 100);
+        display.bindRoutes(server, List.of(ShopController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            // warm up, so that only the slow request is held to the short timeout
+            batch(client, server, """
+                    [{"method": "GET", "url": "/shop/items/1"}]""");
+            JsonNode results = new ObjectMapper().readTree(batch(client, server, """
+                    [{"method": "GET", "url": "/shop/slow"}, {"method": "GET", "url": "/shop/items/1"}]""").body());
+            assertEquals(504, results.get(0).get("status").asInt());
+            assertEquals("Timed out", results.get(0).get("body").asText());
+            assertEquals(200, results.get(1).get("status").asInt());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void failedSubRequestsDoNotExposeTheirCause() throws Exception {
+        Javalin server = start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            // the body cannot be decoded from its charset once the handler is done
+            JsonNode results = new ObjectMapper().readTree(batch(client, server, """
+                    [{"method": "GET", "url": "/shop/garbled"}, {"method": "GET", "url": "/shop/items/1"}]""").body());
+
+            assertEquals(500, results.get(0).get("status").asInt());
+            assertEquals("Internal server error", results.get(0).get("body").asText());
+            assertEquals(200, results.get(1).get("status").asInt());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.Status;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.documentation.ApiInfo;
+import chazaAPI.runtime.Bulkheads;
+import chazaAPI.runtime.RouteBinder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadsTest {
+
+    static final CountDownLatch ENTERED = new CountDownLatch(2);
+    static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+    @Chaza(group = "reports", baseUrl = "/reports", bulkhead = 2)
+    static class ReportController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "slow",
+                statusCodes = @Status(code = 503, description = "Reports are busy"))
+        static void slow(Context ctx) throws InterruptedException {
+            ENTERED.countDown();
+            RELEASE.await(10, TimeUnit.SECONDS);
+            ctx.result("done");
+        }
+    }
+
+    @Chaza(group = "orders", baseUrl = "/orders", bulkhead = 1, bulkheadQueue = 1)
+    static class OrderController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "place",
+                statusCodes = @Status(code = 429, description = "Too many orders"))
+        static void place(Context ctx) throws InterruptedException {
+            Thread.sleep(300);
+            ctx.result("placed");
+        }
+    }
+
+    @Chaza(group = "reports", baseUrl = "/archive", bulkhead = 1)
+    static class ArchiveController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "export")
+        static void export(Context ctx) {
+            ctx.result("exported");
+        }
+    }
+
+    private static APIDisplay display() throws Exception {
+        return APIDisplay.getInstance()
+                .setApiInfo(ApiInfo.getInstance().setTitle("Shop").addContact("email", "a@b.c").addLicense("name", "MIT"))
+                .scanEndPoints(List.of(ReportController.class, OrderController.class))
+                .generateDocumentation()
+                .enforceBulkheads(5000);
+    }
+
+    private static HttpRequest get(Javalin server, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build();
+    }
+
+    private static JsonNode group(HttpClient client, Javalin server, String name) throws Exception {
+        JsonNode groups = new ObjectMapper().readTree(client.send(get(server, "/chaza-json/bulkheads"), HttpResponse.BodyHandlers.ofString()).body());
+        for (JsonNode group : groups) {
+            if (group.get("group").asText().equals(name)) {
+                return group;
+            }
+        }
+        return fail("No bulkhead for " + name);
+    }
+
+    @Test
+    void refusesRequestsOverTheCapWithTheDocumentedStatus() throws Exception {
+        Javalin server = Javalin.create(config -> config.useVirtualThreads = true);
+        APIDisplay display = display();
+        display.bindRoutes(server, List.of(ReportController.class, OrderController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            CompletableFuture<HttpResponse<String>> first = client.sendAsync(get(server, "/reports/slow"), HttpResponse.BodyHandlers.ofString());
+            CompletableFuture<HttpResponse<String>> second = client.sendAsync(get(server, "/reports/slow"), HttpResponse.BodyHandlers.ofString());
+            assertTrue(ENTERED.await(10, TimeUnit.SECONDS));
+
+            HttpResponse<String> refused = client.send(get(server, "/reports/slow"), HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, refused.statusCode());
+            assertTrue(refused.body().contains("Reports are busy"), refused.body());
+            // a full group does not hold up the others
+            assertEquals(200, client.send(get(server, "/orders/place"), HttpResponse.BodyHandlers.ofString()).statusCode());
+
+            JsonNode reports = group(client, server, "reports");
+            assertEquals(2, reports.get("inFlight").asInt());
+            assertEquals(1, reports.get("refused").asInt());
+
+            RELEASE.countDown();
+            assertEquals("done", first.get(10, TimeUnit.SECONDS).body());
+            assertEquals("done", second.get(10, TimeUnit.SECONDS).body());
+            reports = group(client, server, "reports");
+            assertEquals(0, reports.get("inFlight").asInt());
+            assertEquals(2, reports.get("admitted").asInt());
+            assertTrue(display.runtimeReport().containsKey("bulkheads"));
+        } finally {
+            RELEASE.countDown();
+            server.stop();
+        }
+    }
+
+    @Test
+    void queuesUpToTheDeclaredDepth() throws Exception {
+        Javalin server = Javalin.create();
+        display().bindRoutes(server, List.of(ReportController.class, OrderController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                responses.add(client.sendAsync(get(server, "/orders/place"), HttpResponse.BodyHandlers.ofString()));
+            }
+            List<Integer> statuses = new ArrayList<>();
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                statuses.add(response.get(10, TimeUnit.SECONDS).statusCode());
+            }
+            // one runs, one waits for it and one is refused with the documented 429
+            assertEquals(List.of(200, 200, 429), statuses.stream().sorted().toList());
+
+            JsonNode orders = group(client, server, "orders");
+            assertEquals(2, orders.get("admitted").asInt());
+            assertEquals(1, orders.get("refused").asInt());
+            assertEquals(0, orders.get("queued").asInt());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void laterRoutesNarrowTheirGroup() throws Exception {
+        Bulkheads bulkheads = new Bulkheads(0);
+        bulkheads.guard(RouteBinder.routes(List.of(ReportController.class)));
+        // a second package joining the group with a smaller bulkhead
+        bulkheads.guard(RouteBinder.routes(List.of(ArchiveController.class)));
+
+        Map<String, Object> reports = bulkheads.report().get(0);
+        assertEquals("reports", reports.get("group"));
+        assertEquals(1, reports.get("maxConcurrent"));
+        assertEquals(0, reports.get("maxQueued"));
+        assertEquals(0, reports.get("inFlight"));
+        assertEquals(1, bulkheads.report().size());
+    }
+}
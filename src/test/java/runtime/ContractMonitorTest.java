@@ -0,0 +1,199 @@
+package runtime;
+
+import chazaAPI.DTO.Item;
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.Field;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.runtime.ContractMonitor;
+import chazaAPI.runtime.RouteBinder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractMonitorTest {
+
+    @Chaza(group = "shop", baseUrl = "/shop")
+    static class ShopController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "item", responseDTO = Item.class)
+        static void item(Context ctx) {
+            ctx.json(Map.of("name", "pen", "price", 2.5, "category", "AVAIL"));
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "drifted", responseDTO = Item.class)
+        static void drifted(Context ctx) {
+            ctx.json(Map.of("name", "pen", "price", "cheap"));
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "status", responseFields = @Field(name = "ok", type = "boolean"))
+        static void status(Context ctx) {
+            ctx.status(503).result("{}");
+        }
+    }
+
+    @Chaza(group = "catalog", baseUrl = "/catalog")
+    static class FeaturedController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "featured", responseFields = @Field(name = "title", type = "string"))
+        static void featured(Context ctx) {
+            ctx.json(Map.of("title", "Spring sale"));
+        }
+    }
+
+    @Chaza(group = "catalog", baseUrl = "/catalog")
+    static class CatalogController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "{id}", responseDTO = Item.class)
+        static void item(Context ctx) {
+            ctx.json(Map.of("name", "pen", "price", 2.5, "category", "AVAIL"));
+        }
+    }
+
+    public static class Receipt {
+        public static final String CURRENCY = "ZAR";
+
+        public UUID id = UUID.randomUUID();
+        public String[] tags = {"gift", "express"};
+        public int[] quantities = {1, 3};
+        public BigDecimal total = new BigDecimal("42.50");
+        public BigInteger serial = new BigInteger("12345678901234567890");
+        public LocalDate issued = LocalDate.of(2026, 10, 18);
+        public Instant sent = Instant.parse("2026-10-18T08:30:00Z");
+    }
+
+    @Chaza(group = "billing", baseUrl = "/billing")
+    static class ReceiptController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "receipt", responseDTO = Receipt.class)
+        static void receipt(Context ctx) {
+            ctx.json(new Receipt());
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, Javalin server, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void countsResponsesThatDriftFromTheirSchema() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance().checkResponses(1.0, 1.0);
+        display.bindRoutes(server, List.of(ShopController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            for (int i = 0; i < 3; i++) {
+                assertEquals("pen", new ObjectMapper().readTree(get(client, server, "/shop/item").body()).get("name").asText());
+                // the response is sent unchanged after being checked
+                assertTrue(get(client, server, "/shop/drifted").body().contains("cheap"));
+            }
+            get(client, server, "/shop/status");
+
+            JsonNode contracts = new ObjectMapper().readTree(get(client, server, "/chaza-json/runtime").body()).get("contracts");
+            assertEquals(1.0, contracts.get("rate").asDouble());
+            JsonNode endpoints = contracts.get("endpoints");
+            assertEquals(3, endpoints.size());
+
+            JsonNode drifted = endpoints.get(0);
+            assertEquals("/shop/drifted", drifted.get("url").asText());
+            assertEquals(3, drifted.get("sampled").asLong());
+            assertEquals(3, drifted.get("violations").asLong());
+            assertEquals(3, drifted.get("fields").get("$.price").asLong());
+            assertEquals("expected a number", drifted.get("lastViolation").get("error").asText());
+
+            JsonNode item = endpoints.get(1);
+            assertEquals(3, item.get("sampled").asLong());
+            assertEquals(0, item.get("violations").asLong());
+            assertNull(item.get("lastViolation"));
+
+            // error responses are not held to the documented body
+            assertEquals(0, endpoints.get(2).get("sampled").asLong());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void samplingBacksOffWhenOverBudget() throws Exception {
+        ContractMonitor monitor = new ContractMonitor(1.0, 1e-9);
+        Javalin server = Javalin.create();
+        monitor.attach(server, RouteBinder.bind(server, List.of(ShopController.class)));
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            get(client, server, "/shop/item");
+            Thread.sleep(1100);
+            get(client, server, "/shop/item");
+
+            assertTrue(monitor.getRate() < 0.01, "rate should drop once checks exceed the budget: " + monitor.getRate());
+        } finally {
+            server.stop();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ContractMonitor(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ContractMonitor(0.5, 0));
+    }
+
+    @Test
+    void checksResponsesOnlyAgainstTheMatchedRoute() throws Exception {
+        ContractMonitor monitor = new ContractMonitor(1.0, 1.0);
+        Javalin server = Javalin.create();
+        // /catalog/featured is bound first, so it serves the path that /catalog/{id} also matches
+        monitor.attach(server, RouteBinder.bind(server, List.of(FeaturedController.class, CatalogController.class)));
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            get(client, server, "/catalog/featured");
+            get(client, server, "/catalog/7");
+
+            List<?> endpoints = (List<?>) monitor.report().get("endpoints");
+            Map<?, ?> featured = (Map<?, ?>) endpoints.get(0);
+            assertEquals("/catalog/featured", featured.get("url"));
+            assertEquals(1L, featured.get("sampled"));
+            assertEquals(0L, featured.get("violations"));
+            Map<?, ?> item = (Map<?, ?>) endpoints.get(1);
+            assertEquals("/catalog/{id}", item.get("url"));
+            assertEquals(1L, item.get("sampled"));
+            assertEquals(0L, item.get("violations"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void acceptsCorrectResponsesWithArraysAndJdkTypes() throws Exception {
+        ContractMonitor monitor = new ContractMonitor(1.0, 1.0);
+        Javalin server = Javalin.create();
+        monitor.attach(server, RouteBinder.bind(server, List.of(ReceiptController.class)));
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            for (int i = 0; i < 3; i++) {
+                assertEquals(200, get(client, server, "/billing/receipt").statusCode());
+            }
+
+            Map<?, ?> receipt = (Map<?, ?>) ((List<?>) monitor.report().get("endpoints")).get(0);
+            assertEquals(3L, receipt.get("sampled"));
+            assertEquals(0L, receipt.get("violations"), () -> String.valueOf(receipt.get("lastViolation")));
+        } finally {
+            server.stop();
+        }
+    }
+}
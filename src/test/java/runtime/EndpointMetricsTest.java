@@ -0,0 +1,120 @@
+package runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.APIDisplay;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointMetricsTest {
+
+    @Chaza(group = "clock", baseUrl = "clock/")
+    static class ClockController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "{zone}")
+        static void now(Context ctx) {
+            ctx.result(ctx.pathParam("zone"));
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.POST, url = "{zone}")
+        static void slow(Context ctx) throws InterruptedException {
+            Thread.sleep(20);
+            ctx.status(500);
+        }
+    }
+
+    @Chaza(group = "clock", baseUrl = "clock/")
+    static class LocalClockController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "local")
+        static void local(Context ctx) {
+            ctx.result("local");
+        }
+    }
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void latencyIsRecordedPerDocumentedRoute() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay.getInstance().recordMetrics().bindRoutes(server, List.of(ClockController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.port();
+            for (String zone : List.of("utc", "sast", "cet")) {
+                assertEquals(zone, send(client, HttpRequest.newBuilder(URI.create(base + "/clock/" + zone))).body());
+            }
+            send(client, HttpRequest.newBuilder(URI.create(base + "/clock/utc")).POST(HttpRequest.BodyPublishers.noBody()));
+
+            JsonNode metrics = new ObjectMapper().readTree(send(client, HttpRequest.newBuilder(URI.create(base + "/chaza-json/metrics"))).body());
+            assertEquals(2, metrics.size());
+
+            // keyed by the documented template, not the requested path
+            JsonNode now = metrics.get(0);
+            assertEquals("GET", now.get("method").asText());
+            assertEquals("clock/{zone}", now.get("url").asText());
+            assertEquals(3, now.get("requests").asLong());
+            assertEquals(0, now.get("errors").asLong());
+            assertTrue(now.get("rps").asDouble() > 0);
+            assertTrue(now.get("p50").asDouble() <= now.get("p99").asDouble());
+
+            JsonNode slow = metrics.get(1);
+            assertEquals("POST", slow.get("method").asText());
+            assertEquals(1, slow.get("requests").asLong());
+            assertEquals(1, slow.get("errors").asLong());
+            assertTrue(slow.get("p50").asDouble() >= 18, "p50 should cover the 20ms sleep: " + slow);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void metricsRouteIsMissingUnlessRecorded() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay.getInstance().bindRoutes(server, List.of(ClockController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpResponse<String> response = send(HttpClient.newHttpClient(),
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/chaza-json/metrics")));
+            assertEquals(404, response.statusCode());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void requestsCountOnlyForTheMatchedRoute() throws Exception {
+        Javalin server = Javalin.create();
+        // clock/local is bound first, so it serves the path that clock/{zone} also matches
+        APIDisplay.getInstance().recordMetrics().bindRoutes(server, List.of(LocalClockController.class, ClockController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.port();
+            assertEquals("local", send(client, HttpRequest.newBuilder(URI.create(base + "/clock/local"))).body());
+            assertEquals("utc", send(client, HttpRequest.newBuilder(URI.create(base + "/clock/utc"))).body());
+
+            JsonNode metrics = new ObjectMapper().readTree(send(client, HttpRequest.newBuilder(URI.create(base + "/chaza-json/metrics"))).body());
+            assertEquals("clock/local", metrics.get(0).get("url").asText());
+            assertEquals(1, metrics.get(0).get("requests").asLong());
+            assertEquals("clock/{zone}", metrics.get(1).get("url").asText());
+            assertEquals(1, metrics.get(1).get("requests").asLong());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.runtime.LatencyBudgets;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyBudgetsTest {
+
+    @Chaza(group = "reports", baseUrl = "reports/", latencyBudgetMs = 1000)
+    static class ReportController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "summary")
+        static void summary(Context ctx) {
+            ctx.result("ok");
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "export", latencyBudgetMs = 1)
+        static void export(Context ctx) throws InterruptedException {
+            Thread.sleep(3);
+            ctx.result("done");
+        }
+    }
+
+    @Chaza(group = "reports", baseUrl = "reports/")
+    static class NamedReportController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "{name}", latencyBudgetMs = 1)
+        static void named(Context ctx) {
+            ctx.result(ctx.pathParam("name"));
+        }
+    }
+
+    @Chaza(group = "plain")
+    static class PlainController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "plain")
+        static void plain(Context ctx) {
+            ctx.result("plain");
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, Javalin server, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void endpointsOverBudgetAreFlaggedAndReported() throws Exception {
+        List<LatencyBudgets.Status> alerts = new CopyOnWriteArrayList<>();
+        Javalin server = Javalin.create();
+        APIDisplay.getInstance()
+                .enforceLatencyBudgets(1.0, alerts::add)
+                .bindRoutes(server, List.of(ReportController.class, NamedReportController.class, PlainController.class))
+                .hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            for (int i = 0; i < 25; i++) {
+                get(client, server, "/reports/summary");
+                get(client, server, "/reports/export");
+                get(client, server, "/plain");
+            }
+
+            assertEquals(1, alerts.size());
+            assertTrue(alerts.get(0).violating());
+            assertEquals("reports/export", alerts.get(0).endpoint().getUrl());
+
+            JsonNode budgets = new ObjectMapper().readTree(get(client, server, "/chaza-json/runtime").body()).get("latencyBudgets");
+            assertEquals(List.of("GET reports/export"), List.of(budgets.get("violating").get(0).asText()));
+            assertEquals(1, budgets.get("violating").size());
+            // endpoints without a budget are not timed
+            assertEquals(3, budgets.get("endpoints").size());
+
+            JsonNode export = budgets.get("endpoints").get(0);
+            assertEquals(1, export.get("latencyBudgetMs").asInt());
+            assertEquals(25, export.get("requests").asLong());
+            assertEquals(25, export.get("slow").asLong());
+            assertEquals(100.0, export.get("burnRate").asDouble());
+
+            JsonNode summary = budgets.get("endpoints").get(1);
+            assertEquals(1000, summary.get("latencyBudgetMs").asInt());
+            assertFalse(summary.get("violating").asBoolean());
+
+            // reports/{name} also matches the paths served by the routes bound before it
+            JsonNode named = budgets.get("endpoints").get(2);
+            assertEquals("reports/{name}", named.get("url").asText());
+            assertEquals(0, named.get("requests").asLong());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void aFewSlowRequestsStayWithinBudget() {
+        Endpoint endpoint = new Endpoint();
+        endpoint.setMethod(chazaAPI.annotations.Method.GET);
+        endpoint.setUrl("reports/daily");
+        endpoint.setLatencyBudgetMs(50);
+        List<LatencyBudgets.Status> alerts = new CopyOnWriteArrayList<>();
+        LatencyBudgets budgets = new LatencyBudgets(0.5, alerts::add);
+        LatencyBudgets.Budget budget = budgets.track(endpoint);
+
+        long fast = TimeUnit.MILLISECONDS.toNanos(10);
+        long slow = TimeUnit.MILLISECONDS.toNanos(80);
+        for (int i = 0; i < 1000; i++) {
+            budget.record(i % 200 == 199 ? slow : fast);
+        }
+        LatencyBudgets.Status status = budget.status();
+        assertEquals(1000, status.requests());
+        assertEquals(5, status.slow());
+        assertEquals(0.5, status.burnRate(), 1e-9);
+        assertFalse(status.violating());
+        assertTrue(alerts.isEmpty());
+
+        // slow requests arriving faster than 1% flag the endpoint
+        for (int i = 0; i < 20; i++) {
+            budget.record(slow);
+        }
+        assertTrue(budget.status().violating());
+        assertEquals(1, alerts.size());
+
+        assertThrows(IllegalArgumentException.class, () -> budgets.track(new Endpoint()));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyBudgets(0, alerts::add));
+    }
+}
@@ -0,0 +1,63 @@
+package runtime;
+
+import chazaAPI.runtime.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesStayWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new Random(7).longs(100_000, 1, 5_000_000).sorted().toArray();
+        for (long value : values) {
+            histogram.record(value);
+        }
+
+        double[] quantiles = {0.5, 0.95, 0.99};
+        long[] estimated = histogram.percentiles(quantiles);
+        for (int i = 0; i < quantiles.length; i++) {
+            long exact = values[(int) Math.ceil(quantiles[i] * values.length) - 1];
+            assertEquals(exact, estimated[i], exact * 0.07, "p" + (int) (quantiles[i] * 100));
+        }
+        assertEquals(values.length, histogram.count());
+        assertEquals(values[values.length - 1], histogram.max());
+    }
+
+    @Test
+    void smallAndHugeValuesAreKept() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertArrayEquals(new long[]{0, 0}, histogram.percentiles(0.5, 0.99));
+
+        IntStream.range(0, 10).forEach(histogram::record);
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        long[] percentiles = histogram.percentiles(0.0, 0.5, 1.0);
+        assertEquals(0, percentiles[0]);
+        assertEquals(4, percentiles[1]);
+        assertTrue(percentiles[2] > 0);
+        assertEquals(12, histogram.count());
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i % 100);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, histogram.count());
+    }
+}
@@ -0,0 +1,130 @@
+package runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.RateLimit;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.documentation.ApiInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Chaza(group = "search", baseUrl = "/search", roles = {"guest", "partner"},
+            rateLimits = @RateLimit(perSecond = 0.01, burst = 2))
+    static class SearchController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "items",
+                rateLimits = {@RateLimit(perSecond = 0.01, burst = 1), @RateLimit(role = "partner", perSecond = 0.01, burst = 3)})
+        static void items(Context ctx) {
+            ctx.result("items");
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "tags")
+        static void tags(Context ctx) {
+            ctx.result("tags");
+        }
+    }
+
+    @Chaza(group = "search", baseUrl = "/search")
+    static class SavedSearchController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "saved")
+        static void saved(Context ctx) {
+            ctx.result("saved");
+        }
+    }
+
+    @Chaza(group = "search", baseUrl = "/search", rateLimits = @RateLimit(perSecond = 0.01, burst = 1))
+    static class QueryController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "{query}")
+        static void query(Context ctx) {
+            ctx.result(ctx.pathParam("query"));
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, Javalin server, String path, String role) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path));
+        if (role != null) {
+            request.header("X-Role", role);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void refusesRequestsOverTheLimitOfTheirRole() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance().enforceRateLimits(ctx -> ctx.header("X-Role"))
+                .setApiInfo(ApiInfo.getInstance().setTitle("Search").addContact("email", "a@b.c").addLicense("name", "MIT"))
+                .scanEndPoints(List.of(SearchController.class))
+                .generateDocumentation();
+        display.bindRoutes(server, List.of(SearchController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            assertEquals(200, get(client, server, "/search/items", "guest").statusCode());
+            HttpResponse<String> refused = get(client, server, "/search/items", "guest");
+            assertEquals(429, refused.statusCode());
+            assertTrue(Long.parseLong(refused.headers().firstValue("Retry-After").orElseThrow()) > 1);
+            // roles without a limit of their own share the limit of any
+            assertEquals(429, get(client, server, "/search/items", null).statusCode());
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals(200, get(client, server, "/search/items", "partner").statusCode());
+            }
+            assertEquals(429, get(client, server, "/search/items", "partner").statusCode());
+
+            // endpoints without limits of their own take the controller's
+            assertEquals(200, get(client, server, "/search/tags", null).statusCode());
+            assertEquals(200, get(client, server, "/search/tags", null).statusCode());
+            assertEquals(429, get(client, server, "/search/tags", null).statusCode());
+
+            JsonNode rateLimits = new ObjectMapper().readTree(get(client, server, "/chaza-json/runtime", null).body()).get("rateLimits");
+            JsonNode items = rateLimits.get(0).get("roles");
+            assertEquals(1, items.get("any").get("allowed").asLong());
+            assertEquals(2, items.get("any").get("refused").asLong());
+            assertEquals(3, items.get("partner").get("allowed").asLong());
+            assertEquals(1, items.get("partner").get("refused").asLong());
+
+            // the limits are published with the endpoint
+            JsonNode documented = new ObjectMapper().readTree(get(client, server, "/chaza-json", null).body()).findValues("rateLimits").stream()
+                    .filter(limits -> limits.has("partner"))
+                    .findFirst().orElseThrow();
+            assertEquals(3, documented.get("partner").get("burst").asInt());
+            assertEquals(0.01, documented.get("any").get("perSecond").asDouble());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void onlyTheMatchedRouteTakesAToken() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance().enforceRateLimits();
+        // /search/saved is bound first, so it serves the path that /search/{query} also matches
+        display.bindRoutes(server, List.of(SavedSearchController.class, QueryController.class));
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            for (int i = 0; i < 3; i++) {
+                assertEquals("saved", get(client, server, "/search/saved", null).body());
+            }
+            assertEquals(200, get(client, server, "/search/shoes", null).statusCode());
+            assertEquals(429, get(client, server, "/search/hats", null).statusCode());
+        } finally {
+            server.stop();
+        }
+    }
+}
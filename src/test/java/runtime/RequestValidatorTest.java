@@ -0,0 +1,225 @@
+package runtime;
+
+import chazaAPI.DTO.BoxOfItems;
+import chazaAPI.DTO.Item;
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.annotations.Field;
+import chazaAPI.runtime.RequestValidator;
+import chazaAPI.runtime.RouteBinder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestValidatorTest {
+
+    private static final AtomicInteger HANDLED = new AtomicInteger();
+
+    @Chaza(group = "store", baseUrl = "/store")
+    static class StoreController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.POST, url = "boxes", requestDTO = BoxOfItems.class)
+        static void pack(Context ctx) {
+            HANDLED.incrementAndGet();
+            ctx.result("packed");
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.POST, url = "login", requestFields = {
+                @Field(name = "username", type = "string"),
+                @Field(name = "attempts", type = "int")
+        })
+        static void login(Context ctx) {
+            HANDLED.incrementAndGet();
+            ctx.result("welcome");
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "boxes")
+        static void list(Context ctx) {
+            ctx.result("[]");
+        }
+    }
+
+    @Chaza(group = "notes", baseUrl = "/notes")
+    static class PinnedNoteController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.POST, url = "pinned")
+        static void pin(Context ctx) {
+            ctx.result("pinned " + ctx.body());
+        }
+    }
+
+    @Chaza(group = "notes", baseUrl = "/notes")
+    static class NoteController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.POST, url = "{id}", requestFields = @Field(name = "title", type = "string"))
+        static void save(Context ctx) {
+            ctx.result("saved");
+        }
+    }
+
+    static class Shipment {
+        static final int MAX_PARCELS = 10;
+
+        String[] tags;
+        int[] weights;
+        Item[] items;
+        byte[] label;
+        BigDecimal price;
+        BigInteger serial;
+        UUID id;
+        LocalDate due;
+        Instant sent;
+        Object note;
+    }
+
+    private static String invalid(RequestValidator validator, String body) {
+        Optional<RequestValidator.Violation> violation = validator.validate(body.getBytes(StandardCharsets.UTF_8));
+        assertTrue(violation.isPresent(), () -> "expected a violation for " + body);
+        return violation.get().field() + " " + violation.get().message();
+    }
+
+    private static void valid(RequestValidator validator, String body) {
+        assertEquals(Optional.empty(), validator.validate(body.getBytes(StandardCharsets.UTF_8)), body);
+    }
+
+    @Test
+    void checksDtoBodiesInOnePass() {
+        RequestValidator box = RequestValidator.forType(BoxOfItems.class);
+
+        valid(box, "{\"name\":\"crate\",\"items\":[{\"name\":\"pen\",\"price\":2,\"category\":\"AVAIL\"}]}");
+        valid(box, "{\"name\":null,\"unknown\":{\"deep\":[1,2,{}]},\"items\":[]}");
+        // primitives cannot be left out
+        assertEquals("$.items[0].price is required", invalid(box, "{\"items\":[{\"name\":\"pen\"}]}"));
+        assertEquals("$.items[0].price expected a number", invalid(box, "{\"items\":[{\"price\":\"2\"}]}"));
+        assertEquals("$.items[1].price must not be null",
+                invalid(box, "{\"items\":[{\"price\":1.5},{\"price\":null}]}"));
+        assertTrue(invalid(box, "{\"items\":[{\"price\":1,\"category\":\"TOYS\"}]}").startsWith("$.items[0].category 'TOYS' is not one of Category"));
+        assertEquals("$.items expected an array", invalid(box, "{\"items\":{}}"));
+        assertEquals("$.name expected a string", invalid(box, "{\"name\":[\"crate\"]}"));
+    }
+
+    @Test
+    void checksArraysAndJdkTypesByTheirJsonForm() {
+        RequestValidator shipment = RequestValidator.forType(Shipment.class);
+
+        valid(shipment, "{\"tags\":[\"a\"]}");
+        valid(shipment, "{\"price\":12.5,\"serial\":12345678901234567890}");
+        valid(shipment, "{\"id\":\"" + UUID.randomUUID() + "\"}");
+        valid(shipment, "{\"due\":\"2026-10-18\",\"sent\":1792281600.5}");
+        valid(shipment, "{\"due\":[2026,10,18],\"sent\":\"2026-10-18T00:00:00Z\",\"note\":{\"any\":1}}");
+        valid(shipment, "{\"weights\":[1,2],\"items\":[{\"price\":2}],\"label\":\"AAEC\"}");
+        // static fields are not part of a body
+        valid(shipment, "{\"MAX_PARCELS\":\"many\"}");
+
+        assertEquals("$.tags[1] expected a string", invalid(shipment, "{\"tags\":[\"a\",1]}"));
+        assertEquals("$.tags expected an array", invalid(shipment, "{\"tags\":\"a\"}"));
+        assertEquals("$.weights[0] must not be null", invalid(shipment, "{\"weights\":[null]}"));
+        assertEquals("$.items[0].price is required", invalid(shipment, "{\"items\":[{}]}"));
+        assertEquals("$.price expected a number", invalid(shipment, "{\"price\":true}"));
+        assertEquals("$.serial expected an integer", invalid(shipment, "{\"serial\":1.5}"));
+        assertEquals("$.id expected a string", invalid(shipment, "{\"id\":{}}"));
+    }
+
+    @Test
+    void rejectsBodiesThatAreNotTheDocumentedObject() {
+        RequestValidator item = RequestValidator.forType(Item.class);
+
+        assertEquals("$ Request body is missing", invalid(item, ""));
+        assertEquals("$ must not be null", invalid(item, "null"));
+        assertEquals("$ expected an object", invalid(item, "[]"));
+        assertTrue(invalid(item, "{\"price\":1").startsWith("$ Malformed JSON"));
+        assertEquals("$ Unexpected content after the body", invalid(item, "{\"price\":1} {}"));
+    }
+
+    @Test
+    void requestFieldsAreRequired() throws NoSuchMethodException {
+        EndPoint login = StoreController.class.getDeclaredMethod("login", Context.class).getAnnotation(EndPoint.class);
+        RequestValidator validator = RequestValidator.of(login).orElseThrow();
+
+        valid(validator, "{\"username\":\"thandi\",\"attempts\":3}");
+        assertEquals("$.attempts is required", invalid(validator, "{\"username\":\"thandi\"}"));
+        assertEquals("$.attempts expected an integer", invalid(validator, "{\"username\":\"thandi\",\"attempts\":3.5}"));
+        assertEquals("$.username must not be null", invalid(validator, "{\"username\":null,\"attempts\":3}"));
+
+        EndPoint list = StoreController.class.getDeclaredMethod("list", Context.class).getAnnotation(EndPoint.class);
+        assertTrue(RequestValidator.of(list).isEmpty());
+    }
+
+    @Test
+    void invalidBodiesNeverReachTheHandler() throws Exception {
+        Javalin server = Javalin.create();
+        RouteBinder.bind(server, List.of(StoreController.class), true);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.port();
+            HANDLED.set(0);
+
+            HttpResponse<String> packed = client.send(HttpRequest.newBuilder(URI.create(base + "/store/boxes"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"crate\",\"items\":[]}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, packed.statusCode());
+            assertEquals("packed", packed.body());
+
+            HttpResponse<String> rejected = client.send(HttpRequest.newBuilder(URI.create(base + "/store/login"))
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"thandi\",\"attempts\":\"three\"}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, rejected.statusCode());
+            JsonNode details = new ObjectMapper().readTree(rejected.body()).get("details");
+            assertEquals("$.attempts", details.get("field").asText());
+            assertEquals("expected an integer", details.get("error").asText());
+            assertEquals(1, HANDLED.get());
+
+            // a GET on the same path has no body to check
+            HttpResponse<String> listed = client.send(HttpRequest.newBuilder(URI.create(base + "/store/boxes")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals("[]", listed.body());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void bodiesAreCheckedOnlyAgainstTheMatchedRoute() throws Exception {
+        Javalin server = Javalin.create();
+        // /notes/pinned is bound first, so it serves the path that /notes/{id} also matches
+        RouteBinder.bind(server, List.of(PinnedNoteController.class, NoteController.class), true);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.port();
+
+            HttpResponse<String> pinned = client.send(HttpRequest.newBuilder(URI.create(base + "/notes/pinned"))
+                    .POST(HttpRequest.BodyPublishers.ofString("remember the milk")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, pinned.statusCode());
+            assertEquals("pinned remember the milk", pinned.body());
+
+            HttpResponse<String> rejected = client.send(HttpRequest.newBuilder(URI.create(base + "/notes/7"))
+                    .POST(HttpRequest.BodyPublishers.ofString("remember the milk")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, rejected.statusCode());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.APIDisplay;
+import chazaAPI.runtime.ResponseCache;
+import chazaAPI.runtime.RouteBinder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private static final AtomicInteger PRICES = new AtomicInteger();
+    private static final AtomicInteger REPORTS = new AtomicInteger();
+
+    @Chaza(group = "catalog", baseUrl = "/catalog")
+    static class CatalogController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "price", cacheTtlSeconds = 1, cacheVaryBy = "Accept-Language")
+        static void price(Context ctx) {
+            ctx.header("Cache-Control", "max-age=1");
+            ctx.header("ETag", "\"price-" + PRICES.get() + "\"");
+            ctx.json(Map.of("call", PRICES.incrementAndGet(), "language", String.valueOf(ctx.header("Accept-Language"))));
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "report", cacheTtlSeconds = 60)
+        static void report(Context ctx) throws InterruptedException {
+            REPORTS.incrementAndGet();
+            Thread.sleep(300);
+            ctx.result("report");
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "page/{n}", cacheTtlSeconds = 60, cacheMaxEntries = 2)
+        static void page(Context ctx) {
+            ctx.result("x".repeat(300));
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "broken", cacheTtlSeconds = 60)
+        static void broken(Context ctx) {
+            ctx.status(503).result("down");
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, Javalin server, String path, String language) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path));
+        if (language != null) {
+            request.header("Accept-Language", language);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void servesCachedResponsesUntilTheyExpire() throws Exception {
+        Javalin server = Javalin.create();
+        APIDisplay display = APIDisplay.getInstance().cacheResponses(1 << 20);
+        display.bindRoutes(server, List.of(CatalogController.class)).hostToServer(server);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            int calls = PRICES.get();
+            HttpResponse<String> first = get(client, server, "/catalog/price", "en");
+            assertEquals("MISS", first.headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+            HttpResponse<String> second = get(client, server, "/catalog/price", "en");
+            assertEquals("HIT", second.headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+            assertEquals(first.body(), second.body());
+            assertTrue(second.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+            assertEquals("Accept-Language", second.headers().firstValue("Vary").orElseThrow());
+            // a hit replays the headers the handler set
+            assertEquals("max-age=1", second.headers().firstValue("Cache-Control").orElseThrow());
+            assertEquals(first.headers().firstValue("ETag").orElseThrow(), second.headers().firstValue("ETag").orElseThrow());
+
+            // the varying header and the query string are part of the key
+            assertTrue(get(client, server, "/catalog/price", "fr").body().contains("\"fr\""));
+            get(client, server, "/catalog/price?currency=eur", "en");
+            assertEquals(calls + 3, PRICES.get());
+
+            Thread.sleep(1100);
+            assertEquals("MISS", get(client, server, "/catalog/price", "en").headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+            assertEquals(calls + 4, PRICES.get());
+
+            // error responses are not cached
+            get(client, server, "/catalog/broken", null);
+            assertEquals(503, get(client, server, "/catalog/broken", null).statusCode());
+
+            JsonNode cache = new ObjectMapper().readTree(get(client, server, "/chaza-json/runtime", null).body()).get("cache");
+            JsonNode price = cache.get("endpoints").get(2);
+            assertEquals("/catalog/price", price.get("url").asText());
+            assertEquals(1, price.get("hits").asLong());
+            assertEquals(4, price.get("misses").asLong());
+            assertEquals(2, cache.get("endpoints").get(0).get("misses").asLong());
+            assertEquals("catalog", cache.get("groups").get(0).get("group").asText());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void loadsAColdKeyOnce() throws Exception {
+        Javalin server = Javalin.create();
+        ResponseCache cache = new ResponseCache(1 << 20);
+        RouteBinder.bind(server, List.of(CatalogController.class), false, cache);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            int calls = REPORTS.get();
+            List<CompletableFuture<HttpResponse<String>>> responses = new java.util.ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/catalog/report")).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals("report", response.get().body());
+            }
+            assertEquals(calls + 1, REPORTS.get());
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> report = ((List<Map<String, Object>>) cache.report().get("endpoints")).get(3);
+            assertEquals("/catalog/report", report.get("url"));
+            assertEquals(1L, report.get("misses"));
+            assertEquals(3L, (Long) report.get("hits") + (Long) report.get("coalesced"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWithinLimits() throws Exception {
+        Javalin server = Javalin.create();
+        // room for two pages of the catalog group
+        ResponseCache cache = new ResponseCache(1 << 20, Map.of("catalog", 1000L));
+        RouteBinder.bind(server, List.of(CatalogController.class), false, cache);
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            get(client, server, "/catalog/page/1", null);
+            get(client, server, "/catalog/page/2", null);
+            get(client, server, "/catalog/page/1", null);
+            // over the endpoint's two entries: page 2 is the least recently used
+            get(client, server, "/catalog/page/3", null);
+            assertEquals("HIT", get(client, server, "/catalog/page/1", null).headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+            assertEquals("MISS", get(client, server, "/catalog/page/2", null).headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+
+            // a price does not fit beside two pages: page 1 is the least recently used of the group
+            get(client, server, "/catalog/price", "en");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> group = ((List<Map<String, Object>>) cache.report().get("groups")).get(0);
+            assertTrue((Long) group.get("bytes") <= 1000, "bytes over the limit: " + group.get("bytes"));
+            assertEquals(3L, group.get("evictions"));
+            assertEquals("HIT", get(client, server, "/catalog/price", "en").headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+            assertEquals("HIT", get(client, server, "/catalog/page/2", null).headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+            assertEquals("MISS", get(client, server, "/catalog/page/1", null).headers().firstValue(ResponseCache.CACHE_HEADER).orElseThrow());
+        } finally {
+            server.stop();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCache(1024, Map.of("catalog", -1L)));
+    }
+}
@@ -0,0 +1,93 @@
+package runtime;
+
+import chazaAPI.annotations.Chaza;
+import chazaAPI.annotations.EndPoint;
+import chazaAPI.documentation.Endpoint;
+import chazaAPI.exceptions.ChazaAPIException;
+import chazaAPI.runtime.RouteBinder;
+import chazaAPI.testlogic.BadController;
+import chazaAPI.testlogic.GoodController;
+import chazaAPI.testlogic.GoodController3;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteBinderTest {
+
+    @Chaza(group = "greetings", baseUrl = "/hello")
+    static class HelloController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "/{name}")
+        private static void greet(Context ctx) {
+            ctx.result("Sawubona, " + ctx.pathParam("name"));
+        }
+
+        @EndPoint(method = chazaAPI.annotations.Method.POST, url = "echo")
+        public static String echo(Context ctx) {
+            ctx.result(ctx.body());
+            return "ignored";
+        }
+    }
+
+    @Chaza(group = "broken")
+    static class InstanceController {
+
+        @EndPoint(method = chazaAPI.annotations.Method.GET, url = "/")
+        public void handle(Context ctx) {
+        }
+    }
+
+    @Test
+    void routesFollowTheDocumentation() throws ChazaAPIException {
+        List<RouteBinder.Route> routes = RouteBinder.routes(List.of(GoodController.class, GoodController3.class));
+        List<Endpoint> documented = Endpoint.scan(List.of(GoodController3.class));
+
+        // GoodController.greet takes no Context, so it is documentation only
+        assertEquals(2, routes.size());
+        for (RouteBinder.Route route : routes) {
+            assertEquals(HandlerType.POST, route.type());
+            assertEquals(route.endpoint().getUrl(), route.path().substring(1));
+            assertTrue(documented.contains(route.endpoint()));
+            assertTrue(route.handler().getClass().isHidden(), "handler should be generated, not reflective");
+        }
+    }
+
+    @Test
+    void boundHandlersServeRequests() throws Exception {
+        Javalin server = Javalin.create();
+        List<RouteBinder.Route> routes = RouteBinder.bind(server, List.of(HelloController.class));
+        assertEquals(2, routes.size());
+        server.start(0);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String base = "http://localhost:" + server.port();
+
+            HttpResponse<String> hello = client.send(HttpRequest.newBuilder(URI.create(base + "/hello/Thandi")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals("Sawubona, Thandi", hello.body());
+
+            HttpResponse<String> echo = client.send(HttpRequest.newBuilder(URI.create(base + "/hello/echo"))
+                    .POST(HttpRequest.BodyPublishers.ofString("ping")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals("ping", echo.body());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void rejectsInstanceHandlersAndPlainClasses() {
+        ChazaAPIException instance = assertThrows(ChazaAPIException.class, () -> RouteBinder.routes(List.of(InstanceController.class)));
+        assertTrue(instance.getMessage().contains("static"));
+        assertThrows(ChazaAPIException.class, () -> RouteBinder.routes(List.of(BadController.class)));
+        assertThrows(ChazaAPIException.class, () -> RouteBinder.bind(null, List.of(HelloController.class)));
+    }
+}
@@ -0,0 +1,81 @@
+package runtime;
+
+import chazaAPI.runtime.TokenBucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    /**
+     * Starts the given threads together, each taking tokens until the deadline or until it has
+     * tried the given number of times, and returns how many were taken.
+     */
+    private static long hammer(TokenBucket bucket, int threads, long attempts, long nanos) throws Exception {
+        AtomicLong taken = new AtomicLong();
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                long deadline = System.nanoTime() + nanos;
+                long mine = 0;
+                for (long i = 0; i < attempts && System.nanoTime() - deadline < 0; i++) {
+                    if (bucket.tryAcquire()) {
+                        mine++;
+                    }
+                }
+                taken.addAndGet(mine);
+            });
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return taken.get();
+    }
+
+    @Test
+    void contendedBurstIsHandedOutExactly() throws Exception {
+        // one token a day: nothing is earned during the test
+        TokenBucket bucket = new TokenBucket(1.0 / 86_400, 100, 8);
+        assertEquals(8, bucket.getStripes());
+
+        assertEquals(100, hammer(bucket, 16, 1_000, TimeUnit.SECONDS.toNanos(10)));
+        assertFalse(bucket.tryAcquire());
+        assertTrue(bucket.nanosUntilAvailable() > TimeUnit.HOURS.toNanos(1));
+    }
+
+    @Test
+    void contendedRateStaysWithinTheLimit() throws Exception {
+        TokenBucket bucket = new TokenBucket(2_000, 50, 4);
+        long start = System.nanoTime();
+        long taken = hammer(bucket, 8, Long.MAX_VALUE, TimeUnit.MILLISECONDS.toNanos(500));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertTrue(taken <= 50 + 2_000 * seconds, "over the limit: " + taken + " in " + seconds + "s");
+        // refused requests try every stripe, so tokens earned on any of them are used
+        assertTrue(taken >= 0.8 * 2_000 * 0.5, "under the limit: " + taken + " in " + seconds + "s");
+    }
+
+    @Test
+    void stripesNeverOutnumberTheBurst() {
+        TokenBucket bucket = new TokenBucket(10, 3, 64);
+        assertEquals(3, bucket.getStripes());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+        assertTrue(bucket.nanosUntilAvailable() > 0);
+
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}
@@ -0,0 +1,94 @@
+package schema;
+
+import chazaAPI.DTO.BoxOfItems;
+import chazaAPI.DTO.Item;
+import chazaAPI.enums.Category;
+import chazaAPI.reflection.ReflectionUtils;
+import chazaAPI.schema.Schema;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static class TreeNode {
+        String label;
+        TreeNode parent;
+        List<TreeNode> children;
+        Set<Category> categories;
+    }
+
+    @Test
+    void jsonKeepsTheShapeOfMapTrees() throws Exception {
+        for (Class<?> dto : List.of(Item.class, BoxOfItems.class, TreeNode.class)) {
+            Schema.ObjectType schema = ReflectionUtils.getFieldsRecursive(dto);
+            assertEquals(MAPPER.writeValueAsString(plain(schema)), MAPPER.writeValueAsString(schema), dto.getName());
+        }
+        assertEquals("{\"label\":\"String\",\"parent\":{\"$ref\":\"TreeNode\"},\"children\":[{\"$ref\":\"TreeNode\"}],"
+                        + "\"categories\":[\"Category\"]}",
+                MAPPER.writeValueAsString(ReflectionUtils.getFieldsRecursive(TreeNode.class)));
+    }
+
+    @Test
+    void jsonRoundTripsToAnEqualSchema() throws Exception {
+        Schema.ObjectType schema = ReflectionUtils.getFieldsRecursive(BoxOfItems.class);
+        Map<String, Object> read = MAPPER.readValue(MAPPER.writeValueAsString(schema), new TypeReference<>() {
+        });
+
+        Schema.ObjectType converted = Schema.of(read);
+        assertEquals(schema, converted);
+        assertEquals(schema.hashCode(), converted.hashCode());
+        assertEquals(read, schema);
+        assertEquals(read.hashCode(), schema.hashCode());
+    }
+
+    @Test
+    void nodesAreTyped() {
+        Schema.ObjectType item = ReflectionUtils.getFieldsRecursive(Item.class);
+
+        assertEquals(Schema.Primitive.of("double"), item.field("price"));
+        assertSame(Schema.Primitive.of("String"), item.field("name"));
+        Schema.EnumType category = assertInstanceOf(Schema.EnumType.class, item.field("category"));
+        assertEquals(Arrays.stream(Category.values()).map(Enum::name).toList(), category.values());
+        assertEquals("Category", item.get("category"));
+
+        Schema.ObjectType tree = ReflectionUtils.getFieldsRecursive(TreeNode.class);
+        Schema.ArrayType children = assertInstanceOf(Schema.ArrayType.class, tree.field("children"));
+        assertEquals(new Schema.Reference("TreeNode"), children.element());
+    }
+
+    @Test
+    void schemasAreReadOnly() {
+        Schema.ObjectType item = ReflectionUtils.getFieldsRecursive(Item.class);
+
+        assertThrows(UnsupportedOperationException.class, () -> item.put("extra", "int"));
+        assertThrows(UnsupportedOperationException.class, () -> item.entrySet().iterator().next().setValue("int"));
+    }
+
+    @Test
+    void rejectsWhatIsNotASchema() {
+        assertThrows(IllegalArgumentException.class, () -> Schema.of(Map.of("count", 3)));
+        assertThrows(IllegalArgumentException.class, () -> Schema.of(Map.of("pair", List.of("a", "b"))));
+    }
+
+    /**
+     * Copies a schema into the plain maps and lists it used to be made of.
+     */
+    private static Object plain(Object view) {
+        if (view instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, value) -> copy.put(key, plain(value)));
+            return copy;
+        }
+        if (view instanceof List<?> list) {
+            return list.stream().map(SchemaTest::plain).toList();
+        }
+        return view;
+    }
+}